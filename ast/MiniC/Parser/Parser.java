@@ -1,6 +1,8 @@
 package MiniC.Parser;
 
+import java.util.ArrayList;
 import MiniC.Scanner.Scanner;
+import MiniC.Scanner.TokenPipeline;
 import MiniC.Scanner.Token;
 import MiniC.Scanner.SourcePos;
 import MiniC.Parser.SyntaxError;
@@ -10,6 +12,7 @@ import MiniC.AstGen.*;
 public class Parser {
 
   private Scanner scanner;
+  private TokenPipeline pipeline; // null: the parser calls the scanner
   private ErrorReporter errorReporter;
   private Token currentToken;
   private SourcePos previousTokenPosition;
@@ -21,13 +24,24 @@ public class Parser {
     errorReporter = reporter;
   }
 
+  // A parser that takes the tokens from a scanner running on another
+  // thread (see TokenPipeline). parse() closes the pipeline.
+  public Parser(TokenPipeline tokens, ErrorReporter reporter) {
+    pipeline = tokens;
+    errorReporter = reporter;
+  }
+
+  private Token nextToken() {
+    return (pipeline != null) ? pipeline.next() : scanner.scan();
+  }
+
   // accept() checks whether the current token matches tokenExpected.
   // If so, it fetches the next token.
   // If not, it reports a syntax error.
   private void accept(int tokenExpected) throws SyntaxError {
     if (currentToken.kind == tokenExpected) {
       previousTokenPosition = currentToken.GetSourcePos();
-      currentToken = scanner.scan();
+      currentToken = nextToken();
     } else {
       syntaxError("\"%\" expected here", Token.spell(tokenExpected));
     }
@@ -37,7 +51,7 @@ public class Parser {
   // and fetches the next token from the scanner.
   private void acceptIt() {
     previousTokenPosition = currentToken.GetSourcePos();
-    currentToken = scanner.scan();
+    currentToken = nextToken();
   }
 
   // start records the position of the start of a phrase.
@@ -109,9 +123,8 @@ public class Parser {
     previousTokenPosition.EndLine = 0;
     previousTokenPosition.EndCol = 0;
 
-    currentToken = scanner.scan(); // get first token from scanner...
-
     try {
+      currentToken = nextToken(); // get first token from scanner...
       ProgramAST = parseProgram();
       if (currentToken.kind != Token.EOF) {
         syntaxError("\"%\" not expected after end of program",
@@ -119,6 +132,10 @@ public class Parser {
       }
     } catch (SyntaxError s) {
       return null;
+    } finally {
+      if (pipeline != null) {
+        pipeline.close();
+      }
     }
     return ProgramAST;
   }
@@ -131,25 +148,38 @@ public class Parser {
   //
   ///////////////////////////////////////////////////////////////////////////////
 
-  // parseProgDecls: recursive helper function to facilitate AST construction.
+  // parseProgDecls: helper function to facilitate AST construction. The
+  // declarations are parsed in a loop and chained up afterwards, from the
+  // last one to the first, so that long programs do not overflow the
+  // stack. The chain is the same as if it had been built recursively:
+  // all its DeclSequence nodes for functions get the position after the
+  // last declaration.
   private Decl parseProgDecls() throws SyntaxError {
-    if (!isTypeSpecifier(currentToken.kind)) {
-      return new EmptyDecl(previousTokenPosition);
+    ArrayList<Decl> Funs = new ArrayList<Decl>(); // null for variables
+    ArrayList<DeclSequence> Vars = new ArrayList<DeclSequence>();
+    while (isTypeSpecifier(currentToken.kind)) {
+      SourcePos pos = new SourcePos();
+      start(pos);
+      Type T = parseTypeSpecifier();
+      ID Ident = parseID();
+      if (currentToken.kind == Token.LEFTPAREN) {
+        Funs.add(parseFunPart(T, Ident, pos));
+        Vars.add(null);
+      } else {
+        Funs.add(null);
+        Vars.add(parseVarPart(T, Ident));
+      }
     }
-    SourcePos pos = new SourcePos();
-    start(pos);
-    Type T = parseTypeSpecifier();
-    ID Ident = parseID();
-    if (currentToken.kind == Token.LEFTPAREN) {
-      Decl newD = parseFunPart(T, Ident, pos);
-      return new DeclSequence(newD, parseProgDecls(), previousTokenPosition);
-    } else {
-      DeclSequence Vars = parseVarPart(T, Ident);
-      DeclSequence VarsTail = Vars.GetRightmostDeclSequenceNode();
-      Decl RemainderDecls = parseProgDecls();
-      VarsTail.SetRightSubtree(RemainderDecls);
-      return Vars;
+    Decl D = new EmptyDecl(previousTokenPosition);
+    for (int i = Funs.size() - 1; i >= 0; i--) {
+      if (Funs.get(i) != null) {
+        D = new DeclSequence(Funs.get(i), D, previousTokenPosition);
+      } else {
+        Vars.get(i).GetRightmostDeclSequenceNode().SetRightSubtree(D);
+        D = Vars.get(i);
+      }
     }
+    return D;
   }
 
   private Program parseProgram() throws SyntaxError {
@@ -560,32 +590,38 @@ public class Parser {
   //
   ///////////////////////////////////////////////////////////////////////////////
 
+  // Like parseProgDecls(), the local declarations and the statements of
+  // a compound statement are parsed in a loop and chained up afterwards:
   private Decl parseCompoundDecls() throws SyntaxError {
-    if (!isTypeSpecifier(currentToken.kind)) {
-      return new EmptyDecl(previousTokenPosition);
+    ArrayList<DeclSequence> Vars = new ArrayList<DeclSequence>();
+    while (isTypeSpecifier(currentToken.kind)) {
+      Type T = parseTypeSpecifier();
+      ID Ident = parseID();
+      Vars.add(parseVarPart(T, Ident));
     }
-    Type T = parseTypeSpecifier();
-    ID Ident = parseID();
-    DeclSequence Vars = parseVarPart(T, Ident);
-    DeclSequence VarsTail = Vars.GetRightmostDeclSequenceNode();
-    Decl RemainderDecls = parseCompoundDecls();
-    VarsTail.SetRightSubtree(RemainderDecls);
-    return Vars;
+    Decl D = new EmptyDecl(previousTokenPosition);
+    for (int i = Vars.size() - 1; i >= 0; i--) {
+      Vars.get(i).GetRightmostDeclSequenceNode().SetRightSubtree(D);
+      D = Vars.get(i);
+    }
+    return D;
   }
 
   private Stmt parseCompoundStmts() throws SyntaxError {
-    if (!(currentToken.kind == Token.LEFTBRACE ||
+    ArrayList<Stmt> Stmts = new ArrayList<Stmt>();
+    while (currentToken.kind == Token.LEFTBRACE ||
         currentToken.kind == Token.IF ||
         currentToken.kind == Token.WHILE ||
         currentToken.kind == Token.FOR ||
         currentToken.kind == Token.RETURN ||
-        currentToken.kind == Token.ID)) {
-      return new EmptyStmt(previousTokenPosition);
+        currentToken.kind == Token.ID) {
+      Stmts.add(parseStmt());
     }
-    Stmt S = null;
-    // You can use the following code after implementation of parseStmt():
-    S = parseStmt();
-    return new StmtSequence(S, parseCompoundStmts(), previousTokenPosition);
+    Stmt S = new EmptyStmt(previousTokenPosition);
+    for (int i = Stmts.size() - 1; i >= 0; i--) {
+      S = new StmtSequence(Stmts.get(i), S, previousTokenPosition);
+    }
+    return S;
   }
 
   private Stmt parseStmt() throws SyntaxError {
@@ -1,9 +1,12 @@
 package MiniC.Scanner;
 
+import java.nio.ByteBuffer;
+
 public class SourceFile {
 
   java.io.File source_file;
   java.io.FileInputStream source;
+  ByteBuffer text; // the source text if it is in memory, otherwise null
   final char EOL = '\n';
   public final static char EOF = '\u0000';
 
@@ -18,8 +21,17 @@ public class SourceFile {
     }
   }
 
+  // A source file whose text is already in memory: the bytes between
+  // the position and the limit of "text". The buffer is not modified.
+  public SourceFile (ByteBuffer text) {
+    this.text = text.slice();
+  }
+
   public char readChar()
   {
+     if (text != null) {
+        return text.hasRemaining() ? (char) (text.get() & 0xff) : EOF;
+     }
      try {
         int c = source.read();
         if (c == -1) {
@@ -1,5 +1,6 @@
 package MiniC.Scanner;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import MiniC.Scanner.SourcePos;
 
 final public class Token extends Object {
@@ -7,7 +8,8 @@ final public class Token extends Object {
   public int kind;
   protected SourcePos src_pos;
   private String lexeme;
-  private static int overall_nrtokens = 0;
+  // Shared by all threads, hence atomic:
+  private static final AtomicInteger overall_nrtokens = new AtomicInteger();
   private int my_tokennr;
 
   public Token (int kind, String lexeme, SourcePos src_pos) {
@@ -31,8 +33,7 @@ final public class Token extends Object {
     }
     this.src_pos = src_pos;
     this.lexeme = lexeme;
-    overall_nrtokens++;
-    my_tokennr = overall_nrtokens;
+    my_tokennr = overall_nrtokens.incrementAndGet();
   }
 
   public void print() {
@@ -0,0 +1,180 @@
+package MiniC.Scanner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs a Scanner on another thread, so that scanning overlaps with
+// parsing. The scanner thread (the producer) puts the tokens into a
+// bounded ring buffer, from which the parser (the only consumer) takes
+// them with next(). The consumer can also look ahead at the following
+// tokens with peek(k) and peekKind(k), for k < capacity.
+//
+// The ring is lock-free: the producer only writes "tail" and the
+// consumer only writes "head", and each side publishes its counter after
+// the slots it covers have been written. A side that finds the ring full
+// (or empty) spins for a while and then parks briefly; nobody ever blocks
+// on a lock. The token kinds are kept in an int array next to the
+// tokens, so looking ahead at kinds does not touch the Token objects.
+//
+// The scanner threads come from a pool and are reused by later
+// pipelines, so a compilation does not pay for starting a thread.
+//
+// Usage:
+//   TokenPipeline tokens = new TokenPipeline(new Scanner(source));
+//   Parser parser = new Parser(tokens, reporter);
+//   parser.parse(); // closes the pipeline
+
+public class TokenPipeline {
+
+  public final static int DefaultCapacity = 1024;
+
+  private final static ExecutorService Scanners =
+      Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "MiniC scanner");
+        t.setDaemon(true);
+        return t;
+      });
+
+  private final Token[] tokens;
+  private final int[] kinds;
+  private final int mask;
+
+  // The number of tokens put into and taken out of the ring so far:
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+  // Each side's own counter and its last view of the other side's:
+  private long produced, knownHead; // producer
+  private long consumed, knownTail; // consumer
+
+  private volatile boolean closed;
+  private volatile Throwable failure; // thrown by the scanner
+
+  public TokenPipeline(Scanner scanner) {
+    this(scanner, DefaultCapacity);
+  }
+
+  // The capacity is rounded up to a power of two:
+  public TokenPipeline(Scanner scanner, int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    tokens = new Token[size];
+    kinds = new int[size];
+    mask = size - 1;
+    Scanners.execute(() -> produce(scanner));
+  }
+
+  public int capacity() {
+    return tokens.length;
+  }
+
+  //
+  // The producer side:
+  //
+
+  private void produce(Scanner scanner) {
+    try {
+      Token t;
+      do {
+        t = scanner.scan();
+      } while (!closed && put(t) && t.kind != Token.EOF);
+    } catch (RuntimeException | Error e) {
+      failure = e;
+    }
+  }
+
+  // Returns false if the consumer has closed the pipeline:
+  private boolean put(Token t) {
+    for (int spins = 0; produced - knownHead == tokens.length; spins++) {
+      knownHead = head.get();
+      if (produced - knownHead < tokens.length) {
+        break;
+      }
+      if (closed) {
+        return false;
+      }
+      backOff(spins);
+    }
+    int slot = (int) produced & mask;
+    tokens[slot] = t;
+    kinds[slot] = t.kind;
+    tail.lazySet(++produced);
+    return true;
+  }
+
+  //
+  // The consumer side:
+  //
+
+  // Takes the next token. At the end of the source, EOF is returned
+  // again and again, as by Scanner.scan().
+  public Token next() {
+    int slot = await(consumed);
+    Token t = tokens[slot];
+    if (kinds[slot] != Token.EOF) {
+      tokens[slot] = null;
+      head.lazySet(++consumed);
+    }
+    return t;
+  }
+
+  // The token k places after the one next() returns (peek(0) is that
+  // token itself), or EOF if the source ends before.
+  public Token peek(int k) {
+    return tokens[lookahead(k)];
+  }
+
+  public int peekKind(int k) {
+    return kinds[lookahead(k)];
+  }
+
+  // Stops the scanner thread, e.g., after a syntax error. The tokens that
+  // have not been taken are dropped.
+  public void close() {
+    closed = true;
+  }
+
+  // Returns the slot of the k-th token after the next one, or of EOF:
+  private int lookahead(int k) {
+    if (k < 0 || k >= tokens.length) {
+      throw new IllegalArgumentException("lookahead " + k
+          + " exceeds the capacity " + tokens.length);
+    }
+    for (long i = consumed; ; i++) {
+      int slot = await(i);
+      if (i == consumed + k || kinds[slot] == Token.EOF) {
+        return slot;
+      }
+    }
+  }
+
+  // Waits until the token with number i is in the ring and returns its
+  // slot:
+  private int await(long i) {
+    for (int spins = 0; i >= knownTail; spins++) {
+      knownTail = tail.get();
+      if (i < knownTail) {
+        break;
+      }
+      if (failure != null) {
+        throw new IllegalStateException("scanner failed: " + failure,
+            failure);
+      }
+      backOff(spins);
+    }
+    return (int) i & mask;
+  }
+
+  // Spins first, since the other side is usually just a few tokens
+  // behind, then yields, then sleeps for a while:
+  private static void backOff(int spins) {
+    if (spins < 100) {
+      Thread.onSpinWait();
+    } else if (spins < 200) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(50000);
+    }
+  }
+
+}
@@ -0,0 +1,15 @@
+package MiniC.Benchmark;
+
+// ArenaBuilder.build (code_generation module): copies the checked AST of
+// every correct program into a reused AstArena. Once the arena has grown
+// to the largest program, the copying allocates only the builder and
+// its maps.
+
+public class ArenaBenchmark extends PhaseBenchmark {
+
+  protected Kernel load(String corpus) throws Exception {
+    return Kernels.load("codeGeneration", "MiniC.ArenaKernel",
+        Corpus.load(corpus));
+  }
+
+}
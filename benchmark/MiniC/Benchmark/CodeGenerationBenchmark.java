@@ -0,0 +1,22 @@
+package MiniC.Benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+// Emitter.genCode (code_generation module): generates the class file of
+// every correct program. The programs are parsed and checked again
+// before each operation.
+
+public class CodeGenerationBenchmark extends PhaseBenchmark {
+
+  protected Kernel load(String corpus) throws Exception {
+    return Kernels.load("codeGeneration", "MiniC.GenCodeKernel",
+        Corpus.load(corpus));
+  }
+
+  @Setup(Level.Invocation)
+  public void prepare() {
+    kernel.prepare();
+  }
+
+}
@@ -0,0 +1,77 @@
+package MiniC.Benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import MiniC.Generator.ProgramGenerator;
+
+// The programs the benchmarks run on:
+//   "tests"      the test programs of all modules (including the ones
+//                with errors; every kernel keeps what its phase accepts)
+//   "synthetic"  one large generated program of SyntheticSize bytes
+
+public class Corpus {
+
+  public final static long SyntheticSize = 512 * 1024;
+
+  // Directories with test programs, relative to the repository root:
+  private final static String[] TestDirs = {
+    "scanner/MiniC/Scanner/tst/base/testcases",
+    "parser/MiniC/Parser/tst/base/testcases",
+    "ast/MiniC/Parser/tst/base/AST_testcases",
+    "static_sementic_analysis/MiniC/SemanticAnalysis/tst/base/testcases",
+    "code_generation/MiniC/CodeGen/tst/base/testcases"
+  };
+
+  public static List<byte[]> load(String name) throws IOException {
+    if (name.equals("tests")) {
+      return tests();
+    } else if (name.equals("synthetic")) {
+      List<byte[]> sources = new ArrayList<byte[]>();
+      sources.add(synthetic(SyntheticSize).getBytes());
+      return sources;
+    }
+    throw new IllegalArgumentException("unknown corpus " + name);
+  }
+
+  public static List<byte[]> tests() throws IOException {
+    File root = new File(System.getProperty("minic.root", ".."));
+    List<byte[]> sources = new ArrayList<byte[]>();
+    for (String dir : TestDirs) {
+      File[] files = new File(root, dir).listFiles();
+      if (files == null) {
+        throw new IOException("cannot read " + new File(root, dir));
+      }
+      Arrays.sort(files);
+      for (File f : files) {
+        if (f.getName().endsWith(".mc") || f.getName().endsWith(".txt")) {
+          sources.add(Files.readAllBytes(f.toPath()));
+        }
+      }
+    }
+    return sources;
+  }
+
+  // A correct random program of at least the given number of bytes (see
+  // ProgramGenerator):
+  public static String synthetic(long size) {
+    ProgramGenerator g = new ProgramGenerator();
+    g.Size = size;
+    return g.generate();
+  }
+
+  // The number of lines of a source text:
+  public static int lines(byte[] text) {
+    int n = 0;
+    for (byte b : text) {
+      if (b == '\n') {
+        n++;
+      }
+    }
+    return n;
+  }
+
+}
@@ -0,0 +1,24 @@
+package MiniC.Benchmark;
+
+// One phase of the compiler, driven over a corpus of MiniC programs.
+// Kernels are compiled against a single compiler module and loaded by
+// a class loader of their own (see Kernels). Every kernel has a public
+// constructor that takes the source texts (a List<byte[]>); it keeps the
+// programs that its phase can process.
+
+public interface Kernel {
+
+  // Gets the input of the next run() ready, e.g., parses the programs
+  // that run() checks. Not part of the measurement.
+  void prepare();
+
+  // Runs the phase on all programs. The result depends on the work done,
+  // so it cannot be optimized away.
+  long run();
+
+  // The number of programs and source lines that run() processes:
+  int programs();
+
+  int lines();
+
+}
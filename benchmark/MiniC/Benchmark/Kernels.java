@@ -0,0 +1,46 @@
+package MiniC.Benchmark;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+// Loads kernels. The class path of each compiler module is passed in the
+// system property minic.classpath.<module> (see build.gradle); every
+// kernel gets a class loader of its own, so that the classes of different
+// modules do not clash.
+
+public class Kernels {
+
+  // For the output of phases that print their error messages to
+  // System.out:
+  public final static PrintStream NoOutput =
+      new PrintStream(OutputStream.nullOutputStream());
+
+  public static Kernel load(String module, String className,
+                            List<byte[]> sources) throws Exception {
+    String path = System.getProperty("minic.classpath." + module);
+    if (path == null) {
+      throw new IllegalStateException("minic.classpath." + module
+          + " is not set; run the benchmarks with ./gradlew jmh");
+    }
+    String[] entries = path.split(File.pathSeparator);
+    URL[] urls = new URL[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      urls[i] = toURL(entries[i]);
+    }
+    ClassLoader loader = new URLClassLoader(urls,
+        Kernel.class.getClassLoader());
+    Class<? extends Kernel> kernel = Class.forName(className, true, loader)
+        .asSubclass(Kernel.class);
+    return kernel.getConstructor(List.class).newInstance(sources);
+  }
+
+  private static URL toURL(String entry) throws MalformedURLException {
+    return new File(entry).toURI().toURL();
+  }
+
+}
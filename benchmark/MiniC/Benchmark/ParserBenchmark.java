@@ -0,0 +1,12 @@
+package MiniC.Benchmark;
+
+// Parser.parse (ast module): builds the AST of every syntactically
+// correct program.
+
+public class ParserBenchmark extends PhaseBenchmark {
+
+  protected Kernel load(String corpus) throws Exception {
+    return Kernels.load("ast", "MiniC.ParseKernel", Corpus.load(corpus));
+  }
+
+}
@@ -0,0 +1,63 @@
+package MiniC.Benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The common part of the phase benchmarks: a benchmark runs the kernel
+// of its phase over a whole corpus per operation. Besides ops/s, JMH
+// reports two rates: the source lines processed ("lines") and the bytes
+// the phase allocated ("allocated"), so
+//   bytes per source line = allocated / lines.
+// The GC profiler also reports the allocation per operation
+// (gc.alloc.rate.norm), but that figure includes the per-invocation
+// setup of the SemanticAnalysis and CodeGeneration benchmarks.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class PhaseBenchmark {
+
+  @Param({"tests", "synthetic"})
+  public String corpus;
+
+  protected Kernel kernel;
+
+  private final static com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  // The work done, reported as rates:
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Work {
+    public long lines;
+    public long allocated;
+  }
+
+  protected abstract Kernel load(String corpus) throws Exception;
+
+  @Setup(Level.Trial)
+  public void loadKernel() throws Exception {
+    kernel = load(corpus);
+    if (kernel.programs() == 0) {
+      throw new IllegalStateException("the phase accepts none of the "
+          + "programs of corpus " + corpus);
+    }
+    System.out.println();
+    System.out.println("Corpus " + corpus + ": " + kernel.programs()
+        + " programs, " + kernel.lines() + " lines per operation");
+  }
+
+  @Benchmark
+  public long run(Work work) {
+    long allocated = threads.getCurrentThreadAllocatedBytes();
+    long result = kernel.run();
+    work.allocated += threads.getCurrentThreadAllocatedBytes() - allocated;
+    work.lines += kernel.lines();
+    return result;
+  }
+
+}
@@ -0,0 +1,14 @@
+package MiniC.Benchmark;
+
+// Parser.parse (ast module) with the scanner running on a thread of its
+// own (see TokenPipeline), to compare with ParserBenchmark. Note that the
+// "allocated" rate only counts the parser's thread, not the scanner's.
+
+public class PipelinedParserBenchmark extends PhaseBenchmark {
+
+  protected Kernel load(String corpus) throws Exception {
+    return Kernels.load("ast", "MiniC.PipelinedParseKernel",
+        Corpus.load(corpus));
+  }
+
+}
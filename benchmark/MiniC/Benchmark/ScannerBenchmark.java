@@ -0,0 +1,11 @@
+package MiniC.Benchmark;
+
+// Scanner.scan (scanner module): scans every program to the end.
+
+public class ScannerBenchmark extends PhaseBenchmark {
+
+  protected Kernel load(String corpus) throws Exception {
+    return Kernels.load("scanner", "MiniC.ScanKernel", Corpus.load(corpus));
+  }
+
+}
@@ -0,0 +1,22 @@
+package MiniC.Benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+// SemanticAnalysis.check (code_generation module): checks every
+// syntactically correct program. The programs are parsed again before
+// each operation, since the check decorates the AST.
+
+public class SemanticAnalysisBenchmark extends PhaseBenchmark {
+
+  protected Kernel load(String corpus) throws Exception {
+    return Kernels.load("codeGeneration", "MiniC.CheckKernel",
+        Corpus.load(corpus));
+  }
+
+  @Setup(Level.Invocation)
+  public void prepare() {
+    kernel.prepare();
+  }
+
+}
@@ -0,0 +1,87 @@
+package MiniC;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import MiniC.AstGen.Program;
+import MiniC.Benchmark.Corpus;
+import MiniC.Benchmark.Kernel;
+import MiniC.Benchmark.Kernels;
+import MiniC.Parser.Parser;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.TokenPipeline;
+
+// Parser.parse of the ast module (with the provided scanner), on the
+// programs without syntax errors. The parser and the scanner print to
+// System.out, which is discarded while the kernel runs. If pipelined, the
+// scanner runs on a thread of its own (see TokenPipeline).
+
+public class ParseKernel implements Kernel {
+
+  private ArrayList<ByteBuffer> texts;
+  private int lines;
+  private boolean pipelined;
+
+  public ParseKernel(List<byte[]> sources) {
+    this(sources, false);
+  }
+
+  protected ParseKernel(List<byte[]> sources, boolean pipelined) {
+    this.pipelined = pipelined;
+    texts = new ArrayList<ByteBuffer>();
+    PrintStream stdout = System.out;
+    System.setOut(Kernels.NoOutput);
+    try {
+      for (byte[] text : sources) {
+        if (parse(ByteBuffer.wrap(text)) != null) {
+          texts.add(ByteBuffer.wrap(text));
+          lines += Corpus.lines(text);
+        }
+      }
+    } finally {
+      System.setOut(stdout);
+    }
+  }
+
+  // Returns the AST, or null if there were syntax errors:
+  private Program parse(ByteBuffer text) {
+    ErrorReporter reporter = new ErrorReporter();
+    Scanner scanner = new Scanner(new SourceFile(text));
+    Parser parser = pipelined
+        ? new Parser(new TokenPipeline(scanner), reporter)
+        : new Parser(scanner, reporter);
+    Program ast = parser.parse();
+    return reporter.numErrors == 0 ? ast : null;
+  }
+
+  public void prepare() {
+  }
+
+  // Returns the number of ASTs:
+  public long run() {
+    long n = 0;
+    PrintStream stdout = System.out;
+    System.setOut(Kernels.NoOutput);
+    try {
+      for (ByteBuffer text : texts) {
+        if (parse(text) != null) {
+          n++;
+        }
+      }
+    } finally {
+      System.setOut(stdout);
+    }
+    return n;
+  }
+
+  public int programs() {
+    return texts.size();
+  }
+
+  public int lines() {
+    return lines;
+  }
+
+}
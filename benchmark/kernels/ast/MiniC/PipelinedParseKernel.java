@@ -0,0 +1,13 @@
+package MiniC;
+
+import java.util.List;
+
+// ParseKernel with the scanner on a thread of its own.
+
+public class PipelinedParseKernel extends ParseKernel {
+
+  public PipelinedParseKernel(List<byte[]> sources) {
+    super(sources, true);
+  }
+
+}
@@ -0,0 +1,57 @@
+package MiniC;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import MiniC.AstGen.ArenaBuilder;
+import MiniC.AstGen.AstArena;
+import MiniC.AstGen.Program;
+import MiniC.Benchmark.Corpus;
+import MiniC.Benchmark.Kernel;
+
+// Copies the checked ASTs of the code_generation module into an
+// AstArena, on the programs without errors. The arena is reset and
+// reused for every program, as a long-running compiler would do.
+
+public class ArenaKernel implements Kernel {
+
+  private ArrayList<Program> asts;
+  private AstArena arena;
+  private int lines;
+
+  public ArenaKernel(List<byte[]> sources) {
+    asts = new ArrayList<Program>();
+    for (byte[] text : sources) {
+      Program ast = CheckKernel.parse(ByteBuffer.wrap(text));
+      if (ast != null && CheckKernel.check(ast) == 0) {
+        asts.add(ast);
+        lines += Corpus.lines(text);
+      }
+    }
+    arena = new AstArena();
+  }
+
+  // The builder does not change the ASTs, so they are checked only once:
+  public void prepare() {
+  }
+
+  // Returns the number of nodes:
+  public long run() {
+    long nodes = 0;
+    for (Program ast : asts) {
+      arena.reset();
+      new ArenaBuilder(arena).build(ast);
+      nodes += arena.size();
+    }
+    return nodes;
+  }
+
+  public int programs() {
+    return asts.size();
+  }
+
+  public int lines() {
+    return lines;
+  }
+
+}
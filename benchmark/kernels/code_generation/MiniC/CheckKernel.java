@@ -0,0 +1,84 @@
+package MiniC;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import MiniC.AstGen.Program;
+import MiniC.AstGen.SequenceFlattener;
+import MiniC.Benchmark.Corpus;
+import MiniC.Benchmark.Kernel;
+import MiniC.Parser.Parser;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.SemanticAnalysis.SemanticAnalysis;
+
+// SemanticAnalysis.check of the code_generation module, on the programs
+// without syntax errors (programs with semantic errors are included;
+// reporting them is part of the phase). Programs on which the check
+// fails with an exception are left out.
+
+public class CheckKernel implements Kernel {
+
+  private ArrayList<ByteBuffer> texts;
+  private Program[] asts;
+  private int lines;
+
+  public CheckKernel(List<byte[]> sources) {
+    texts = new ArrayList<ByteBuffer>();
+    for (byte[] text : sources) {
+      Program ast = parse(ByteBuffer.wrap(text));
+      if (ast != null && check(ast) >= 0) {
+        texts.add(ByteBuffer.wrap(text));
+        lines += Corpus.lines(text);
+      }
+    }
+    asts = new Program[texts.size()];
+  }
+
+  // Returns the flattened AST, or null if there were syntax errors:
+  static Program parse(ByteBuffer text) {
+    ErrorReporter reporter = new ErrorReporter(null);
+    Parser parser = new Parser(new Scanner(new SourceFile(text)), reporter);
+    Program ast = parser.parse();
+    if (reporter.numErrors != 0) {
+      return null;
+    }
+    new SequenceFlattener().flatten(ast);
+    return ast;
+  }
+
+  // Returns the number of errors, or -1 if the check failed:
+  static int check(Program ast) {
+    ErrorReporter reporter = new ErrorReporter(null);
+    try {
+      new SemanticAnalysis(reporter).check(ast);
+    } catch (RuntimeException e) {
+      return -1;
+    }
+    return reporter.numErrors;
+  }
+
+  public void prepare() {
+    for (int i = 0; i < asts.length; i++) {
+      asts[i] = parse(texts.get(i));
+    }
+  }
+
+  // Returns the number of errors:
+  public long run() {
+    long errors = 0;
+    for (Program ast : asts) {
+      errors += check(ast);
+    }
+    return errors;
+  }
+
+  public int programs() {
+    return texts.size();
+  }
+
+  public int lines() {
+    return lines;
+  }
+
+}
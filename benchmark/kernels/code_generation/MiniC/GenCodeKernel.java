@@ -0,0 +1,78 @@
+package MiniC;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import MiniC.AstGen.Program;
+import MiniC.Benchmark.Corpus;
+import MiniC.Benchmark.Kernel;
+import MiniC.CodeGen.Emitter;
+
+// Emitter.genCode of the code_generation module, on the programs without
+// errors. The class files are generated in memory, not written.
+
+public class GenCodeKernel implements Kernel {
+
+  private ArrayList<ByteBuffer> texts;
+  private Program[] asts;
+  private int lines;
+
+  public GenCodeKernel(List<byte[]> sources) {
+    texts = new ArrayList<ByteBuffer>();
+    for (byte[] text : sources) {
+      Program ast = CheckKernel.parse(ByteBuffer.wrap(text));
+      if (ast != null && CheckKernel.check(ast) == 0 && generates(ast)) {
+        texts.add(ByteBuffer.wrap(text));
+        lines += Corpus.lines(text);
+      }
+    }
+    asts = new Program[texts.size()];
+  }
+
+  public void prepare() {
+    for (int i = 0; i < asts.length; i++) {
+      asts[i] = CheckKernel.parse(texts.get(i));
+      CheckKernel.check(asts[i]);
+    }
+  }
+
+  // Returns true if a class file can be generated for ast:
+  private static boolean generates(Program ast) {
+    try {
+      return generate(ast) > 0;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  // Returns the size of the class file, or 0 if there is none (e.g., a
+  // method is too large):
+  private static int generate(Program ast) {
+    Emitter emitter = new Emitter("Program.mc", new ErrorReporter(null));
+    emitter.generate(ast);
+    try {
+      return emitter.getClassBytes().length;
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  // Returns the number of bytes generated:
+  public long run() {
+    long bytes = 0;
+    for (Program ast : asts) {
+      bytes += generate(ast);
+    }
+    return bytes;
+  }
+
+  public int programs() {
+    return texts.size();
+  }
+
+  public int lines() {
+    return lines;
+  }
+
+}
@@ -0,0 +1,60 @@
+package MiniC;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import MiniC.Benchmark.Corpus;
+import MiniC.Benchmark.Kernel;
+import MiniC.Benchmark.Kernels;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.Token;
+
+// Scanner.scan of the scanner module, on all programs. The scanner
+// prints its error messages to System.out, which is discarded while the
+// kernel runs.
+
+public class ScanKernel implements Kernel {
+
+  private ArrayList<ByteBuffer> texts;
+  private int lines;
+
+  public ScanKernel(List<byte[]> sources) {
+    texts = new ArrayList<ByteBuffer>();
+    for (byte[] text : sources) {
+      texts.add(ByteBuffer.wrap(text));
+      lines += Corpus.lines(text);
+    }
+  }
+
+  public void prepare() {
+  }
+
+  // Returns the number of tokens:
+  public long run() {
+    long tokens = 0;
+    PrintStream stdout = System.out;
+    System.setOut(Kernels.NoOutput);
+    try {
+      for (ByteBuffer text : texts) {
+        Scanner scanner = new Scanner(new SourceFile(text));
+        while (scanner.scan().kind != Token.EOF) {
+          tokens++;
+        }
+      }
+    } finally {
+      System.setOut(stdout);
+    }
+    return tokens;
+  }
+
+  public int programs() {
+    return texts.size();
+  }
+
+  public int lines() {
+    return lines;
+  }
+
+}
@@ -4,18 +4,27 @@ import MiniC.Scanner.SourcePos;
 
 public abstract class AST {
 
-  public SourcePos pos;
+  // The source position, packed by SourcePos.pack(); getPosition()
+  // unpacks it into a new SourcePos.
+  public long start, end;
 
   public AST (SourcePos pos) {
-    this.pos = new SourcePos();
-    this.pos.StartCol = pos.StartCol;
-    this.pos.EndCol = pos.EndCol;
-    this.pos.StartLine = pos.StartLine;
-    this.pos.EndLine = pos.EndLine;
+    start = SourcePos.pack(pos.StartLine, pos.StartCol);
+    end = SourcePos.pack(pos.EndLine, pos.EndCol);
+  }
+
+  // Gives this node the position of x, e.g., for a node that replaces x:
+  public void setPosition(AST x) {
+    start = x.start;
+    end = x.end;
+  }
+
+  public int getLine() {
+    return SourcePos.line(start);
   }
 
   public SourcePos getPosition() {
-    return pos;
+    return SourcePos.unpack(start, end);
   }
 
   public abstract void accept(Visitor v);
@@ -0,0 +1,21 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The actual parameters (ActualParam nodes) of a call, in order.
+// The parser builds these as chains of ActualParamSequence nodes;
+// SequenceFlattener replaces every chain by a ActualParamList.
+public class ActualParamList extends Expr {
+
+  public Expr[] elements;
+
+  public ActualParamList (Expr[] elements, SourcePos pos) {
+    super (pos);
+    this.elements = elements;
+  }
+
+  public void accept(Visitor v) {
+    v.visit(this);
+  }
+
+}
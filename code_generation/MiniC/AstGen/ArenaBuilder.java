@@ -0,0 +1,454 @@
+package MiniC.AstGen;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+// Copies an AST into an AstArena, e.g., after semantic analysis, when the
+// types of the expressions are known:
+//
+//   AstArena arena = new AstArena();
+//   int root = new ArenaBuilder(arena).build(AST);
+//
+// The children of every node are added in the order of the fields of its
+// class (the elseAST of an IfStmt is left out if there is none). The
+// sequence chains should be flattened first (see SequenceFlattener);
+// otherwise the recursion gets as deep as the lists are long.
+
+public class ArenaBuilder implements Visitor {
+
+  private final AstArena arena;
+  // The expressions whose array type is not part of the tree, and their
+  // types:
+  private ArrayList<Integer> pendingNodes;
+  private ArrayList<Type> pendingTypes;
+  // The nodes of the array types in the tree, which the types of
+  // expressions refer to:
+  private IdentityHashMap<Type, Integer> arrayTypes;
+
+  public ArenaBuilder(AstArena arena) {
+    this.arena = arena;
+  }
+
+  // Adds the tree ast to the arena and returns its root:
+  public int build(AST ast) {
+    pendingNodes = new ArrayList<Integer>();
+    pendingTypes = new ArrayList<Type>();
+    arrayTypes = new IdentityHashMap<Type, Integer>();
+    int root = arena.size();
+    ast.accept(this);
+    // The remaining array types become trees of their own after the
+    // tree of ast:
+    for (int i = 0; i < pendingNodes.size(); i++) {
+      Type t = pendingTypes.get(i);
+      Integer n = arrayTypes.get(t);
+      if (n == null) {
+        n = arena.size();
+        t.accept(this);
+      }
+      arena.setType(pendingNodes.get(i), n);
+    }
+    pendingNodes = null;
+    pendingTypes = null;
+    arrayTypes = null;
+    return root;
+  }
+
+  private int begin(int kind, AST x) {
+    return arena.add(kind, x.start, x.end);
+  }
+
+  private void end(int n) {
+    arena.finish(n);
+  }
+
+  // Sets the type of expression n, which has been finished:
+  private void setType(int n, Type t) {
+    if (t == null) {
+      return;
+    }
+    if (!(t instanceof ArrayType)) {
+      arena.setType(n, AstArena.primitiveType(primitiveKind(t)));
+      return;
+    }
+    Integer typeNode = arrayTypes.get(t);
+    if (typeNode != null) {
+      arena.setType(n, typeNode);
+    } else {
+      pendingNodes.add(n);
+      pendingTypes.add(t);
+    }
+  }
+
+  private static int primitiveKind(Type t) {
+    if (t instanceof IntType) {
+      return NodeKind.INT_TYPE;
+    } else if (t instanceof FloatType) {
+      return NodeKind.FLOAT_TYPE;
+    } else if (t instanceof BoolType) {
+      return NodeKind.BOOL_TYPE;
+    } else if (t instanceof StringType) {
+      return NodeKind.STRING_TYPE;
+    } else if (t instanceof VoidType) {
+      return NodeKind.VOID_TYPE;
+    } else {
+      return NodeKind.ERROR_TYPE;
+    }
+  }
+
+  public void visit(Program x) {
+    int n = begin(NodeKind.PROGRAM, x);
+    x.D.accept(this);
+    end(n);
+  }
+
+  public void visit(EmptyDecl x) {
+    int n = begin(NodeKind.EMPTY_DECL, x);
+    end(n);
+  }
+
+  public void visit(FunDecl x) {
+    int n = begin(NodeKind.FUN_DECL, x);
+    x.tAST.accept(this);
+    x.idAST.accept(this);
+    x.paramsAST.accept(this);
+    x.stmtAST.accept(this);
+    end(n);
+  }
+
+  public void visit(TypeDecl x) {
+    int n = begin(NodeKind.TYPE_DECL, x);
+    x.tAST.accept(this);
+    end(n);
+  }
+
+  public void visit(FormalParamDecl x) {
+    int n = begin(NodeKind.FORMAL_PARAM_DECL, x);
+    x.astType.accept(this);
+    x.astIdent.accept(this);
+    end(n);
+  }
+
+  public void visit(FormalParamDeclSequence x) {
+    int n = begin(NodeKind.FORMAL_PARAM_DECL_SEQUENCE, x);
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+    end(n);
+  }
+
+  public void visit(FormalParamDeclList x) {
+    int n = begin(NodeKind.FORMAL_PARAM_DECL_LIST, x);
+    for (Decl e : x.elements) {
+      e.accept(this);
+    }
+    end(n);
+  }
+
+  public void visit(EmptyFormalParamDecl x) {
+    int n = begin(NodeKind.EMPTY_FORMAL_PARAM_DECL, x);
+    end(n);
+  }
+
+  public void visit(StmtSequence x) {
+    int n = begin(NodeKind.STMT_SEQUENCE, x);
+    x.s1AST.accept(this);
+    x.s2AST.accept(this);
+    end(n);
+  }
+
+  public void visit(StmtList x) {
+    int n = begin(NodeKind.STMT_LIST, x);
+    for (Stmt e : x.elements) {
+      e.accept(this);
+    }
+    end(n);
+  }
+
+  public void visit(AssignStmt x) {
+    int n = begin(NodeKind.ASSIGN_STMT, x);
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+    end(n);
+  }
+
+  public void visit(IfStmt x) {
+    int n = begin(NodeKind.IF_STMT, x);
+    x.eAST.accept(this);
+    x.thenAST.accept(this);
+    if(x.elseAST != null) {
+      x.elseAST.accept(this);
+    }
+    end(n);
+  }
+
+  public void visit(WhileStmt x) {
+    int n = begin(NodeKind.WHILE_STMT, x);
+    x.eAST.accept(this);
+    x.stmtAST.accept(this);
+    end(n);
+  }
+
+  public void visit(ForStmt x) {
+    int n = begin(NodeKind.FOR_STMT, x);
+    x.e1AST.accept(this);
+    x.e2AST.accept(this);
+    x.e3AST.accept(this);
+    x.stmtAST.accept(this);
+    end(n);
+  }
+
+  public void visit(ReturnStmt x) {
+    int n = begin(NodeKind.RETURN_STMT, x);
+    x.eAST.accept(this);
+    end(n);
+  }
+
+  public void visit(CompoundStmt x) {
+    int n = begin(NodeKind.COMPOUND_STMT, x);
+    x.astDecl.accept(this);
+    x.astStmt.accept(this);
+    end(n);
+  }
+
+  public void visit(EmptyStmt x) {
+    int n = begin(NodeKind.EMPTY_STMT, x);
+    end(n);
+  }
+
+  public void visit(EmptyCompoundStmt x) {
+    int n = begin(NodeKind.EMPTY_COMPOUND_STMT, x);
+    end(n);
+  }
+
+  public void visit(CallStmt x) {
+    int n = begin(NodeKind.CALL_STMT, x);
+    x.eAST.accept(this);
+    end(n);
+  }
+
+  public void visit(VarDecl x) {
+    int n = begin(NodeKind.VAR_DECL, x);
+    x.tAST.accept(this);
+    x.idAST.accept(this);
+    x.eAST.accept(this);
+    end(n);
+  }
+
+  public void visit(DeclSequence x) {
+    int n = begin(NodeKind.DECL_SEQUENCE, x);
+    x.D1.accept(this);
+    x.D2.accept(this);
+    end(n);
+  }
+
+  public void visit(DeclList x) {
+    int n = begin(NodeKind.DECL_LIST, x);
+    for (Decl e : x.elements) {
+      e.accept(this);
+    }
+    end(n);
+  }
+
+  public void visit(VarExpr x) {
+    int n = begin(NodeKind.VAR_EXPR, x);
+    x.Ident.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(AssignExpr x) {
+    int n = begin(NodeKind.ASSIGN_EXPR, x);
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(IntExpr x) {
+    int n = begin(NodeKind.INT_EXPR, x);
+    x.astIL.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(FloatExpr x) {
+    int n = begin(NodeKind.FLOAT_EXPR, x);
+    x.astFL.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(BoolExpr x) {
+    int n = begin(NodeKind.BOOL_EXPR, x);
+    x.astBL.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(StringExpr x) {
+    int n = begin(NodeKind.STRING_EXPR, x);
+    x.astSL.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ArrayExpr x) {
+    int n = begin(NodeKind.ARRAY_EXPR, x);
+    x.idAST.accept(this);
+    x.indexAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(BinaryExpr x) {
+    int n = begin(NodeKind.BINARY_EXPR, x);
+    x.lAST.accept(this);
+    x.oAST.accept(this);
+    x.rAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(UnaryExpr x) {
+    int n = begin(NodeKind.UNARY_EXPR, x);
+    x.oAST.accept(this);
+    x.eAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(EmptyExpr x) {
+    int n = begin(NodeKind.EMPTY_EXPR, x);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ActualParam x) {
+    int n = begin(NodeKind.ACTUAL_PARAM, x);
+    x.pAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(EmptyActualParam x) {
+    int n = begin(NodeKind.EMPTY_ACTUAL_PARAM, x);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ActualParamSequence x) {
+    int n = begin(NodeKind.ACTUAL_PARAM_SEQUENCE, x);
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ActualParamList x) {
+    int n = begin(NodeKind.ACTUAL_PARAM_LIST, x);
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(CallExpr x) {
+    int n = begin(NodeKind.CALL_EXPR, x);
+    x.idAST.accept(this);
+    x.paramAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ExprSequence x) {
+    int n = begin(NodeKind.EXPR_SEQUENCE, x);
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ExprList x) {
+    int n = begin(NodeKind.EXPR_LIST, x);
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+    end(n);
+    setType(n, x.type);
+  }
+
+  public void visit(ID x) {
+    int n = begin(NodeKind.ID, x);
+    arena.setLexeme(n, x.Lexeme);
+    end(n);
+  }
+
+  public void visit(Operator x) {
+    int n = begin(NodeKind.OPERATOR, x);
+    arena.setLexeme(n, x.Lexeme);
+    end(n);
+  }
+
+  public void visit(IntLiteral x) {
+    int n = begin(NodeKind.INT_LITERAL, x);
+    arena.setLexeme(n, x.Lexeme);
+    end(n);
+  }
+
+  public void visit(FloatLiteral x) {
+    int n = begin(NodeKind.FLOAT_LITERAL, x);
+    arena.setLexeme(n, x.Lexeme);
+    end(n);
+  }
+
+  public void visit(BoolLiteral x) {
+    int n = begin(NodeKind.BOOL_LITERAL, x);
+    arena.setLexeme(n, x.Lexeme);
+    end(n);
+  }
+
+  public void visit(StringLiteral x) {
+    int n = begin(NodeKind.STRING_LITERAL, x);
+    arena.setLexeme(n, x.Lexeme);
+    end(n);
+  }
+
+  public void visit(IntType x) {
+    int n = begin(NodeKind.INT_TYPE, x);
+    end(n);
+  }
+
+  public void visit(FloatType x) {
+    int n = begin(NodeKind.FLOAT_TYPE, x);
+    end(n);
+  }
+
+  public void visit(BoolType x) {
+    int n = begin(NodeKind.BOOL_TYPE, x);
+    end(n);
+  }
+
+  public void visit(StringType x) {
+    int n = begin(NodeKind.STRING_TYPE, x);
+    end(n);
+  }
+
+  public void visit(VoidType x) {
+    int n = begin(NodeKind.VOID_TYPE, x);
+    end(n);
+  }
+
+  public void visit(ArrayType x) {
+    int n = begin(NodeKind.ARRAY_TYPE, x);
+    arrayTypes.put(x, n);
+    x.astType.accept(this);
+    x.astExpr.accept(this);
+    end(n);
+  }
+
+  public void visit(ErrorType x) {
+    int n = begin(NodeKind.ERROR_TYPE, x);
+    end(n);
+  }
+
+}
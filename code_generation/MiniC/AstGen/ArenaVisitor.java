@@ -0,0 +1,12 @@
+package MiniC.AstGen;
+
+// Visits the nodes of an AstArena, see AstArena.walk().
+
+public interface ArenaVisitor {
+
+  // Returns false if the children of node are to be skipped:
+  boolean enter(AstArena arena, int node);
+
+  void leave(AstArena arena, int node);
+
+}
@@ -8,7 +8,7 @@ public class ArrayType extends Type {
   public Expr astExpr;
 
   public ArrayType (Type astType, Expr astExpr, SourcePos pos) {
-    super (pos);
+    super (pos, ARRAY, "[" + astType.descriptor);
     this.astType = astType;
     this.astExpr = astExpr;
   }
@@ -18,15 +18,12 @@ public class ArrayType extends Type {
   }
 
   public boolean Tequal (Type t) {
-    if (t != null && t instanceof ErrorType)
-      return true;
-    else
-      return false;
+    return (t != null && t.id == ERROR);
   }
 
   public boolean AssignableTo (Type t) {
     assert (t != null);
-    if (t instanceof ArrayType) {
+    if (t.id == ARRAY) {
       // Arrays we consider "assignable" if they have the same
       // element type and the same size.
       ArrayType arrT = (ArrayType)t;
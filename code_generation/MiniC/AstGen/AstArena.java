@@ -0,0 +1,265 @@
+package MiniC.AstGen;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import MiniC.Scanner.SourcePos;
+
+// A compact store for ASTs. The nodes are not objects but indexes into a
+// set of arrays ("columns"), with one entry per node:
+//
+//   kind   the NodeKind of the node
+//   end    the index after the last node of its subtree
+//   data   for terminals: the lexeme in the string table;
+//          for expressions: the node of their type; otherwise NONE
+//   start, stop
+//          the source position, packed as in the AST (see SourcePos.pack())
+//
+// The nodes of a tree are stored in preorder, so the first child of n is
+// n + 1 (if end(n) > n + 1), and the next sibling of a child c is end(c)
+// (if that is still below end of the parent). The children of a node are
+// in the order of the fields of its AST class (see ArenaBuilder).
+//
+// A node costs 25 bytes, and every lexeme is stored once, however often
+// it occurs. The object AST needs an object for every node, about 40
+// bytes, plus the lexeme strings.
+//
+// The nodes of the primitive types come first and are shared by the
+// types of all expressions (see primitiveType()).
+//
+// reset() empties the arena but keeps the columns, so an arena can be
+// reused by the next compilation without allocating them again.
+
+public class AstArena {
+
+  public final static int NONE = -1;
+
+  private final static int DefaultCapacity = 1024;
+
+  // The kinds of the shared type nodes, which are the first nodes:
+  private final static int[] PrimitiveTypes = {
+    NodeKind.INT_TYPE, NodeKind.FLOAT_TYPE, NodeKind.BOOL_TYPE,
+    NodeKind.STRING_TYPE, NodeKind.VOID_TYPE, NodeKind.ERROR_TYPE
+  };
+
+  private int size;
+  private byte[] kind;
+  private int[] end;
+  private int[] data;
+  private long[] start, stop;
+
+  // The string table:
+  private String[] strings;
+  private int nrStrings;
+  private HashMap<String, Integer> stringIndex;
+
+  public AstArena() {
+    this(DefaultCapacity);
+  }
+
+  public AstArena(int capacity) {
+    capacity = Math.max(capacity, 16);
+    kind = new byte[capacity];
+    end = new int[capacity];
+    data = new int[capacity];
+    start = new long[capacity];
+    stop = new long[capacity];
+    strings = new String[256];
+    stringIndex = new HashMap<String, Integer>();
+    reset();
+  }
+
+  // Removes all trees and strings:
+  public void reset() {
+    size = 0;
+    Arrays.fill(strings, 0, nrStrings, null);
+    nrStrings = 0;
+    stringIndex.clear();
+    for (int k : PrimitiveTypes) {
+      finish(add(k, 0, 0));
+    }
+  }
+
+  // The number of nodes:
+  public int size() {
+    return size;
+  }
+
+  // The number of distinct lexemes:
+  public int nrStrings() {
+    return nrStrings;
+  }
+
+  // The bytes taken by the columns and the string table (not counting the
+  // strings themselves):
+  public long footprint() {
+    return 25L * kind.length + 4L * strings.length + 32L * nrStrings;
+  }
+
+  //
+  // Building: a tree is added in preorder. add() appends a node, then its
+  // children are added, then finish() closes its subtree.
+  //
+
+  public int add(int k, long startPos, long endPos) {
+    if (size == kind.length) {
+      grow();
+    }
+    int n = size++;
+    kind[n] = (byte) k;
+    end[n] = size;
+    data[n] = NONE;
+    start[n] = startPos;
+    stop[n] = endPos;
+    return n;
+  }
+
+  public void finish(int n) {
+    end[n] = size;
+  }
+
+  private void grow() {
+    int capacity = kind.length + (kind.length >> 1);
+    kind = Arrays.copyOf(kind, capacity);
+    end = Arrays.copyOf(end, capacity);
+    data = Arrays.copyOf(data, capacity);
+    start = Arrays.copyOf(start, capacity);
+    stop = Arrays.copyOf(stop, capacity);
+  }
+
+  public void setType(int n, int typeNode) {
+    data[n] = typeNode;
+  }
+
+  public void setLexeme(int n, String lexeme) {
+    data[n] = intern(lexeme);
+  }
+
+  // Returns the index of s in the string table, adding it if necessary:
+  public int intern(String s) {
+    Integer i = stringIndex.get(s);
+    if (i != null) {
+      return i;
+    }
+    if (nrStrings == strings.length) {
+      strings = Arrays.copyOf(strings, 2 * nrStrings);
+    }
+    strings[nrStrings] = s;
+    stringIndex.put(s, nrStrings);
+    return nrStrings++;
+  }
+
+  // The shared node of the primitive type of kind k (INT_TYPE,
+  // FLOAT_TYPE, BOOL_TYPE, STRING_TYPE, VOID_TYPE or ERROR_TYPE):
+  public static int primitiveType(int k) {
+    for (int i = 0; i < PrimitiveTypes.length; i++) {
+      if (PrimitiveTypes[i] == k) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException(NodeKind.Names[k]
+        + " is not a primitive type");
+  }
+
+  //
+  // Reading:
+  //
+
+  public int kind(int n) {
+    return kind[n];
+  }
+
+  public String kindName(int n) {
+    return NodeKind.Names[kind[n]];
+  }
+
+  public int end(int n) {
+    return end[n];
+  }
+
+  public int firstChild(int n) {
+    return end[n] > n + 1 ? n + 1 : NONE;
+  }
+
+  // The child after child c of parent, or NONE:
+  public int nextSibling(int parent, int c) {
+    return end[c] < end[parent] ? end[c] : NONE;
+  }
+
+  // The child number i (from 0) of n, or NONE:
+  public int child(int n, int i) {
+    int c = firstChild(n);
+    while (c != NONE && i-- > 0) {
+      c = nextSibling(n, c);
+    }
+    return c;
+  }
+
+  public int nrChildren(int n) {
+    int count = 0;
+    for (int c = firstChild(n); c != NONE; c = nextSibling(n, c)) {
+      count++;
+    }
+    return count;
+  }
+
+  public int startLine(int n) {
+    return SourcePos.line(start[n]);
+  }
+
+  public int startCol(int n) {
+    return SourcePos.col(start[n]);
+  }
+
+  public int endLine(int n) {
+    return SourcePos.line(stop[n]);
+  }
+
+  public int endCol(int n) {
+    return SourcePos.col(stop[n]);
+  }
+
+  public SourcePos position(int n) {
+    return SourcePos.unpack(start[n], stop[n]);
+  }
+
+  // The node of the type of an expression, or NONE:
+  public int type(int n) {
+    return kind[n] >= NodeKind.VAR_EXPR && kind[n] <= NodeKind.EXPR_LIST
+        ? data[n] : NONE;
+  }
+
+  // The lexeme of a terminal, or null:
+  public String lexeme(int n) {
+    return kind[n] >= NodeKind.ID && kind[n] <= NodeKind.STRING_LITERAL
+        && data[n] != NONE ? strings[data[n]] : null;
+  }
+
+  public String string(int i) {
+    return strings[i];
+  }
+
+  public AstCursor cursor(int root) {
+    return new AstCursor(this, root);
+  }
+
+  // Visits the tree below root in preorder, without recursion: calls
+  // v.enter() for every node, and v.leave() once all its children have
+  // been visited. If v.enter() returns false, the children of that node
+  // are skipped.
+  public void walk(int root, ArenaVisitor v) {
+    AstCursor c = cursor(root);
+    while (true) {
+      if (v.enter(this, c.node) && c.toFirstChild()) {
+        continue;
+      }
+      v.leave(this, c.node);
+      while (!c.toNextSibling()) {
+        if (!c.toParent()) {
+          return;
+        }
+        v.leave(this, c.node);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+package MiniC.AstGen;
+
+import java.util.Arrays;
+
+// A position in a tree of an AstArena. The cursor starts at the root and
+// moves to children and siblings; it remembers the path from the root,
+// so it can move back up with toParent(). It never leaves the tree below
+// the root.
+
+public class AstCursor {
+
+  private final AstArena arena;
+  private int[] path; // the ancestors of node, from the root
+  private int depth;
+  public int node;
+
+  public AstCursor(AstArena arena, int root) {
+    this.arena = arena;
+    path = new int[32];
+    depth = 0;
+    node = root;
+  }
+
+  // The number of ancestors of node below the root:
+  public int depth() {
+    return depth;
+  }
+
+  public int kind() {
+    return arena.kind(node);
+  }
+
+  public String lexeme() {
+    return arena.lexeme(node);
+  }
+
+  // Moves to the first child; returns false (and stays) if there is none:
+  public boolean toFirstChild() {
+    int c = arena.firstChild(node);
+    if (c == AstArena.NONE) {
+      return false;
+    }
+    if (depth == path.length) {
+      path = Arrays.copyOf(path, 2 * depth);
+    }
+    path[depth++] = node;
+    node = c;
+    return true;
+  }
+
+  // Moves to the next sibling; returns false (and stays) if there is none
+  // or node is the root:
+  public boolean toNextSibling() {
+    if (depth == 0) {
+      return false;
+    }
+    int s = arena.nextSibling(path[depth - 1], node);
+    if (s == AstArena.NONE) {
+      return false;
+    }
+    node = s;
+    return true;
+  }
+
+  // Moves to the parent; returns false (and stays) at the root:
+  public boolean toParent() {
+    if (depth == 0) {
+      return false;
+    }
+    node = path[--depth];
+    return true;
+  }
+
+}
@@ -0,0 +1,21 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The declarations of a program or a compound statement, in order.
+// The parser builds these as chains of DeclSequence nodes;
+// SequenceFlattener replaces every chain by a DeclList.
+public class DeclList extends Decl {
+
+  public Decl[] elements;
+
+  public DeclList (Decl[] elements, SourcePos pos) {
+    super (pos);
+    this.elements = elements;
+  }
+
+  public void accept(Visitor v) {
+    v.visit(this);
+  }
+
+}
@@ -0,0 +1,21 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The expressions of an array initializer, in order.
+// The parser builds these as chains of ExprSequence nodes;
+// SequenceFlattener replaces every chain by a ExprList.
+public class ExprList extends Expr {
+
+  public Expr[] elements;
+
+  public ExprList (Expr[] elements, SourcePos pos) {
+    super (pos);
+    this.elements = elements;
+  }
+
+  public void accept(Visitor v) {
+    v.visit(this);
+  }
+
+}
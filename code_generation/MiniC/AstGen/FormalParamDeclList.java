@@ -0,0 +1,21 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The formal parameters of a function, in order.
+// The parser builds these as chains of FormalParamDeclSequence nodes;
+// SequenceFlattener replaces every chain by a FormalParamDeclList.
+public class FormalParamDeclList extends Decl {
+
+  public Decl[] elements;
+
+  public FormalParamDeclList (Decl[] elements, SourcePos pos) {
+    super (pos);
+    this.elements = elements;
+  }
+
+  public void accept(Visitor v) {
+    v.visit(this);
+  }
+
+}
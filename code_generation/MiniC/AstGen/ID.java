@@ -8,7 +8,9 @@ public class ID extends Terminal {
 
   public ID (String Lexeme, SourcePos pos) {
     super (pos);
-    this.Lexeme = Lexeme;
+    // Identifiers are interned, so the scope stack can compare them
+    // by reference:
+    this.Lexeme = Lexeme.intern();
     declAST = null;
   }
 
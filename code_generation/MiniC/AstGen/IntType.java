@@ -5,27 +5,17 @@ import MiniC.Scanner.SourcePos;
 public class IntType extends Type {
 
   public IntType (SourcePos pos) {
-    super (pos);
+    super (pos, INT, "I");
   }
 
   public void accept(Visitor v) {
     v.visit(this);
   }
 
-  public boolean Tequal (Type t) {
-    if (t != null && t instanceof ErrorType)
-      return true;
-    else
-      return (t != null && t instanceof IntType);
-  }
-
   public boolean AssignableTo (Type t) {
     //IntType assignable to t ?
-    if (t != null && t instanceof ErrorType)
-      return true;
-    else
-      return (t != null &&
-          ((t instanceof IntType) || (t instanceof FloatType)));
+    return (t != null &&
+        (t.id == INT || t.id == FLOAT || t.id == ERROR));
   }
 
 }
@@ -0,0 +1,132 @@
+package MiniC.AstGen;
+
+// The kinds of the nodes in an AstArena, one for each class of AST node.
+
+public final class NodeKind {
+
+  public final static int
+
+    // declarations:
+    PROGRAM                     = 0,
+    EMPTY_DECL                  = 1,
+    FUN_DECL                    = 2,
+    VAR_DECL                    = 3,
+    TYPE_DECL                   = 4,
+    FORMAL_PARAM_DECL           = 5,
+    FORMAL_PARAM_DECL_SEQUENCE  = 6,
+    FORMAL_PARAM_DECL_LIST      = 7,
+    EMPTY_FORMAL_PARAM_DECL     = 8,
+    DECL_SEQUENCE               = 9,
+    DECL_LIST                   = 10,
+
+    // statements:
+    ASSIGN_STMT                 = 11,
+    IF_STMT                     = 12,
+    WHILE_STMT                  = 13,
+    FOR_STMT                    = 14,
+    RETURN_STMT                 = 15,
+    COMPOUND_STMT               = 16,
+    EMPTY_COMPOUND_STMT         = 17,
+    EMPTY_STMT                  = 18,
+    STMT_SEQUENCE               = 19,
+    STMT_LIST                   = 20,
+    CALL_STMT                   = 21,
+
+    // expressions:
+    VAR_EXPR                    = 22,
+    ASSIGN_EXPR                 = 23,
+    INT_EXPR                    = 24,
+    FLOAT_EXPR                  = 25,
+    BOOL_EXPR                   = 26,
+    ARRAY_EXPR                  = 27,
+    STRING_EXPR                 = 28,
+    BINARY_EXPR                 = 29,
+    UNARY_EXPR                  = 30,
+    EMPTY_EXPR                  = 31,
+    ACTUAL_PARAM                = 32,
+    EMPTY_ACTUAL_PARAM          = 33,
+    ACTUAL_PARAM_SEQUENCE       = 34,
+    ACTUAL_PARAM_LIST           = 35,
+    CALL_EXPR                   = 36,
+    EXPR_SEQUENCE               = 37,
+    EXPR_LIST                   = 38,
+
+    // terminals:
+    ID                          = 39,
+    OPERATOR                    = 40,
+    INT_LITERAL                 = 41,
+    FLOAT_LITERAL               = 42,
+    BOOL_LITERAL                = 43,
+    STRING_LITERAL              = 44,
+
+    // types:
+    INT_TYPE                    = 45,
+    FLOAT_TYPE                  = 46,
+    BOOL_TYPE                   = 47,
+    VOID_TYPE                   = 48,
+    STRING_TYPE                 = 49,
+    ARRAY_TYPE                  = 50,
+    ERROR_TYPE                  = 51;
+
+  public final static int NrKinds = 52;
+
+  // The class name of each kind:
+  public final static String[] Names = {
+    "Program",
+    "EmptyDecl",
+    "FunDecl",
+    "VarDecl",
+    "TypeDecl",
+    "FormalParamDecl",
+    "FormalParamDeclSequence",
+    "FormalParamDeclList",
+    "EmptyFormalParamDecl",
+    "DeclSequence",
+    "DeclList",
+    "AssignStmt",
+    "IfStmt",
+    "WhileStmt",
+    "ForStmt",
+    "ReturnStmt",
+    "CompoundStmt",
+    "EmptyCompoundStmt",
+    "EmptyStmt",
+    "StmtSequence",
+    "StmtList",
+    "CallStmt",
+    "VarExpr",
+    "AssignExpr",
+    "IntExpr",
+    "FloatExpr",
+    "BoolExpr",
+    "ArrayExpr",
+    "StringExpr",
+    "BinaryExpr",
+    "UnaryExpr",
+    "EmptyExpr",
+    "ActualParam",
+    "EmptyActualParam",
+    "ActualParamSequence",
+    "ActualParamList",
+    "CallExpr",
+    "ExprSequence",
+    "ExprList",
+    "ID",
+    "Operator",
+    "IntLiteral",
+    "FloatLiteral",
+    "BoolLiteral",
+    "StringLiteral",
+    "IntType",
+    "FloatType",
+    "BoolType",
+    "VoidType",
+    "StringType",
+    "ArrayType",
+    "ErrorType"
+  };
+
+  private NodeKind() {
+  }
+
+}
@@ -6,12 +6,70 @@ public class Operator extends Terminal {
 
   public Type type;
 
+  // The operator, resolved from the lexeme when the node is created, so
+  // the later phases switch on an int instead of comparing strings:
+  public int kind;
+
+  public final static int
+      PLUS = 0,
+      MINUS = 1,
+      TIMES = 2,
+      DIV = 3,
+      LT = 4,
+      LE = 5,
+      GT = 6,
+      GE = 7,
+      EQ = 8,
+      NOTEQ = 9,
+      AND = 10,
+      OR = 11,
+      NOT = 12,
+      I2F = 13,  // int-to-float coercion, inserted by semantic analysis
+      NrKinds = 14;
+
+  // Indexed by kind:
+  //  IntOrFloatArgs: <int> x <int> -> <sometype>, <float> x <float> -> ...
+  //  BoolArgs:       <bool> x <bool> -> <sometype>
+  //  BoolResult:     <sometype> x <sometype> -> bool
+  public final static boolean[] IntOrFloatArgs = {
+      true, true, true, true, true, true, true, true, true, true,
+      false, false, false, false };
+  public final static boolean[] BoolArgs = {
+      false, false, false, false, false, false, false, false, true, true,
+      true, true, true, false };
+  public final static boolean[] BoolResult = {
+      false, false, false, false, true, true, true, true, true, true,
+      true, true, true, false };
+
   public Operator (String Lexeme, SourcePos pos) {
     super (pos);
     this.Lexeme = Lexeme;
+    this.kind = classify(Lexeme);
     this.type = null;
   }
 
+  public static int classify(String Lexeme) {
+    switch (Lexeme) {
+      case "+":   return PLUS;
+      case "-":   return MINUS;
+      case "*":   return TIMES;
+      case "/":   return DIV;
+      case "<":   return LT;
+      case "<=":  return LE;
+      case ">":   return GT;
+      case ">=":  return GE;
+      case "==":  return EQ;
+      case "!=":  return NOTEQ;
+      case "&&":  return AND;
+      case "||":  return OR;
+      case "!":   return NOT;
+      case "i2f": return I2F;
+      default:
+        assert(false);
+        return -1;
+    }
+  }
+
   public void accept(Visitor v) {
     v.visit(this);
   }
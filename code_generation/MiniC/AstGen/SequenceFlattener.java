@@ -0,0 +1,408 @@
+package MiniC.AstGen;
+
+import java.util.ArrayList;
+import MiniC.Scanner.SourcePos;
+
+// Replaces the sequence chains built by the parser with flat lists:
+//
+//   DeclSequence            -> DeclList
+//   StmtSequence            -> StmtList
+//   FormalParamDeclSequence -> FormalParamDeclList
+//   ActualParamSequence     -> ActualParamList
+//   ExprSequence            -> ExprList
+//
+// A chain of n elements is n nested sequence nodes, so every visitor that
+// walks it recursively needs a stack depth proportional to the length of
+// the list, e.g., the number of global declarations. The lists are
+// visited with a loop instead, so after flattening the depth of the
+// traversals is bounded by the nesting of the program.
+//
+// The empty nodes that terminate the chains are dropped. Where there is
+// no chain, e.g., the astDecl of a compound statement without
+// declarations is an EmptyDecl, or the eAST of a VarDecl is a single
+// initializer, the node is left as it is.
+//
+// The chains themselves are walked with loops as well. Only a chain in
+// the left subtree of a sequence node (as the parser builds for
+// "int a, b;") costs one level of recursion.
+
+public class SequenceFlattener implements Visitor {
+
+  // The lists get the position of the chains they replace:
+  private final static SourcePos NoPos = new SourcePos();
+
+  public void flatten(AST ast) {
+    ast.accept(this);
+  }
+
+  private Decl flattenDecls(Decl d) {
+    if (!(d instanceof DeclSequence)) {
+      d.accept(this);
+      return d;
+    }
+    ArrayList<Decl> elements = new ArrayList<Decl>();
+    Decl end = collectDecls(d, elements);
+    if (elements.isEmpty()) {
+      return end;
+    }
+    for (Decl e : elements) {
+      e.accept(this);
+    }
+    Decl l = new DeclList(elements.toArray(new Decl[elements.size()]), NoPos);
+    l.setPosition(d);
+    return l;
+  }
+
+  // Appends the elements of the chain d to elements and returns the empty
+  // node at its end, or null if there is none:
+  private Decl collectDecls(Decl d, ArrayList<Decl> elements) {
+    while (d instanceof DeclSequence) {
+      DeclSequence s = (DeclSequence) d;
+      collectDecls(s.D1, elements);
+      d = s.D2;
+    }
+    if (d instanceof EmptyDecl) {
+      return d;
+    }
+    elements.add(d);
+    return null;
+  }
+
+  private Stmt flattenStmts(Stmt s) {
+    if (!(s instanceof StmtSequence)) {
+      s.accept(this);
+      return s;
+    }
+    ArrayList<Stmt> elements = new ArrayList<Stmt>();
+    Stmt end = collectStmts(s, elements);
+    if (elements.isEmpty()) {
+      return end;
+    }
+    for (Stmt e : elements) {
+      e.accept(this);
+    }
+    Stmt l = new StmtList(elements.toArray(new Stmt[elements.size()]), NoPos);
+    l.setPosition(s);
+    return l;
+  }
+
+  private Stmt collectStmts(Stmt s, ArrayList<Stmt> elements) {
+    while (s instanceof StmtSequence) {
+      StmtSequence q = (StmtSequence) s;
+      collectStmts(q.s1AST, elements);
+      s = q.s2AST;
+    }
+    if (s instanceof EmptyStmt) {
+      return s;
+    }
+    elements.add(s);
+    return null;
+  }
+
+  private Decl flattenFormalParams(Decl d) {
+    if (!(d instanceof FormalParamDeclSequence)) {
+      d.accept(this);
+      return d;
+    }
+    ArrayList<Decl> elements = new ArrayList<Decl>();
+    Decl end = collectFormalParams(d, elements);
+    if (elements.isEmpty()) {
+      return end;
+    }
+    for (Decl e : elements) {
+      e.accept(this);
+    }
+    Decl l = new FormalParamDeclList(
+        elements.toArray(new Decl[elements.size()]), NoPos);
+    l.setPosition(d);
+    return l;
+  }
+
+  private Decl collectFormalParams(Decl d, ArrayList<Decl> elements) {
+    while (d instanceof FormalParamDeclSequence) {
+      FormalParamDeclSequence s = (FormalParamDeclSequence) d;
+      collectFormalParams(s.lAST, elements);
+      d = s.rAST;
+    }
+    if (d instanceof EmptyFormalParamDecl) {
+      return d;
+    }
+    elements.add(d);
+    return null;
+  }
+
+  private Expr flattenActualParams(Expr e) {
+    if (!(e instanceof ActualParamSequence)) {
+      e.accept(this);
+      return e;
+    }
+    ArrayList<Expr> elements = new ArrayList<Expr>();
+    Expr end = collectActualParams(e, elements);
+    if (elements.isEmpty()) {
+      return end;
+    }
+    for (Expr p : elements) {
+      p.accept(this);
+    }
+    Expr l = new ActualParamList(elements.toArray(new Expr[elements.size()]),
+        NoPos);
+    l.setPosition(e);
+    return l;
+  }
+
+  private Expr collectActualParams(Expr e, ArrayList<Expr> elements) {
+    while (e instanceof ActualParamSequence) {
+      ActualParamSequence s = (ActualParamSequence) e;
+      collectActualParams(s.lAST, elements);
+      e = s.rAST;
+    }
+    if (e instanceof EmptyActualParam) {
+      return e;
+    }
+    elements.add(e);
+    return null;
+  }
+
+  private Expr flattenExprs(Expr e) {
+    if (!(e instanceof ExprSequence)) {
+      e.accept(this);
+      return e;
+    }
+    ArrayList<Expr> elements = new ArrayList<Expr>();
+    Expr end = collectExprs(e, elements);
+    if (elements.isEmpty()) {
+      return end;
+    }
+    for (Expr x : elements) {
+      x.accept(this);
+    }
+    Expr l = new ExprList(elements.toArray(new Expr[elements.size()]), NoPos);
+    l.setPosition(e);
+    return l;
+  }
+
+  private Expr collectExprs(Expr e, ArrayList<Expr> elements) {
+    while (e instanceof ExprSequence) {
+      ExprSequence s = (ExprSequence) e;
+      collectExprs(s.lAST, elements);
+      e = s.rAST;
+    }
+    if (e instanceof EmptyExpr) {
+      return e;
+    }
+    elements.add(e);
+    return null;
+  }
+
+  public void visit(Program x) {
+    x.D = flattenDecls(x.D);
+  }
+
+  public void visit(EmptyDecl x) {
+  }
+
+  public void visit(FunDecl x) {
+    x.paramsAST = flattenFormalParams(x.paramsAST);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(TypeDecl x) {
+  }
+
+  public void visit(FormalParamDecl x) {
+  }
+
+  public void visit(FormalParamDeclSequence x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(FormalParamDeclList x) {
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
+  public void visit(EmptyFormalParamDecl x) {
+  }
+
+  public void visit(StmtSequence x) {
+    x.s1AST.accept(this);
+    x.s2AST.accept(this);
+  }
+
+  public void visit(StmtList x) {
+    for (Stmt s : x.elements) {
+      s.accept(this);
+    }
+  }
+
+  public void visit(AssignStmt x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(IfStmt x) {
+    x.eAST.accept(this);
+    x.thenAST.accept(this);
+    if(x.elseAST != null) {
+      x.elseAST.accept(this);
+    }
+  }
+
+  public void visit(WhileStmt x) {
+    x.eAST.accept(this);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(ForStmt x) {
+    x.e1AST.accept(this);
+    x.e2AST.accept(this);
+    x.e3AST.accept(this);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(ReturnStmt x) {
+    x.eAST.accept(this);
+  }
+
+  public void visit(CompoundStmt x) {
+    x.astDecl = flattenDecls(x.astDecl);
+    x.astStmt = flattenStmts(x.astStmt);
+  }
+
+  public void visit(EmptyStmt x) {
+  }
+
+  public void visit(EmptyCompoundStmt x) {
+  }
+
+  public void visit(CallStmt x) {
+    x.eAST.accept(this);
+  }
+
+  public void visit(VarDecl x) {
+    x.eAST = flattenExprs(x.eAST);
+  }
+
+  public void visit(DeclSequence x) {
+    x.D1.accept(this);
+    x.D2.accept(this);
+  }
+
+  public void visit(DeclList x) {
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
+  public void visit(VarExpr x) {
+  }
+
+  public void visit(AssignExpr x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(IntExpr x) {
+  }
+
+  public void visit(FloatExpr x) {
+  }
+
+  public void visit(BoolExpr x) {
+  }
+
+  public void visit(StringExpr x) {
+  }
+
+  public void visit(ArrayExpr x) {
+    x.idAST.accept(this);
+    x.indexAST.accept(this);
+  }
+
+  public void visit(BinaryExpr x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(UnaryExpr x) {
+    x.eAST.accept(this);
+  }
+
+  public void visit(EmptyExpr x) {
+  }
+
+  public void visit(ActualParam x) {
+    x.pAST.accept(this);
+  }
+
+  public void visit(EmptyActualParam x) {
+  }
+
+  public void visit(ActualParamSequence x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(ActualParamList x) {
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
+  public void visit(CallExpr x) {
+    x.paramAST = flattenActualParams(x.paramAST);
+  }
+
+  public void visit(ExprSequence x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(ExprList x) {
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
+  public void visit(ID x) {
+  }
+
+  public void visit(Operator x) {
+  }
+
+  public void visit(IntLiteral x) {
+  }
+
+  public void visit(FloatLiteral x) {
+  }
+
+  public void visit(BoolLiteral x) {
+  }
+
+  public void visit(StringLiteral x) {
+  }
+
+  public void visit(IntType x) {
+  }
+
+  public void visit(FloatType x) {
+  }
+
+  public void visit(BoolType x) {
+  }
+
+  public void visit(StringType x) {
+  }
+
+  public void visit(VoidType x) {
+  }
+
+  public void visit(ArrayType x) {
+  }
+
+  public void visit(ErrorType x) {
+  }
+
+}
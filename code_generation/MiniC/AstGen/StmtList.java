@@ -0,0 +1,21 @@
+package MiniC.AstGen;
+
+import MiniC.Scanner.SourcePos;
+
+// The statements of a compound statement, in order.
+// The parser builds these as chains of StmtSequence nodes;
+// SequenceFlattener replaces every chain by a StmtList.
+public class StmtList extends Stmt {
+
+  public Stmt[] elements;
+
+  public StmtList (Stmt[] elements, SourcePos pos) {
+    super (pos);
+    this.elements = elements;
+  }
+
+  public void accept(Visitor v) {
+    v.visit(this);
+  }
+
+}
@@ -4,11 +4,60 @@ import MiniC.Scanner.SourcePos;
 
 public abstract class Type extends AST {
 
-  public Type (SourcePos pos) {
+  // The type ids:
+  public final static int
+      INT = 0,
+      BOOL = 1,
+      FLOAT = 2,
+      STRING = 3,
+      VOID = 4,
+      ERROR = 5,
+      ARRAY = 6;
+
+  public final int id;
+  // The JVM type descriptor, e.g., "I" or "Ljava/lang/String;" (null for
+  // the error type):
+  public final String descriptor;
+
+  // The canonical node of every primitive type, indexed by id. The parser
+  // creates a new node for every occurrence of a type; semantic analysis
+  // replaces them by these (see canonical()), so that all primitive types
+  // of the decorated AST are one of these nodes.
+  private final static Type[] Canonical;
+
+  static {
+    SourcePos NoPos = new SourcePos();
+    Canonical = new Type[] {
+      new IntType(NoPos), new BoolType(NoPos), new FloatType(NoPos),
+      new StringType(NoPos), new VoidType(NoPos), new ErrorType(NoPos) };
+  }
+
+  public Type (SourcePos pos, int id, String descriptor) {
     super (pos);
+    this.id = id;
+    this.descriptor = descriptor;
   }
 
-  public abstract boolean Tequal(Type t);
+  public static Type primitive(int id) {
+    return Canonical[id];
+  }
+
+  // Returns the canonical node for t; for an array type, the element type
+  // is replaced by its canonical node:
+  public static Type canonical(Type t) {
+    if (t.id == ARRAY) {
+      ArrayType a = (ArrayType) t;
+      a.astType = canonical(a.astType);
+      return a;
+    }
+    return Canonical[t.id];
+  }
+
+  // Two types are equal if they have the same id; every type equals the
+  // error type. For canonical nodes, the first test is usually enough.
+  public boolean Tequal(Type t) {
+    return t == this || (t != null && (t.id == id || t.id == ERROR));
+  }
 
   public abstract boolean AssignableTo(Type t);
 
@@ -15,6 +15,8 @@ public interface Visitor {
   void visit(FormalParamDeclSequence x);
   void visit(EmptyFormalParamDecl x);
   void visit(DeclSequence x);
+  void visit(FormalParamDeclList x);
+  void visit(DeclList x);
 
   void visit (AssignStmt x);
   void visit(IfStmt x);
@@ -25,6 +27,7 @@ public interface Visitor {
   void visit(EmptyCompoundStmt x);
   void visit(EmptyStmt x);
   void visit(StmtSequence x);
+  void visit(StmtList x);
   void visit(CallStmt x);
 
   void visit(VarExpr x);
@@ -42,6 +45,8 @@ public interface Visitor {
   void visit(ActualParamSequence x);
   void visit(CallExpr x);
   void visit(ExprSequence x);
+  void visit(ActualParamList x);
+  void visit(ExprList x);
   void visit(ID x);
   void visit(Operator x);
   void visit(IntLiteral x);
@@ -0,0 +1,158 @@
+package MiniC;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import MiniC.CodeGen.Emitter;
+
+// Compiles many source files in one JVM. Every file is compiled by its
+// own Compilation on a ForkJoinPool. The output of a compilation is
+// collected in a buffer and printed as a whole, in the order in which
+// the files were given, followed by a summary of all compilations.
+//
+// All class files are written to the current directory, named after
+// their source files. A source whose class name was already taken by an
+// earlier source is not compiled but reported as failed, so no two
+// compilations write the same file.
+
+public class BatchCompiler {
+
+  private ArrayList<String> sources;
+  private ArrayList<String> unreadable; // directories that cannot be listed
+  private Options options;
+  private CompilationCache cache; // null: no cache
+  private int parallelism;
+
+  // The outcome of one compilation:
+  private static class Result {
+    String sourceName;
+    String output;
+    int numErrors;
+    boolean successful;
+  }
+
+  public BatchCompiler(Options options, int parallelism) {
+    this.options = options;
+    this.sources = new ArrayList<String>();
+    this.unreadable = new ArrayList<String>();
+    this.parallelism = parallelism;
+  }
+
+  // Adds a source file, or all .mc files in a directory and its
+  // subdirectories (in alphabetical order):
+  public void add(String name) {
+    File f = new File(name);
+    if (f.isDirectory()) {
+      File[] entries = f.listFiles();
+      if (entries == null) {
+        unreadable.add(name);
+        return;
+      }
+      Arrays.sort(entries);
+      for (File e : entries) {
+        if (e.isDirectory() || e.getName().endsWith(".mc")) {
+          add(e.getPath());
+        }
+      }
+    } else {
+      sources.add(name);
+    }
+  }
+
+  public void useCache(CompilationCache cache) {
+    this.cache = cache;
+  }
+
+  public int getNumSources() {
+    return sources.size();
+  }
+
+  // Compiles all sources and prints their output and a summary to
+  // System.out. Returns the number of compilations that failed plus the
+  // number of directories that could not be read.
+  public int compileAll(StdEnvironment stdenv) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    ArrayList<ForkJoinTask<Result>> tasks =
+        new ArrayList<ForkJoinTask<Result>>();
+    HashMap<String, String> classes = new HashMap<String, String>();
+    for (String sourceName : sources) {
+      String other = classes.putIfAbsent(Emitter.classNameOf(sourceName),
+                                         sourceName);
+      if (other == null) {
+        tasks.add(pool.submit(() -> compile(sourceName, stdenv)));
+      } else {
+        tasks.add(pool.submit(() -> duplicate(sourceName, other)));
+      }
+    }
+    int numFailed = 0;
+    int numErrors = 0;
+    ArrayList<String> failed = new ArrayList<String>();
+    for (String d : unreadable) {
+      System.out.println("ERROR: cannot read directory " + d);
+    }
+    for (ForkJoinTask<Result> task : tasks) {
+      Result r = task.join();
+      System.out.println("==> " + r.sourceName);
+      System.out.print(r.output);
+      if (!r.successful) {
+        numFailed++;
+        failed.add(r.sourceName + " (" + r.numErrors + " errors)");
+      }
+      numErrors += r.numErrors;
+    }
+    pool.shutdown();
+
+    System.out.println("********** " +
+        "Batch Summary" +
+        " **********");
+    System.out.println(sources.size() + " files compiled, "
+        + (sources.size() - numFailed) + " successful, "
+        + numFailed + " failed, " + numErrors + " errors.");
+    for (String f : failed) {
+      System.out.println("FAILED: " + f);
+    }
+    for (String d : unreadable) {
+      System.out.println("UNREADABLE: " + d);
+    }
+    return numFailed + unreadable.size();
+  }
+
+  // The result for a source whose class name is taken by other:
+  private Result duplicate(String sourceName, String other) {
+    Result r = new Result();
+    r.sourceName = sourceName;
+    r.output = "ERROR: class " + Emitter.classNameOf(sourceName)
+        + " is already generated from " + other + "\n";
+    r.numErrors = 1;
+    r.successful = false;
+    return r;
+  }
+
+  private Result compile(String sourceName, StdEnvironment stdenv) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(buffer, true);
+    Result r = new Result();
+    r.sourceName = sourceName;
+    Compilation c = new Compilation(sourceName, options, stdenv, out);
+    c.enableOutputFiles();
+    if (cache != null) {
+      c.useCache(cache);
+    }
+    try {
+      r.successful = c.run().isSuccessful();
+      r.numErrors = c.getNumErrors();
+    } catch (RuntimeException | StackOverflowError e) {
+      // A crash in one compilation must not take down the others:
+      out.println("ERROR: internal compiler error: " + e);
+      r.numErrors = c.getNumErrors() + 1;
+      r.successful = false;
+    }
+    out.flush();
+    r.output = buffer.toString();
+    return r;
+  }
+
+}
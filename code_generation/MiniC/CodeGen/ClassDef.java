@@ -0,0 +1,30 @@
+package MiniC.CodeGen;
+
+import java.util.ArrayList;
+
+// The class generated for a MiniC program: MiniC global variables become
+// static fields, MiniC functions become methods.
+
+public class ClassDef {
+
+  public String name;
+  public String superName;
+  public ArrayList<String> fieldNames;
+  public ArrayList<String> fieldDescriptors;
+  public ArrayList<Method> methods;
+
+  public ClassDef (String name, String superName) {
+    this.name = name;
+    this.superName = superName;
+    this.fieldNames = new ArrayList<String>();
+    this.fieldDescriptors = new ArrayList<String>();
+    this.methods = new ArrayList<Method>();
+  }
+
+  // Adds a static field:
+  public void addField(String name, String descriptor) {
+    fieldNames.add(name);
+    fieldDescriptors.add(descriptor);
+  }
+
+}
@@ -0,0 +1,302 @@
+package MiniC.CodeGen;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Writes a ClassDef directly as a JVM class file (version 52, Java 8),
+// without going through Jasmin. Unreachable instructions are dropped,
+// branch offsets are fixed up once all label positions are known, and a
+// StackMapTable frame is written for every branch target.
+
+public class ClassFileWriter {
+
+  private final static int ACC_SUPER = 0x0020;
+  private final static int MAJOR_VERSION = 52;
+
+  private ClassDef c;
+  private ConstantPool pool;
+
+  // Code of the method being assembled:
+  private byte[] code;
+  private int pc;
+
+  // Limits of the class file format (code_length must be below 65536,
+  // max_locals and max_stack are u2):
+  private final static int MaxCodeLength = 65535;
+  private final static int MaxSlots = 65535;
+
+  public void write(ClassDef c, String outfile) throws IOException {
+    byte[] bytes = toBytes(c);
+    OutputStream out = new FileOutputStream(outfile);
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+  }
+
+  // Returns the class file for c. Throws an IOException if a method or
+  // the constant pool is too large for the class file format.
+  public byte[] toBytes(ClassDef c) throws IOException {
+    this.c = c;
+    pool = new ConstantPool();
+    int thisClass = pool.classRef(c.name);
+    int superClass = pool.classRef(c.superName);
+
+    // Fields and methods enter constants into the pool, so they are
+    // written to a buffer first:
+    ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+    DataOutputStream members = new DataOutputStream(memberBytes);
+    members.writeShort(c.fieldNames.size());
+    for (int i = 0; i < c.fieldNames.size(); i++) {
+      members.writeShort(Method.ACC_STATIC);
+      members.writeShort(pool.utf8(c.fieldNames.get(i)));
+      members.writeShort(pool.utf8(c.fieldDescriptors.get(i)));
+      members.writeShort(0); // attributes_count
+    }
+    members.writeShort(c.methods.size());
+    for (Method m : c.methods) {
+      writeMethod(m, members);
+    }
+
+    ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(classBytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0); // minor_version
+    out.writeShort(MAJOR_VERSION);
+    pool.writeTo(out);
+    out.writeShort(Method.ACC_PUBLIC | ACC_SUPER);
+    out.writeShort(thisClass);
+    out.writeShort(superClass);
+    out.writeShort(0); // interfaces_count
+    memberBytes.writeTo(out);
+    out.writeShort(0); // attributes_count
+    out.close();
+    return classBytes.toByteArray();
+  }
+
+  private void writeMethod(Method m, DataOutputStream out)
+      throws IOException {
+    // The analysis is done once per method, also if the class is
+    // written several times:
+    if (m.analysis == null) {
+      m.analysis = new CodeAnalysis(c.name, m);
+      m.analysis.analyze();
+    }
+    CodeAnalysis analysis = m.analysis;
+
+    code = new byte[256];
+    pc = 0;
+    HashMap<Integer, Integer> labelPos = new HashMap<Integer, Integer>();
+    ArrayList<int[]> fixups = new ArrayList<int[]>(); // {pc, label}
+    // Branch targets with their entry states, ordered by offset. Several
+    // labels can share an offset, and then they share the state.
+    TreeMap<Integer, CodeAnalysis.State> frames =
+        new TreeMap<Integer, CodeAnalysis.State>();
+
+    Code insns = m.code;
+    for (int i = 0; i < insns.size(); i++) {
+      int kind = insns.kind(i);
+      if (kind == Code.LABEL) {
+        labelPos.put(insns.arg(i), pc);
+        continue;
+      }
+      if (kind == Code.COMMENT || !analysis.isReachable(i)) {
+        continue; // comment or dead code
+      }
+      int opcode = insns.op(i);
+      int value = insns.arg(i);
+      switch (kind) {
+        case Code.PLAIN:
+          emit1(opcode);
+          break;
+        case Code.INT:
+          if (opcode == JVM.BIPUSH) {
+            emit1(opcode);
+            emit1(value);
+          } else if (opcode == JVM.SIPUSH) {
+            emit1(opcode);
+            emit2(value);
+          } else if (opcode == JVM.LDC) {
+            emitLDC(pool.integer(value));
+          } else if (value < 256) {
+            emit1(opcode); // load or store
+            emit1(value);
+          } else {
+            emit1(JVM.WIDE);
+            emit1(opcode);
+            emit2(value);
+          }
+          break;
+        case Code.FLOAT:
+          emitLDC(pool.floatConst(insns.floatArg(i)));
+          break;
+        case Code.STRING:
+          emitLDC(pool.string(unescape(insns.text(i))));
+          break;
+        case Code.BRANCH:
+          fixups.add(new int[] { pc, value });
+          emit1(opcode);
+          emit2(0);
+          break;
+        case Code.FIELD:
+          emit1(opcode);
+          emit2(pool.fieldRef(insns.owner(i), insns.name(i),
+              insns.descriptor(i)));
+          break;
+        case Code.METHOD:
+          emit1(opcode);
+          emit2(pool.methodRef(insns.owner(i), insns.name(i),
+              insns.descriptor(i)));
+          break;
+        case Code.CLASS:
+          emit1(opcode);
+          emit2(pool.classRef(insns.text(i)));
+          break;
+        default:
+          assert(false);
+      }
+    }
+
+    if (pc > MaxCodeLength) {
+      throw new IOException("method " + m.name + " is too large (" + pc
+          + " bytes of code, at most " + MaxCodeLength + ")");
+    }
+    for (int[] f : fixups) {
+      int offset = labelPos.get(f[1]) - f[0];
+      if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+        throw new IOException("method " + m.name + " is too large");
+      }
+      code[f[0] + 1] = (byte) (offset >> 8);
+      code[f[0] + 2] = (byte) offset;
+      frames.put(labelPos.get(f[1]), analysis.frameAt(f[1]));
+    }
+
+    int maxLocals = Math.max(m.maxLocals, analysis.nrLocals());
+    if (maxLocals > MaxSlots || m.maxStack > MaxSlots) {
+      throw new IOException("method " + m.name + " uses too many"
+          + " local variables or operand stack slots");
+    }
+
+    ByteArrayOutputStream attrBytes = new ByteArrayOutputStream();
+    DataOutputStream attr = new DataOutputStream(attrBytes);
+    attr.writeShort(m.maxStack);
+    attr.writeShort(maxLocals);
+    attr.writeInt(pc);
+    attr.write(code, 0, pc);
+    attr.writeShort(0); // exception_table_length
+    if (frames.isEmpty()) {
+      attr.writeShort(0); // attributes_count
+    } else {
+      attr.writeShort(1);
+      writeStackMapTable(frames, attr);
+    }
+
+    out.writeShort(m.access);
+    out.writeShort(pool.utf8(m.name));
+    out.writeShort(pool.utf8(m.descriptor));
+    out.writeShort(1); // attributes_count
+    out.writeShort(pool.utf8("Code"));
+    out.writeInt(attrBytes.size());
+    attrBytes.writeTo(out);
+  }
+
+  // Writes one full_frame per branch target.
+  private void writeStackMapTable(TreeMap<Integer, CodeAnalysis.State> frames,
+                                  DataOutputStream out) throws IOException {
+    ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+    DataOutputStream table = new DataOutputStream(tableBytes);
+    table.writeShort(frames.size());
+    int previous = -1;
+    for (Map.Entry<Integer, CodeAnalysis.State> e : frames.entrySet()) {
+      int offset = e.getKey();
+      CodeAnalysis.State s = e.getValue();
+      table.writeByte(255); // full_frame
+      table.writeShort(offset - previous - 1);
+      previous = offset;
+      int nrLocals = s.locals.length;
+      while (nrLocals > 0 && s.locals[nrLocals - 1] == null) {
+        nrLocals--;
+      }
+      table.writeShort(nrLocals);
+      for (int l = 0; l < nrLocals; l++) {
+        writeVerificationType(s.locals[l], table);
+      }
+      table.writeShort(s.sp);
+      for (int k = 0; k < s.sp; k++) {
+        writeVerificationType(s.stack[k], table);
+      }
+    }
+    out.writeShort(pool.utf8("StackMapTable"));
+    out.writeInt(tableBytes.size());
+    tableBytes.writeTo(out);
+  }
+
+  private void writeVerificationType(String t, DataOutputStream out)
+      throws IOException {
+    if (t == null) {
+      out.writeByte(0); // Top
+    } else if (t.equals("I")) {
+      out.writeByte(1);
+    } else if (t.equals("F")) {
+      out.writeByte(2);
+    } else if (t.equals("this")) {
+      out.writeByte(6); // UninitializedThis
+    } else {
+      assert (!t.startsWith("new ")) : "uninitialized object at branch";
+      out.writeByte(7); // Object
+      out.writeShort(pool.classRef(t));
+    }
+  }
+
+  private void emitLDC(int index) {
+    if (index < 256) {
+      emit1(JVM.LDC);
+      emit1(index);
+    } else {
+      emit1(JVM.LDC_W);
+      emit2(index);
+    }
+  }
+
+  private void emit1(int b) {
+    if (pc == code.length) {
+      code = java.util.Arrays.copyOf(code, 2 * code.length);
+    }
+    code[pc++] = (byte) b;
+  }
+
+  private void emit2(int s) {
+    emit1(s >> 8);
+    emit1(s);
+  }
+
+  // String literals keep their escape sequences (Jasmin resolves them);
+  // here we have to resolve them ourselves.
+  private static String unescape(String s) {
+    if (s.indexOf('\\') < 0) {
+      return s;
+    }
+    StringBuilder b = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      if (ch == '\\' && i + 1 < s.length()) {
+        char next = s.charAt(++i);
+        switch (next) {
+          case 'n': ch = '\n'; break;
+          case 't': ch = '\t'; break;
+          case 'r': ch = '\r'; break;
+          case 'b': ch = '\b'; break;
+          case 'f': ch = '\f'; break;
+          default: ch = next; break; // \" \' \\
+        }
+      }
+      b.append(ch);
+    }
+    return b.toString();
+  }
+
+}
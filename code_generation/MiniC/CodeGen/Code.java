@@ -0,0 +1,251 @@
+package MiniC.CodeGen;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// The code of a method as produced by the Emitter: a sequence of JVM
+// instructions, defining occurrences of labels, and comments. The
+// elements are not objects but entries in parallel arrays, indexed from
+// 0 to size() - 1:
+//
+//   kind   the kind of operand (see below)
+//   op     the JVM opcode (see JVM); NONE for labels and comments
+//   arg    INT: the int operand or local variable index
+//          FLOAT: the bits of the float operand
+//          BRANCH, LABEL: the label number
+//          COMMENT: a line number to append to the text, or NONE
+//   ref    STRING: the string; CLASS: the class name; COMMENT: the text
+//          FIELD, METHOD: {owner, name, descriptor}
+//
+// The JasminWriter and the ClassFileWriter turn the code into Jasmin
+// text resp. bytecode; the Peephole optimizer and the CodeAnalysis work
+// on it in place.
+
+public class Code {
+
+  public final static int
+      PLAIN = 0,   // instruction without operand, e.g., iadd
+      INT = 1,     // int operand: bipush, sipush, ldc, iload, istore, ...
+      FLOAT = 2,   // float operand: ldc
+      STRING = 3,  // string operand: ldc
+      BRANCH = 4,  // label operand: goto, ifeq, if_icmplt, ...
+      LABEL = 5,   // defining occurrence of a label
+      FIELD = 6,   // field reference: getstatic, putstatic
+      METHOD = 7,  // method reference: invokestatic, invokevirtual, ...
+      CLASS = 8,   // class operand: new
+      COMMENT = 9,
+      DELETED = 10; // removed by the Peephole optimizer, see compact()
+
+  public final static int NONE = -1;
+
+  private byte[] kind;
+  private short[] op;
+  private int[] arg;
+  private Object[] ref;
+  private int size;
+
+  public Code() {
+    kind = new byte[64];
+    op = new short[64];
+    arg = new int[64];
+    ref = new Object[64];
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int kind(int i) {
+    return kind[i];
+  }
+
+  public int op(int i) {
+    return op[i];
+  }
+
+  public int arg(int i) {
+    return arg[i];
+  }
+
+  public float floatArg(int i) {
+    return Float.intBitsToFloat(arg[i]);
+  }
+
+  // The string of a STRING, CLASS or COMMENT element:
+  public String text(int i) {
+    return (String) ref[i];
+  }
+
+  public String owner(int i) {
+    return ((String[]) ref[i])[0];
+  }
+
+  public String name(int i) {
+    return ((String[]) ref[i])[1];
+  }
+
+  public String descriptor(int i) {
+    return ((String[]) ref[i])[2];
+  }
+
+  // True for the elements that become bytecode (not labels and comments):
+  public boolean isInstruction(int i) {
+    return kind[i] != LABEL && kind[i] != COMMENT;
+  }
+
+  // Returns the local variable index of a load or store instruction,
+  // both for the short forms (iload_2) and the long forms (iload 7).
+  public int localIndex(int i) {
+    if (kind[i] == INT) {
+      return arg[i];
+    }
+    return JVM.implicitIndex(op[i]);
+  }
+
+  //
+  // Appending:
+  //
+
+  public void add(int opcode) {
+    append(PLAIN, opcode, 0, null);
+  }
+
+  public void addInt(int opcode, int value) {
+    append(INT, opcode, value, null);
+  }
+
+  public void addFloat(int opcode, float value) {
+    append(FLOAT, opcode, Float.floatToIntBits(value), null);
+  }
+
+  public void addString(int opcode, String value) {
+    append(STRING, opcode, 0, value);
+  }
+
+  public void addBranch(int opcode, int label) {
+    append(BRANCH, opcode, label, null);
+  }
+
+  public void addLabel(int label) {
+    append(LABEL, NONE, label, null);
+  }
+
+  public void addMember(int kind, int opcode, String owner, String name,
+                        String descriptor) {
+    assert (kind == FIELD || kind == METHOD);
+    append(kind, opcode, 0, new String[] { owner, name, descriptor });
+  }
+
+  public void addClass(int opcode, String className) {
+    append(CLASS, opcode, 0, className);
+  }
+
+  public void addComment(String text) {
+    append(COMMENT, NONE, NONE, text);
+  }
+
+  // A comment whose text is followed by a line number, e.g.,
+  // "IfStmt, line 7":
+  public void addComment(String text, int line) {
+    append(COMMENT, NONE, line, text);
+  }
+
+  //
+  // Changing:
+  //
+
+  // Replaces element i by a branch:
+  public void setBranch(int i, int opcode, int label) {
+    kind[i] = BRANCH;
+    op[i] = (short) opcode;
+    arg[i] = label;
+    ref[i] = null;
+  }
+
+  // Replaces element i by an instruction without operand:
+  public void setPlain(int i, int opcode) {
+    kind[i] = PLAIN;
+    op[i] = (short) opcode;
+    arg[i] = 0;
+    ref[i] = null;
+  }
+
+  // Replaces element i by an instruction with an int operand:
+  public void setInt(int i, int opcode, int value) {
+    kind[i] = INT;
+    op[i] = (short) opcode;
+    arg[i] = value;
+    ref[i] = null;
+  }
+
+  public void setArg(int i, int value) {
+    arg[i] = value;
+  }
+
+  // Overwrites element "to" with a copy of element "from":
+  public void copy(int from, int to) {
+    kind[to] = kind[from];
+    op[to] = op[from];
+    arg[to] = arg[from];
+    ref[to] = ref[from];
+  }
+
+  // Marks element i as deleted. Deleted elements keep their index until
+  // compact() is called, so a pass over the code can delete elements
+  // without shifting the arrays each time.
+  public void delete(int i) {
+    kind[i] = DELETED;
+    op[i] = NONE;
+    ref[i] = null;
+  }
+
+  // Drops the deleted elements and inserts the labels of labelsBefore:
+  // labelsBefore.get(i) is defined right before element i (i == size()
+  // for the end). Runs in one pass over the arrays.
+  public void compact(Map<Integer, Integer> labelsBefore) {
+    int capacity = Math.max(64, size + labelsBefore.size());
+    byte[] newKind = new byte[capacity];
+    short[] newOp = new short[capacity];
+    int[] newArg = new int[capacity];
+    Object[] newRef = new Object[capacity];
+    int n = 0;
+    for (int i = 0; i <= size; i++) {
+      Integer label = labelsBefore.get(i);
+      if (label != null) {
+        newKind[n] = LABEL;
+        newOp[n] = NONE;
+        newArg[n] = label;
+        n++;
+      }
+      if (i < size && kind[i] != DELETED) {
+        newKind[n] = kind[i];
+        newOp[n] = op[i];
+        newArg[n] = arg[i];
+        newRef[n] = ref[i];
+        n++;
+      }
+    }
+    kind = newKind;
+    op = newOp;
+    arg = newArg;
+    ref = newRef;
+    size = n;
+  }
+
+  private void append(int k, int opcode, int value, Object r) {
+    if (size == kind.length) {
+      int capacity = 2 * size;
+      kind = Arrays.copyOf(kind, capacity);
+      op = Arrays.copyOf(op, capacity);
+      arg = Arrays.copyOf(arg, capacity);
+      ref = Arrays.copyOf(ref, capacity);
+    }
+    kind[size] = (byte) k;
+    op[size] = (short) opcode;
+    arg[size] = value;
+    ref[size] = r;
+    size++;
+  }
+
+}
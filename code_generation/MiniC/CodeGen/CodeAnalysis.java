@@ -0,0 +1,416 @@
+package MiniC.CodeGen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Abstract interpretation of a method's instruction list. It computes
+// which instructions are reachable, and for every branch target the
+// verification types of the local variables and of the operand stack on
+// entry to it. The ClassFileWriter needs these to drop dead code and to
+// write the StackMapTable frames. (MiniC code has no exception handlers,
+// the other places that need a frame.)
+//
+// States are only kept at branch targets, the join points of the control
+// flow. From each of them, the code is interpreted with a single state up
+// to the next join point, where the state is merged into the one stored
+// there. A join point whose state changed is interpreted again; it is
+// scheduled at most once at a time, and the lowest pending one goes
+// first, so forward code is interpreted about once.
+//
+// Verification types are represented as strings:
+//   "I"                    int (also boolean)
+//   "F"                    float
+//   "java/lang/String"     an object of the given class (internal name)
+//   "[Ljava/lang/String;"  an array (descriptor)
+//   "new C"                an object of class C created by "new" but not
+//                          yet initialized
+//   "this"                 the uninitialized "this" of a constructor
+//   null                   unusable (top)
+
+public class CodeAnalysis {
+
+  public static class State {
+    public String[] locals;
+    public String[] stack;
+    public int sp;
+
+    State(int nrLocals, int maxStack) {
+      locals = new String[nrLocals];
+      stack = new String[maxStack];
+      sp = 0;
+    }
+
+    State copy() {
+      State s = new State(0, 0);
+      s.locals = locals.clone();
+      s.stack = stack.clone();
+      s.sp = sp;
+      return s;
+    }
+  }
+
+  private String className;
+  private Method method;
+  private Code code;
+  private int nrLocals;
+  private int[] joinOf;      // label -> index of the first instruction at
+                             // the label, if the label is a branch target
+  private BitSet isJoin;     // indexes in joinOf
+  private State[] frames;    // index -> entry state, only at join points
+  private BitSet reachable;
+  private BitSet pending;    // join points to be interpreted (again)
+  private int firstPending;  // no pending join point below this index
+
+  public CodeAnalysis(String className, Method method) {
+    this.className = className;
+    this.method = method;
+  }
+
+  public void analyze() {
+    code = method.code;
+    int n = code.size();
+    nrLocals = Math.max(method.maxLocals, parameterSlots());
+    int nrLabels = 0;
+    for (int i = 0; i < n; i++) {
+      if (code.kind(i) == Code.LABEL || code.kind(i) == Code.BRANCH) {
+        nrLabels = Math.max(nrLabels, code.arg(i) + 1);
+      } else if (isLoadOrStore(code, i)) {
+        nrLocals = Math.max(nrLocals, code.localIndex(i) + 1);
+      }
+    }
+    int[] labelIndex = new int[nrLabels];
+    for (int i = 0; i < n; i++) {
+      if (code.kind(i) == Code.LABEL) {
+        labelIndex[code.arg(i)] = i;
+      }
+    }
+    joinOf = new int[nrLabels];
+    isJoin = new BitSet(n + 1);
+    for (int i = 0; i < n; i++) {
+      if (code.kind(i) == Code.BRANCH) {
+        // Labels and comments do not become bytecode; the state at a
+        // label is the state at the next instruction:
+        int j = labelIndex[code.arg(i)];
+        while (j < n && !code.isInstruction(j)) {
+          j++;
+        }
+        joinOf[code.arg(i)] = j;
+        isJoin.set(j);
+      }
+    }
+    frames = new State[n + 1];
+    reachable = new BitSet(n);
+    pending = new BitSet(n + 1);
+    firstPending = n;
+
+    // The stacks grow in push() as needed:
+    State entry = new State(nrLocals, 8);
+    String[] params = parameterTypes();
+    int local = 0;
+    if (!method.isStatic()) {
+      entry.locals[local++] =
+          method.name.equals("<init>") ? "this" : className;
+    }
+    for (String t : params) {
+      entry.locals[local++] = t;
+    }
+
+    if (isJoin.get(0)) {
+      merge(0, entry);
+    } else {
+      run(0, entry);
+    }
+    int j;
+    while ((j = pending.nextSetBit(firstPending)) >= 0) {
+      pending.clear(j);
+      firstPending = j;
+      run(j, frames[j].copy());
+    }
+  }
+
+  // True if the instruction at index i can be executed:
+  public boolean isReachable(int i) {
+    return reachable.get(i);
+  }
+
+  // The entry state of the code at label, which must be a branch target:
+  public State frameAt(int label) {
+    return frames[joinOf[label]];
+  }
+
+  // The number of local variable slots that the code uses:
+  public int nrLocals() {
+    return nrLocals;
+  }
+
+  // Interprets the code from index start with state s up to the next
+  // join point or the end of the control flow.
+  private void run(int start, State s) {
+    for (int i = start; ; i++) {
+      if (i != start && isJoin.get(i)) {
+        merge(i, s);
+        return;
+      }
+      if (i >= code.size()) {
+        // Falling off the end of the code; the verifier rejects this.
+        assert(false) : "control reaches end of method " + method.name;
+        return;
+      }
+      if (!code.isInstruction(i)) {
+        continue;
+      }
+      reachable.set(i);
+      if (!interpret(i, s)) {
+        return;
+      }
+    }
+  }
+
+  // Merges state "s" into the state at join point i and schedules i for
+  // (re-)interpretation if that state changed.
+  private void merge(int i, State s) {
+    State old = frames[i];
+    if (old == null) {
+      frames[i] = s;
+      schedule(i);
+      return;
+    }
+    assert (old.sp == s.sp) : "inconsistent stack height in " + method.name;
+    boolean changed = false;
+    for (int l = 0; l < old.locals.length; l++) {
+      if (old.locals[l] != null && !old.locals[l].equals(s.locals[l])) {
+        old.locals[l] = null;
+        changed = true;
+      }
+    }
+    for (int k = 0; k < old.sp; k++) {
+      assert (old.stack[k] != null && old.stack[k].equals(s.stack[k]))
+          : "inconsistent stack types in " + method.name;
+    }
+    if (changed) {
+      schedule(i);
+    }
+  }
+
+  private void schedule(int i) {
+    pending.set(i);
+    firstPending = Math.min(firstPending, i);
+  }
+
+  private void push(State s, String type) {
+    if (s.sp == s.stack.length) {
+      s.stack = Arrays.copyOf(s.stack, 2 * s.stack.length);
+    }
+    s.stack[s.sp++] = type;
+  }
+
+  private String pop(State s) {
+    assert (s.sp > 0) : "operand stack underflow in " + method.name;
+    return s.stack[--s.sp];
+  }
+
+  // Computes the effect of instruction i on state s, and passes a copy
+  // of the resulting state on to a branch target. Returns false if the
+  // next instruction does not follow (goto, return).
+  private boolean interpret(int i, State s) {
+    int op = code.op(i);
+    switch (code.kind(i)) {
+      case Code.INT:
+        if (op == JVM.LDC || op == JVM.BIPUSH || op == JVM.SIPUSH) {
+          push(s, "I");
+          return true;
+        }
+        break; // loads and stores are treated with the plain forms
+      case Code.FLOAT:
+        push(s, "F");
+        return true;
+      case Code.STRING:
+        push(s, "java/lang/String");
+        return true;
+      case Code.BRANCH:
+        if (op == JVM.GOTO) {
+          merge(joinOf[code.arg(i)], s);
+          return false;
+        }
+        pop(s);
+        if (op >= JVM.IF_ICMPEQ) {
+          pop(s);
+        }
+        merge(joinOf[code.arg(i)], s.copy());
+        return true;
+      case Code.FIELD:
+        if (op == JVM.GETSTATIC) {
+          push(s, verificationType(code.descriptor(i)));
+        } else {
+          pop(s);
+        }
+        return true;
+      case Code.METHOD:
+        interpretInvoke(code, i, s);
+        return true;
+      case Code.CLASS:
+        push(s, "new " + code.text(i));
+        return true;
+    }
+
+    // Instructions without operand, and loads and stores:
+    if (JVM.isLoad(op)) {
+      switch (JVM.localType(op)) {
+        case 'I':
+          push(s, "I");
+          break;
+        case 'F':
+          push(s, "F");
+          break;
+        default:
+          push(s, s.locals[code.localIndex(i)]);
+      }
+      return true;
+    }
+    if (JVM.isStore(op)) {
+      String t = pop(s);
+      switch (JVM.localType(op)) {
+        case 'I':
+          s.locals[code.localIndex(i)] = "I";
+          break;
+        case 'F':
+          s.locals[code.localIndex(i)] = "F";
+          break;
+        default:
+          s.locals[code.localIndex(i)] = t;
+      }
+      return true;
+    }
+    switch (op) {
+      case JVM.ICONST_M1: case JVM.ICONST_0: case JVM.ICONST_1:
+      case JVM.ICONST_2: case JVM.ICONST_3: case JVM.ICONST_4:
+      case JVM.ICONST_5:
+        push(s, "I");
+        break;
+      case JVM.FCONST_0: case JVM.FCONST_1: case JVM.FCONST_2:
+        push(s, "F");
+        break;
+      case JVM.IADD: case JVM.ISUB: case JVM.IMUL: case JVM.IDIV:
+      case JVM.FCMPL: case JVM.FCMPG:
+        pop(s);
+        pop(s);
+        push(s, "I");
+        break;
+      case JVM.FADD: case JVM.FSUB: case JVM.FMUL: case JVM.FDIV:
+        pop(s);
+        pop(s);
+        push(s, "F");
+        break;
+      case JVM.INEG:
+        pop(s);
+        push(s, "I");
+        break;
+      case JVM.FNEG:
+      case JVM.I2F:
+        pop(s);
+        push(s, "F");
+        break;
+      case JVM.POP:
+        pop(s);
+        break;
+      case JVM.DUP: {
+        String t = pop(s);
+        push(s, t);
+        push(s, t);
+        break;
+      }
+      case JVM.NOP:
+        break;
+      case JVM.RETURN: case JVM.IRETURN: case JVM.FRETURN:
+        return false; // no successor
+      default:
+        assert(false) : "CodeAnalysis: unsupported instruction "
+            + JVM.mnemonic(op);
+    }
+    return true;
+  }
+
+  private void interpretInvoke(Code code, int i, State s) {
+    String d = code.descriptor(i);
+    int nrArgs = descriptorTypes(d.substring(1, d.indexOf(')'))).size();
+    for (int k = 0; k < nrArgs; k++) {
+      pop(s);
+    }
+    if (code.op(i) != JVM.INVOKESTATIC) {
+      String receiver = pop(s);
+      if (code.name(i).equals("<init>")) {
+        // The receiver (and all its copies) is initialized now:
+        String initialized = receiver.equals("this") ? className
+            : receiver.substring(4);
+        for (int k = 0; k < s.sp; k++) {
+          if (receiver.equals(s.stack[k])) {
+            s.stack[k] = initialized;
+          }
+        }
+        for (int l = 0; l < s.locals.length; l++) {
+          if (receiver.equals(s.locals[l])) {
+            s.locals[l] = initialized;
+          }
+        }
+      }
+    }
+    String ret = d.substring(d.indexOf(')') + 1);
+    if (!ret.equals("V")) {
+      push(s, verificationType(ret));
+    }
+  }
+
+  private boolean isLoadOrStore(Code code, int i) {
+    int kind = code.kind(i);
+    if (kind != Code.PLAIN && kind != Code.INT) {
+      return false;
+    }
+    return JVM.isLoad(code.op(i)) || JVM.isStore(code.op(i));
+  }
+
+  private int parameterSlots() {
+    return parameterTypes().length + (method.isStatic() ? 0 : 1);
+  }
+
+  private String[] parameterTypes() {
+    String d = method.descriptor;
+    ArrayList<String> params =
+        descriptorTypes(d.substring(1, d.indexOf(')')));
+    return params.toArray(new String[params.size()]);
+  }
+
+  // Splits a sequence of field descriptors, e.g. "IZLjava/lang/String;",
+  // into their verification types.
+  private static ArrayList<String> descriptorTypes(String d) {
+    ArrayList<String> types = new ArrayList<String>();
+    int i = 0;
+    while (i < d.length()) {
+      int start = i;
+      while (d.charAt(i) == '[') {
+        i++;
+      }
+      if (d.charAt(i) == 'L') {
+        i = d.indexOf(';', i);
+      }
+      i++;
+      types.add(verificationType(d.substring(start, i)));
+    }
+    return types;
+  }
+
+  // Maps a field descriptor to its verification type:
+  public static String verificationType(String descriptor) {
+    switch (descriptor.charAt(0)) {
+      case 'I': case 'Z': case 'B': case 'C': case 'S':
+        return "I";
+      case 'F':
+        return "F";
+      case 'L':
+        return descriptor.substring(1, descriptor.length() - 1);
+      default:
+        return descriptor; // arrays
+    }
+  }
+
+}
@@ -0,0 +1,185 @@
+package MiniC.CodeGen;
+
+import java.io.*;
+import java.util.HashMap;
+
+// Builds the constant pool of a class file. Every constant is entered
+// once; asking for the same constant again returns the same index. An
+// IOException is thrown if the pool or a string constant outgrows the
+// class file format.
+
+public class ConstantPool {
+
+  // The largest constant_pool_count (indexes are u2, entry 0 is unused):
+  private final static int MaxCount = 65535;
+  // The largest length of a CONSTANT_Utf8 (modified UTF-8):
+  private final static int MaxUtf8Length = 65535;
+
+  private final static int
+      CONSTANT_Utf8 = 1,
+      CONSTANT_Integer = 3,
+      CONSTANT_Float = 4,
+      CONSTANT_Class = 7,
+      CONSTANT_String = 8,
+      CONSTANT_Fieldref = 9,
+      CONSTANT_Methodref = 10,
+      CONSTANT_NameAndType = 12;
+
+  private ByteArrayOutputStream bytes;
+  private DataOutputStream out;
+  private HashMap<String, Integer> index;
+  private int count;
+
+  public ConstantPool() {
+    bytes = new ByteArrayOutputStream();
+    out = new DataOutputStream(bytes);
+    index = new HashMap<String, Integer>();
+    count = 1; // entry 0 is unused
+  }
+
+  // Returns the index of the constant with the given key, or -1:
+  private int lookup(String key) {
+    Integer i = index.get(key);
+    return (i == null) ? -1 : i;
+  }
+
+  private int enter(String key) throws IOException {
+    if (count == MaxCount) {
+      throw new IOException("too many constants for the class file"
+          + " format (at most " + (MaxCount - 1) + ")");
+    }
+    index.put(key, count);
+    return count++;
+  }
+
+  public int utf8(String s) throws IOException {
+    String key = "U" + s;
+    int i = lookup(key);
+    if (i < 0) {
+      int length = utf8Length(s);
+      if (length > MaxUtf8Length) {
+        throw new IOException("constant of " + length + " bytes is too"
+            + " long for the class file format (at most " + MaxUtf8Length
+            + "): \"" + s.substring(0, 20) + "...\"");
+      }
+      out.writeByte(CONSTANT_Utf8);
+      out.writeUTF(s);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  // The length of s in modified UTF-8, as written by writeUTF():
+  private static int utf8Length(String s) {
+    int length = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x0001 && c <= 0x007f) {
+        length += 1;
+      } else if (c <= 0x07ff) {
+        length += 2;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  public int integer(int value) throws IOException {
+    String key = "I" + value;
+    int i = lookup(key);
+    if (i < 0) {
+      write(CONSTANT_Integer, value);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  public int floatConst(float value) throws IOException {
+    int bits = Float.floatToIntBits(value);
+    String key = "F" + bits;
+    int i = lookup(key);
+    if (i < 0) {
+      write(CONSTANT_Float, bits);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  public int string(String s) throws IOException {
+    int utf = utf8(s);
+    String key = "S" + s;
+    int i = lookup(key);
+    if (i < 0) {
+      write2(CONSTANT_String, utf);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  public int classRef(String internalName) throws IOException {
+    int utf = utf8(internalName);
+    String key = "C" + internalName;
+    int i = lookup(key);
+    if (i < 0) {
+      write2(CONSTANT_Class, utf);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  public int fieldRef(String owner, String name, String descriptor)
+      throws IOException {
+    return memberRef(CONSTANT_Fieldref, owner, name, descriptor);
+  }
+
+  public int methodRef(String owner, String name, String descriptor)
+      throws IOException {
+    return memberRef(CONSTANT_Methodref, owner, name, descriptor);
+  }
+
+  private int memberRef(int tag, String owner, String name,
+                        String descriptor) throws IOException {
+    int c = classRef(owner);
+    int nt = nameAndType(name, descriptor);
+    String key = tag + owner + "." + name + ":" + descriptor;
+    int i = lookup(key);
+    if (i < 0) {
+      write2(tag, c, nt);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  private int nameAndType(String name, String descriptor)
+      throws IOException {
+    int n = utf8(name);
+    int d = utf8(descriptor);
+    String key = "N" + name + ":" + descriptor;
+    int i = lookup(key);
+    if (i < 0) {
+      write2(CONSTANT_NameAndType, n, d);
+      i = enter(key);
+    }
+    return i;
+  }
+
+  private void write(int tag, int value) throws IOException {
+    out.writeByte(tag);
+    out.writeInt(value);
+  }
+
+  private void write2(int tag, int... indices) throws IOException {
+    out.writeByte(tag);
+    for (int i : indices) {
+      out.writeShort(i);
+    }
+  }
+
+  // Writes constant_pool_count and the constant pool:
+  public void writeTo(DataOutputStream dest) throws IOException {
+    dest.writeShort(count);
+    bytes.writeTo(dest);
+  }
+
+}
@@ -8,116 +8,151 @@ import MiniC.ErrorReporter;
 public class Emitter implements Visitor {
 
   private ErrorReporter reporter;
-  private FileWriter fstream;
-  private BufferedWriter out;
   private String ClassName;
-  private int indent;
-  private final int INDENT_LEVEL = 3; //amount of indentation per level
+  private ClassDef classDef; // the class generated for the MiniC program
+  private Method method; // the method we are currently generating code for
   private Frame frame;
-  private int MaxOperandStackSize = 150;
-  // Upper bound for the maximum operand stack height for a MiniC function.
-  // The actual stack height can be determined by interpreting the function's
-  // bytecode. 
-  private int LabelIndent;
   private boolean isMain; // true if we are generating code for "main".
   private boolean GlobalScope; // true if we are in the outermost "global" scope.
+  private boolean jasminOutput; // write Jasmin assembly code instead of a class file.
+  private boolean optimize; // run the peephole optimizer over each method.
 
 
   public Emitter (String infile, ErrorReporter reporter) {
-    try {
-      this.isMain = false;
-      this.GlobalScope= true;
-      this.reporter = reporter;
-      LabelIndent = 1;
-      String outfile;
-      String namepart;
-      // Create output file name:
-      File f = new File(infile);
-      namepart = f.getName(); // strip directory part
-      int l = namepart.length();
-      if ( namepart.charAt(l-3) == '.'
-          && namepart.charAt(l-2) == 'm'
-          && namepart.charAt(l-1) == 'c') {
-        ClassName = new String(namepart.substring(0, l-3));
-        outfile = new String(namepart.substring(0, l-2));
-        outfile = outfile.concat("j");
-      } else {
-        ClassName = new String(namepart);
-        outfile= new String(namepart);
-        outfile = outfile.concat(".j");
-      }
-      // Create output file: 
-      fstream = new FileWriter(outfile);
-      out = new BufferedWriter(fstream);
-      indent = 0;
-    } catch (Exception e) {
-      //Catch exception if any:
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
+    this.isMain = false;
+    this.GlobalScope= true;
+    this.jasminOutput = false;
+    this.optimize = false;
+    this.reporter = reporter;
+    this.ClassName = classNameOf(infile);
+  }
+
+  // The name of the class generated for source file infile: the file
+  // name without directory part and ".mc".
+  public static String classNameOf(String infile) {
+    String namepart = new File(infile).getName(); // strip directory part
+    if (namepart.endsWith(".mc")) {
+      return namepart.substring(0, namepart.length() - 3);
+    }
+    return namepart;
+  }
+
+  // Write Jasmin assembly code (<ClassName>.j) instead of a class file
+  // (<ClassName>.class):
+  public void enableJasminOutput() {
+    jasminOutput = true;
+  }
+
+  // Run the peephole optimizer over the code of each method:
+  public void enableOptimization() {
+    optimize = true;
+  }
+
+  // top-level routine, called by the compiler driver: generates the
+  // code for progAST and writes it to <ClassName>.class or <ClassName>.j
+  public void genCode(Program progAST) throws IOException {
+    generate(progAST);
+    if (jasminOutput) {
+      new JasminWriter().write(classDef, getClassName() + ".j");
+    } else {
+      new ClassFileWriter().write(classDef, getClassName() + ".class");
     }
   }
 
-  // top-level routine, called by the compiler driver:
-  public void genCode(Program progAST) {
+  // Generates the code for progAST without writing it anywhere; the
+  // result is available from getClassBytes() and getJasminText().
+  public void generate(Program progAST) {
     visit(progAST);
-    try {
-      out.close();
-    } catch (Exception e) {
-      //Catch exception if any
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
+  }
+
+  public String getClassName() {
+    return ClassName;
+  }
+
+  public byte[] getClassBytes() throws IOException {
+    return new ClassFileWriter().toBytes(classDef);
+  }
+
+  public String getJasminText() {
+    return new JasminWriter().toText(classDef);
+  }
+
+  // The number of JVM instructions generated (labels and comments do not
+  // count):
+  public int getNumInstructions() {
+    int n = 0;
+    for (Method m : classDef.methods) {
+      for (int i = 0; i < m.code.size(); i++) {
+        if (m.code.isInstruction(i)) {
+          n++;
+        }
+      }
     }
+    return n;
   }
 
   /*
-   * emit* routines output Jasmin assembly code of various sorts.
+   * emit* routines append JVM instructions of various sorts to the code
+   * of the current method.
    */
 
-  // Emit a single string using indentation:
-  private void emit (String s) {
-    try {
-      for (int i = 1; i <= indent*INDENT_LEVEL; i++) {
-        out.write(" ");
-      }
-      out.write(s + "\n");
-    } catch (Exception e) {
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
-    }
+  // Emit an instruction without operand:
+  private void emit (int op) {
+    method.code.add(op);
   }
 
-  // Emit a single string, but do not indent.
-  private void emitNoIndent (String s) {
-    try {
-      out.write(s + "\n");
-    } catch (Exception e) {
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
-    }
+  private void emit (int op, int value) {
+    method.code.addInt(op, value);
+  }
+
+  private void emit (int op, float value) {
+    method.code.addFloat(op, value);
+  }
+
+  // Emit an instruction with a class operand:
+  private void emit (int op, String className) {
+    method.code.addClass(op, className);
   }
 
-  private void emit (String s, int value) {
-    emit (s + " " + value);
+  // Emit a comment:
+  private void emitComment (String s) {
+    method.code.addComment(s);
   }
 
-  private void emit (String s, float value) {
-    emit (s + " " + value);
+  // Emit a comment that ends with a line number:
+  private void emitComment (String s, int line) {
+    method.code.addComment(s, line);
   }
 
-  // For a given label nr, return the string representation
-  // of that label:
-  private String getLabelString(int label) {
-    return new String("Label" + label);
+  // Emit a branch instruction to a label:
+  private void emitBranch (int op, int label) {
+    method.code.addBranch(op, label);
   }
 
   // Emit the defining occurrence of a label:
   private void emitLabel(int label) {
     assert(label >= 0);
-    String Ind = new String(" ");
-    for (int i = 1; i <= LabelIndent; i++) {
-      Ind = Ind.concat(" ");
+    method.code.addLabel(label);
+  }
+
+  // Emit an instruction that refers to a method:
+  private void emitInvoke (int op, String owner, String name,
+                           String descriptor) {
+    method.code.addMember(Code.METHOD, op, owner, name, descriptor);
+  }
+
+  // Complete the current method and add it to the class. The code is
+  // optimized first if enabled: the peephole optimizer runs, and the
+  // local variables are packed into fewer slots. The maximum
+  // operand stack height is computed in one pass over the code (see
+  // StackDepth):
+  private void endMethod() {
+    if (optimize) {
+      new Peephole().optimize(method);
+      new LocalAllocator().allocate(method);
     }
-    emitNoIndent (Ind + "Label" + label + ":");
+    method.maxStack = StackDepth.maxStack(method.code);
+    classDef.methods.add(method);
   }
 
   // Emit an integer constant:
@@ -125,7 +160,7 @@ public class Emitter implements Visitor {
     if(value == -1) {
       emit(JVM.ICONST_M1);
     } else if(value >= 0 && value <= 5) {
-      emit(JVM.ICONST + "_" + value);
+      emit(JVM.ICONST_0 + value);
     } else if(value >= -128 && value <= 127) {
       emit(JVM.BIPUSH, value);
     } else if(value >= -32768 && value <= 32767) {
@@ -137,7 +172,8 @@ public class Emitter implements Visitor {
 
   // Emit a floating point constant:
   private void emitFCONST(float value) {
-    if(value == 0.0) {
+    // -0.0 == 0.0, but fconst_0 pushes +0.0, so -0.0 needs an ldc:
+    if(Float.floatToRawIntBits(value) == 0) {
       emit(JVM.FCONST_0);
     } else if(value == 1.0) {
       emit(JVM.FCONST_1);
@@ -215,60 +251,106 @@ public class Emitter implements Visitor {
 
   // Emit a return statement of a given type:
   private void emitRETURN(Type T){
-    if (T.Tequal(StdEnvironment.intType)
-        || T.Tequal(StdEnvironment.boolType))
-    {
-      emit(JVM.IRETURN);
-    } else if(T.Tequal(StdEnvironment.floatType)) {
-      emit(JVM.FRETURN);
-    } else if(T.Tequal(StdEnvironment.voidType)) {
-      emit(JVM.RETURN);
+    switch (T.id) {
+      case Type.INT:
+      case Type.BOOL:
+        emit(JVM.IRETURN);
+        break;
+      case Type.FLOAT:
+        emit(JVM.FRETURN);
+        break;
+      case Type.VOID:
+        emit(JVM.RETURN);
+        break;
+    }
+  }
+
+  // Emit the store of the top of the stack to a local variable:
+  private void emitLocalVariableStore(Decl D, Type T) {
+    switch (T.id) {
+      case Type.INT:
+      case Type.BOOL:
+        emitISTORE(D.index);
+        break;
+      case Type.FLOAT:
+        emitFSTORE(D.index);
+        break;
+      default:
+        assert(false);
+    }
+  }
+
+  // Emit the default value of a variable of type T (0, 0.0 or false):
+  private void emitDefaultValue(Type T) {
+    switch (T.id) {
+      case Type.INT:
+      case Type.BOOL:
+        emit(JVM.ICONST_0);
+        break;
+      case Type.FLOAT:
+        emit(JVM.FCONST_0);
+        break;
+      default:
+        // Type not supported for variable initializer:
+        assert(false);
+    }
+  }
+
+  // Emit code for an expression that is evaluated for its side-effects
+  // only (call statements, for-loop headers). A result left on the stack
+  // is popped, so that the stack height stays the same across loops.
+  private void emitDiscardedExpr(Expr e) {
+    e.accept(this);
+    if (e instanceof CallExpr) {
+      FunDecl F = (FunDecl) ((CallExpr) e).idAST.declAST;
+      if (F.tAST.id != Type.VOID) {
+        emit(JVM.POP);
+      }
+    } else if (!(e instanceof EmptyExpr) && !(e instanceof AssignExpr)) {
+      emit(JVM.POP);
     }
   }
 
   // Emit the constructor for the class of our MiniC program:
   private void emitConstructor() {
-    emit ("\n.method public <init>()V");
-    indent++;
-    emit (".limit stack 1");
-    emit (".limit locals 1");
-    emit (".var 0 is this L" + ClassName + "; from Label0 to Label1\n");
+    method = new Method(Method.ACC_PUBLIC, "<init>", "()V");
+    method.maxLocals = 1;
+    method.directives.add(".var 0 is this L" + ClassName
+        + "; from Label0 to Label1\n");
     emitLabel (0);
-    emit ("aload_0");
-    emit ("invokespecial java/lang/Object/<init>()V");
+    emit (JVM.ALOAD_0);
+    emitInvoke (JVM.INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
     emitLabel (1);
-    emit ("return");
-    indent--;
-    emit (".end method");
+    emit (JVM.RETURN);
+    endMethod();
   }
 
   // Emit declarations for the static class variables. Static class variables
   // correspont to MiniC global variables.
-  // This function recursively traverses the declarations in the global
-  // block of the program.
+  // This function traverses the declarations in the global block of the
+  // program.
   private void emitStaticClassVariableDeclaration(Decl d) {
     assert (d != null);
-    if (d instanceof DeclSequence) {
-      DeclSequence SD = (DeclSequence) d;
-      emitStaticClassVariableDeclaration(SD.D1);
-      emitStaticClassVariableDeclaration(SD.D2);
+    if (d instanceof DeclList) {
+      for (Decl D : ((DeclList) d).elements) {
+        emitStaticClassVariableDeclaration(D);
+      }
     } else if (d instanceof VarDecl) {
       VarDecl D = (VarDecl) d;
       Type T= typeOfDecl (D);
-      emit (".field static " + D.idAST.Lexeme + " "
-          + getTypeDescriptorLabel(T));         
+      classDef.addField(D.idAST.Lexeme, getTypeDescriptorLabel(T));
     }
   }
 
   // Emit initializers for the static class variables.
-  // This function recursively traverses the declarations in the global
-  // block of the program.
+  // This function traverses the declarations in the global block of the
+  // program.
   private void emitInitializer(Decl d) {
     assert (d != null);
-    if (d instanceof DeclSequence) {
-      DeclSequence SD = (DeclSequence) d;
-      emitInitializer(SD.D1);
-      emitInitializer(SD.D2);
+    if (d instanceof DeclList) {
+      for (Decl D : ((DeclList) d).elements) {
+        emitInitializer(D);
+      }
     } else if (d instanceof VarDecl) {
       VarDecl VD = (VarDecl) d;
       Type T = typeOfDecl (VD);
@@ -276,15 +358,7 @@ public class Emitter implements Visitor {
       if (Init_Expr instanceof EmptyExpr) {
         // Programmer did not provide initializer for global variable.
         // Initialize to something safe (default initialization):
-        if (T.Tequal(StdEnvironment.intType)
-            || T.Tequal(StdEnvironment.boolType)) {
-          emit(JVM.ICONST_0);
-        } else if(T.Tequal(StdEnvironment.floatType)) {
-          emit(JVM.FCONST_0);
-        } else {
-          // Type not supported for global variable initializer:
-          assert(false);
-        }
+        emitDefaultValue(T);
       } else {
         // Programmer provided initializer expression, emit it:
         Init_Expr.accept(this);
@@ -296,36 +370,20 @@ public class Emitter implements Visitor {
   // Emit a class initializer method for the global MiniC variables.
   // Global MiniC variables correspond to static Java class variables
   // in our code generation model. Our MiniC assembly code needs one
-  // class initializer where all class variables are initialized. 
+  // class initializer where all class variables are initialized.
   private void emitClassInitializer(Decl d) {
-    emit ("\n.method static <clinit>()V");
-    indent++;
-    emit (".limit stack 1");
-    emit (".limit locals 0");
+    method = new Method(Method.ACC_STATIC, "<clinit>", "()V");
+    method.maxLocals = 0;
+    frame = new Frame(false); // for the labels of initializer expressions
     emitInitializer(d);
     emit (JVM.RETURN);
-    indent--;
-    emit (".end method");
+    endMethod();
   }
 
   // Get the JVM type descriptor for a given MiniC type:
   private String getTypeDescriptorLabel(Type t) {
-    String l = new String("");
-    assert((t != null) && !(t instanceof ErrorType));
-    if (t.Tequal(StdEnvironment.intType)) {
-      l = new String ("I");
-    } else if (t.Tequal(StdEnvironment.boolType)) {
-      l = new String ("Z");
-    } else if (t.Tequal(StdEnvironment.floatType)) {
-      l = new String ("F");
-    } else if (t.Tequal(StdEnvironment.stringType)) {
-      l = new String ("Ljava/lang/String;");
-    } else if (t.Tequal(StdEnvironment.voidType)) {
-      l = new String ("V");
-    } else {
-      assert(false);
-    }
-    return l;
+    assert((t != null) && t.id != Type.ERROR);
+    return t.descriptor;
   }
 
   // Get the type of a given declaration:
@@ -342,8 +400,8 @@ public class Emitter implements Visitor {
     } else {
       T = ((FormalParamDecl) d).astType;
     }
-    if (T instanceof ArrayType) {
-      reporter.reportError("Arrays not implemented", "", d.pos);
+    if (T.id == Type.ARRAY) {
+      reporter.reportError("Arrays not implemented", "", d);
       retType = ((ArrayType) T).astType;
     } else {
       retType = T;
@@ -356,14 +414,13 @@ public class Emitter implements Visitor {
   // The boolean "write" value determines between read access (write=false) and
   // write access (write=true).
   private void emitStaticVariableReference(ID Ident, Type T, boolean write) {
-    String ref;
+    int op;
     if(write)
-      ref = new String(JVM.PUTSTATIC);
+      op = JVM.PUTSTATIC;
     else
-      ref = new String(JVM.GETSTATIC);
-    ref = ref.concat(" " + ClassName + "." + Ident.Lexeme + " "
-        + getTypeDescriptorLabel (T));
-    emit (ref);
+      op = JVM.GETSTATIC;
+    method.code.addMember(Code.FIELD, op, ClassName, Ident.Lexeme,
+        getTypeDescriptorLabel (T));
   }
 
   // Returns true if the function declaration passed as parameter must become a static
@@ -395,42 +452,33 @@ public class Emitter implements Visitor {
   //    void foo (int a, bool b){}
   //
   // the return value will be 2.
-  // Note: this function assumes the AST tree layout from Assignment 3.
+  // Note: this function assumes the flat parameter lists built by the
+  // SequenceFlattener.
   private int GetNrOfFormalParams(FunDecl f) {
-    int NrArgs = 0;
     Decl D = f.paramsAST;
     assert ((D instanceof EmptyFormalParamDecl) ||
-        (D instanceof FormalParamDeclSequence));
+        (D instanceof FormalParamDeclList));
     if(D instanceof EmptyFormalParamDecl)
       return 0;
-    while (D instanceof FormalParamDeclSequence) {
-      NrArgs++;
-      D = ((FormalParamDeclSequence) D).rAST;
-      assert ((D instanceof EmptyFormalParamDecl) ||
-          (D instanceof FormalParamDeclSequence));
-    }
-    return NrArgs;
+    return ((FormalParamDeclList) D).elements.length;
   }
 
-  // Given a function declaration FunDecl, this method returns the AST for 
+  // Given a function declaration FunDecl, this method returns the AST for
   // the formal parameter nr (nr is the number of the parameter).
   // E.g., for the following function and nr=2,
   //
   //    void foo (int a, bool b){}
   //
   // the AST returned will be "bool b".
-  // Note: this function assumes the AST tree layout from Assignment 3.
+  // Note: this function assumes the flat parameter lists built by the
+  // SequenceFlattener.
   private FormalParamDecl GetFormalParam (FunDecl f, int nr) {
     int fArgs = GetNrOfFormalParams(f);
     assert(fArgs >= 0);
     assert (nr <= fArgs);
-    FormalParamDeclSequence S = (FormalParamDeclSequence) f.paramsAST;
-    for (int i = 1; i < nr; i++) {
-      assert(S.rAST instanceof FormalParamDeclSequence);
-      S = (FormalParamDeclSequence) S.rAST;
-    }
-    assert(S.lAST instanceof FormalParamDecl);
-    return (FormalParamDecl) S.lAST;
+    Decl D = ((FormalParamDeclList) f.paramsAST).elements[nr - 1];
+    assert(D instanceof FormalParamDecl);
+    return (FormalParamDecl) D;
   }
 
   // Construct the descriptor for a given function declaration.
@@ -453,11 +501,7 @@ public class Emitter implements Visitor {
    */
 
   public void visit(Program x) {
-    emit("; Jassmin assembly code");
-    emit("; MiniC v. 1.0");
-    emit(".class public " + ClassName);
-    emit(".super java/lang/Object");
-    //emit("; Program");
+    classDef = new ClassDef(ClassName, "java/lang/Object");
     if(x.D instanceof VarDecl) {
       ((VarDecl) x.D).setGlobal();
     }
@@ -468,7 +512,7 @@ public class Emitter implements Visitor {
   }
 
   public void visit(EmptyDecl x) {
-    //emit("; EmptyDecl");
+    //emitComment("EmptyDecl");
   }
 
   public void visit(FunDecl x) {
@@ -477,40 +521,44 @@ public class Emitter implements Visitor {
     isMain = x.idAST.Lexeme.equals("main");
     if(isMain) {
       frame = new Frame(true);
-      emit ("\n.method public static main([Ljava/lang/String;)V");
+      method = new Method(Method.ACC_PUBLIC | Method.ACC_STATIC, "main",
+          "([Ljava/lang/String;)V");
       // .var for main"s "this" pointer:
-      //emit (".var 0 is this L" + ClassName + "; from Label0 to Label1");
+      //method.directives.add(".var 0 is this L" + ClassName + "; from Label0 to Label1");
       // .var for main's String[] argument:
-      //emit (".var 1 is arg0 [Ljava/lang/String; from Label0 to Label1");
+      //method.directives.add(".var 1 is arg0 [Ljava/lang/String; from Label0 to Label1");
 
     } else {
       frame = new Frame(false);
-      emit ("\n.method public " + x.idAST.Lexeme
-          + getDescriptor(x));
+      method = new Method(Method.ACC_PUBLIC, x.idAST.Lexeme,
+          getDescriptor(x));
       x.paramsAST.accept(this); // process formal parameters to adjust the
       // local variable count.
     }
-    indent++;
     int L0 = frame.getNewLabel();
     int L1 = frame.getNewLabel();
     emitLabel(L0);
     if(isMain) {
-      emit("new " + ClassName);
-      emit("dup");
-      emit("invokespecial " + ClassName + "/<init>()V");
-      emit("astore_1");
+      emit(JVM.NEW, ClassName);
+      emit(JVM.DUP);
+      emitInvoke(JVM.INVOKESPECIAL, ClassName, "<init>", "()V");
+      emit(JVM.ASTORE_1);
     }
     //x.tAST.accept(this);
     //x.idAST.accept(this);
     x.stmtAST.accept(this);
     emitLabel(L1);
-    if(isMain) {
+    if(isMain || x.tAST.id == Type.VOID) {
       emit(JVM.RETURN);
+    } else {
+      // A function whose last statement is not a return statement
+      // must not fall off the end of its code. Return the default value
+      // (dropped from the class file if unreachable):
+      emitDefaultValue(x.tAST);
+      emitRETURN(x.tAST);
     }
-    emit(".limit locals " + frame.getNewLocalVarIndex());
-    emit(".limit stack " + MaxOperandStackSize);
-    indent--;
-    emit(".end method");
+    method.maxLocals = frame.getNewLocalVarIndex();
+    endMethod();
     GlobalScope = true;
     isMain = false;
   }
@@ -520,23 +568,24 @@ public class Emitter implements Visitor {
   }
 
   public void visit(FormalParamDecl x) {
-    //emit("; FormalParamDecl");
-    //TBD: here you need to allocate a new local variable index to the
-    //     formal parameter.
-    //     Relevant: x.index, frame.getNewLocalVarIndex();
-
-
-
+    //emitComment("FormalParamDecl");
+    x.index = frame.getNewLocalVarIndex();
   }
 
   public void visit(FormalParamDeclSequence x) {
-    //emit("; FormalParamDeclSequence");
+    //emitComment("FormalParamDeclSequence");
     x.lAST.accept(this);
     x.rAST.accept(this);
   }
 
+  public void visit(FormalParamDeclList x) {
+    for (Decl D : x.elements) {
+      D.accept(this);
+    }
+  }
+
   public void visit(EmptyFormalParamDecl x) {
-    //emit("; EmptyFormalParamDecl");
+    //emitComment("EmptyFormalParamDecl");
   }
 
   public void visit(StmtSequence x) {
@@ -544,124 +593,106 @@ public class Emitter implements Visitor {
     x.s2AST.accept(this);
   }
 
+  public void visit(StmtList x) {
+    for (Stmt S : x.elements) {
+      S.accept(this);
+    }
+  }
+
   public void visit(AssignStmt x) {
-    emit("; AssignStmt, line " + x.pos.StartLine);
+    emitComment("AssignStmt, line ", x.getLine());
     //x.lAST.accept(this);
     x.rAST.accept(this);
     if (x.lAST instanceof VarExpr) {
       VarExpr V = (VarExpr) x.lAST;
-      Decl D = (Decl) V.Ident.declAST; 
+      Decl D = (Decl) V.Ident.declAST;
       Type T = typeOfDecl(D);
-      //TBD: here you have to distinguish between local and global MiniC variables.
-      //     Local variables are kept in the JVM's local variable array.
-      //     Global variables are kept as static JVM class variables.
-      //     The code for the right-hand side of the assignment statement has already
-      //     been generated by the x.rAST.accept(). Now the result of the right-hand side
-      //     of the expression needs to be written back from the stack to the left-hand
-      //     side variable.
-      //
-      //     Relevant functions: isGlobal()
-      //                         emitStaticVariableReference()
-      //                         emitISTORE()
-      //                         emitFSTORE()
-      //
-      // // if(D.isGlobal()) {
-      //   // int L0 = frame.getNewLabel();
-      //   emit("bipush", L0);
-      // // }
-      // emitStaticVariableReference(V.Ident, T, true);
-
-
-      
-      
-
-      int L0 = frame.getNewLabel();
-      // int L1 = frame.getNewLabel();
-
-      // emitILOAD(L0);
-      // emitILOAD(L1);
-
-      if (T.Tequal(StdEnvironment.intType)) {
-        emitISTORE(L0);
+      // Local variables are kept in the JVM's local variable array.
+      // Global variables are kept as static JVM class variables.
+      if(D.isGlobal()) {
+        emitStaticVariableReference(V.Ident, T, true);
       } else {
-        emitFSTORE(L0);
+        emitLocalVariableStore(D, T);
       }
-      
-
     } else {
       assert(false); // Arrays not implemented.
     }
   }
 
   public void visit(IfStmt x) {
-    emit("; IfStmt, line " + x.pos.StartLine);
+    emitComment("IfStmt, line ", x.getLine());
     // The following code evaluates the condition of the if statement.
     // After execution of this code, the stack will contain 0 if the condition
     // evaluated to false, and 1 if the condition evaluated to true.
-    // You should apply the template for if statements from the lecture slides.
-    int L1 = frame.getNewLabel();
-    int L2 = frame.getNewLabel();
-    emitILOAD(L1);
+    //
+    //     [[ E ]]
+    //     ifeq L1
+    //     [[ S1 ]] ; code for ``then'' branch
+    //     goto L2
+    // L1:
+    //     [[ S2 ]] ; code for ``else'' branch
+    // L2:
     x.eAST.accept(this);
     // Allocate 2 new labels for this if statement.
-    
-    //TBD: your code goes here...
-
-    /*
-        [[ E ]]
-        ifeq L1
-        [[ S1 ]] ; code for ``then'' branch
-        goto L2
-    L1:
-    [[ S2 ]] ; code for ``else'' branch
-    L2:
-    */
-    emitILOAD(L2);
-
+    int L1 = frame.getNewLabel();
+    int L2 = frame.getNewLabel();
+    emitBranch(JVM.IFEQ, L1);
     x.thenAST.accept(this);
-    // emit(JVM.IF_ICMPNE);
-
-    // emit(JVM.GOTO);
-
-    //TBD: your code goes here...
+    emitBranch(JVM.GOTO, L2);
+    emitLabel(L1);
     if(x.elseAST != null) {
       x.elseAST.accept(this);
     }
-    //TBD: your code goes here...
-
+    emitLabel(L2);
   }
 
   public void visit(WhileStmt x) {
-    emit("; WhileStmt, line " + x.pos.StartLine);
-    // You should apply the template for while loops from the lecture slides.
-    // TBD:
-    
-
+    emitComment("WhileStmt, line ", x.getLine());
+    //
+    // L1:
+    //     [[ E ]]
+    //     ifeq L2
+    //     [[ S ]]
+    //     goto L1
+    // L2:
     int L1 = frame.getNewLabel();
     int L2 = frame.getNewLabel();
-
     emitLabel(L1);
-    emitILOAD(L1);
     x.eAST.accept(this);
-    
-
+    emitBranch(JVM.IFEQ, L2);
     x.stmtAST.accept(this);
+    emitBranch(JVM.GOTO, L1);
     emitLabel(L2);
-
   }
 
   public void visit(ForStmt x) {
-    emit ("; ForStmt, line " + x.pos.StartLine);
-    // No template was given for "for" loops, but you can find out by compiling
-    // a Java "for" loop to bytecode, use "classfileanalyzer" and look how it
-    // is done there.  Using the classfileanalyzer is described in the
-    // Assignment 5 spec.
-    // TBD:
-
+    emitComment("ForStmt, line ", x.getLine());
+    // for (E1; E2; E3) S:
+    //
+    //     [[ E1 ]]
+    // L1:
+    //     [[ E2 ]] ; omitted together with the ifeq if E2 is empty
+    //     ifeq L2
+    //     [[ S ]]
+    //     [[ E3 ]]
+    //     goto L1
+    // L2:
+    int L1 = frame.getNewLabel();
+    int L2 = frame.getNewLabel();
+    emitDiscardedExpr(x.e1AST);
+    emitLabel(L1);
+    if (!(x.e2AST instanceof EmptyExpr)) {
+      x.e2AST.accept(this);
+      emitBranch(JVM.IFEQ, L2);
+    }
+    x.stmtAST.accept(this);
+    emitDiscardedExpr(x.e3AST);
+    emitBranch(JVM.GOTO, L1);
+    emitLabel(L2);
   }
 
   public void visit(ReturnStmt x) {
-    emit("; ReturnStmt, line " + x.pos.StartLine);
+    emitComment("ReturnStmt, line ", x.getLine());
     x.eAST.accept(this); // visit even in "main", for possible side-effects
     if(isMain || x.eAST instanceof EmptyExpr) {
       emitRETURN(StdEnvironment.voidType);
@@ -676,16 +707,16 @@ public class Emitter implements Visitor {
   }
 
   public void visit(EmptyStmt x) {
-    //emit("; EmptyStmt");
+    //emitComment("EmptyStmt");
   }
 
   public void visit(EmptyCompoundStmt x) {
-    //emit("; EmptyCompoundStmt");
+    //emitComment("EmptyCompoundStmt");
   }
 
   public void visit(CallStmt x) {
-    emit("; CallStmt, line " + x.pos.StartLine);
-    x.eAST.accept(this);
+    emitComment("CallStmt, line ", x.getLine());
+    emitDiscardedExpr(x.eAST);
   }
 
   public void visit(VarDecl x) {
@@ -695,15 +726,19 @@ public class Emitter implements Visitor {
       // (early exit):
       return;
     }
-    //TBD: if this variable declaration declares a local variable, then
-    //     you have to allocate a new local variable index from "frame"
-    //     and assign it to x.index.
-    //     Relevant functions:
-    //                        frame.getNewLocalVarIndex
-    //                        x.tAST.accept(this);
-    //                        x.idAST.accept(this);
-    //                        x.eAST.accept(this);
-
+    // Local variable: allocate a new local variable index and
+    // initialize the variable. Without initializer, the variable is
+    // initialized to its default value like global variables; the JVM
+    // verifier rejects reads of local variables that have not been
+    // written on every path.
+    x.index = frame.getNewLocalVarIndex();
+    Type T = typeOfDecl(x);
+    if (x.eAST instanceof EmptyExpr) {
+      emitDefaultValue(T);
+    } else {
+      x.eAST.accept(this);
+    }
+    emitLocalVariableStore(x, T);
   }
 
   public void visit(DeclSequence x){
@@ -717,6 +752,15 @@ public class Emitter implements Visitor {
     x.D2.accept(this);
   }
 
+  public void visit(DeclList x) {
+    for (Decl D : x.elements) {
+      if((D instanceof VarDecl) && GlobalScope) {
+        ((VarDecl) D).setGlobal();
+      }
+      D.accept(this);
+    }
+  }
+
   public void visit(VarExpr x) {
     //Here we are dealing with read-accesses of applied occurrences of variables.
     //Why only read-access? Basically, no left-hand side of an assignment statement
@@ -730,42 +774,39 @@ public class Emitter implements Visitor {
     //
     // Example2: foo(247+x)
     // "x" will be another VarExpr, again a read-access.
-    //
-    //What you should do:
-    // - if x is global, emit a static variable access to push the static
-    //   variable onto the stack.
-    // - if x is a local variable, you need to emit an ILOAD or an FLOAD,
-    //   depending on the type of variable (ILOAD for int and bool).
-    //     Relevant functions: isGlobal()
-    //                         emitStaticVariableReference()
-    //                         emitILOAD(), emitFLOAD()
     Decl D = (Decl) x.Ident.declAST;
     Type T = typeOfDecl (D);
-    //TBD: your code goes here...
-
+    if(D.isGlobal()) {
+      emitStaticVariableReference(x.Ident, T, false);
+      return;
+    }
+    switch (T.id) {
+      case Type.INT:
+      case Type.BOOL:
+        emitILOAD(D.index);
+        break;
+      case Type.FLOAT:
+        emitFLOAD(D.index);
+        break;
+      default:
+        assert(false);
+    }
   }
 
   public void visit(AssignExpr x) {
-    emit("; AssignExpr");
+    emitComment("AssignExpr");
     //x.lAST.accept(this);
     //x.rAST.accept(this);
     x.rAST.accept(this);
     if (x.lAST instanceof VarExpr) {
       VarExpr V = (VarExpr) x.lAST;
-      Decl D = (Decl) V.Ident.declAST; 
+      Decl D = (Decl) V.Ident.declAST;
       Type T = typeOfDecl(D);
       if(D.isGlobal()) {
         emitStaticVariableReference(V.Ident, typeOfDecl(V.Ident.declAST), true);
       } else {
-        if(T.Tequal(StdEnvironment.intType)
-            || T.Tequal(StdEnvironment.boolType)) {
-          emitISTORE(D.index);
-        } else if (T.Tequal(StdEnvironment.floatType)) {
-          emitFSTORE(D.index);
-        } else {
-          assert(false);
-        }
-      } 
+        emitLocalVariableStore(D, T);
+      }
     } else {
       assert(false); // Arrays not implemented.
     }
@@ -788,72 +829,119 @@ public class Emitter implements Visitor {
   }
 
   public void visit(ArrayExpr x) {
-    emit("; ArrayExpr");
+    emitComment("ArrayExpr");
     x.idAST.accept(this);
     x.indexAST.accept(this);
   }
 
-  public void visit(BinaryExpr x) {
-    //emit("; BinaryExpr");
-    String Op = new String(x.oAST.Lexeme);
-    if(Op.equals("&&")) {
-      int L1 = frame.getNewLabel();
-      int L2 = frame.getNewLabel();
-      //TBD: implement the code template for && short circuit evaluation
-      //     from the lecture slides.
-
-      x.lAST.accept (this); // emit code for left operand
-      x.rAST.accept (this); // emit code for right operand
-
-      if ((x.oAST.type.Tequal(StdEnvironment.intType) && Op.equals("+"))) {
-        emit(JVM.IADD);
-      } else if ((x.oAST.type.Tequal(StdEnvironment.intType) && Op.equals("-"))) {
-        emit(JVM.ISUB);
-      } else if ((x.oAST.type.Tequal(StdEnvironment.intType) && Op.equals("*"))) {
-        emit(JVM.IMUL);
-      } else if ((x.oAST.type.Tequal(StdEnvironment.intType) && Op.equals("/"))) {
-        emit(JVM.IDIV);
-
-      }
-
-      if ((x.oAST.type.Tequal(StdEnvironment.floatType) && Op.equals("+"))) {
-        emit(JVM.FADD);
-      } else if ((x.oAST.type.Tequal(StdEnvironment.floatType) && Op.equals("-"))) {
-        emit(JVM.FSUB);
-      } else if ((x.oAST.type.Tequal(StdEnvironment.floatType) && Op.equals("*"))) {
-        emit(JVM.FMUL);
-      } else if ((x.oAST.type.Tequal(StdEnvironment.floatType) && Op.equals("/"))) {
-        emit(JVM.FDIV);
-      }
+  // The instructions for the operators, indexed by Operator.kind; 0 where
+  // an operator has no such instruction:
+  private final static int[] IntOp = {
+      JVM.IADD, JVM.ISUB, JVM.IMUL, JVM.IDIV, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+  private final static int[] FloatOp = {
+      JVM.FADD, JVM.FSUB, JVM.FMUL, JVM.FDIV, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
+  // Conditional branch for an int (or bool) comparison:
+  private final static int[] IntBranch = {
+      0, 0, 0, 0, JVM.IF_ICMPLT, JVM.IF_ICMPLE, JVM.IF_ICMPGT, JVM.IF_ICMPGE,
+      JVM.IF_ICMPEQ, JVM.IF_ICMPNE, 0, 0, 0, 0 };
+  // Conditional branch on the result of fcmpl/fcmpg:
+  private final static int[] FloatBranch = {
+      0, 0, 0, 0, JVM.IFLT, JVM.IFLE, JVM.IFGT, JVM.IFGE,
+      JVM.IFEQ, JVM.IFNE, 0, 0, 0, 0 };
+  // fcmpg pushes 1 if an operand is NaN, fcmpl pushes -1. Choose the one
+  // that makes the comparison false for NaN:
+  private final static int[] FloatCompare = {
+      0, 0, 0, 0, JVM.FCMPG, JVM.FCMPG, JVM.FCMPL, JVM.FCMPL,
+      JVM.FCMPL, JVM.FCMPL, 0, 0, 0, 0 };
 
-      return;
-    }
-    if(Op.equals("||")) {
-      //TBD: implement || short circuit evaluation.
-      //     Similar to &&, you may use a Java example to figure it out..
-
-      return;
+  public void visit(BinaryExpr x) {
+    //emitComment("BinaryExpr");
+    int L1, L2;
+    switch (x.oAST.kind) {
+      case Operator.AND:
+        //     [[ E1 ]]
+        //     ifeq L1
+        //     [[ E2 ]]
+        //     ifeq L1
+        //     iconst_1
+        //     goto L2
+        // L1:
+        //     iconst_0
+        // L2:
+        L1 = frame.getNewLabel();
+        L2 = frame.getNewLabel();
+        x.lAST.accept (this); // emit code for left operand
+        emitBranch(JVM.IFEQ, L1);
+        x.rAST.accept (this); // emit code for right operand
+        emitBranch(JVM.IFEQ, L1);
+        emitBCONST(true);
+        emitBranch(JVM.GOTO, L2);
+        emitLabel(L1);
+        emitBCONST(false);
+        emitLabel(L2);
+        return;
+      case Operator.OR:
+        // Dual to &&: jump to L1 as soon as an operand is true.
+        L1 = frame.getNewLabel();
+        L2 = frame.getNewLabel();
+        x.lAST.accept (this);
+        emitBranch(JVM.IFNE, L1);
+        x.rAST.accept (this);
+        emitBranch(JVM.IFNE, L1);
+        emitBCONST(false);
+        emitBranch(JVM.GOTO, L2);
+        emitLabel(L1);
+        emitBCONST(true);
+        emitLabel(L2);
+        return;
     }
     /*
      * Here we treat +, -, *, / >, >=, <, <=, ==, !=
-     * See the code templates in the lecture slides. Remaining cases are
-     * similar, you can check how the javac compiler does it.
      */
     x.lAST.accept(this);
     x.rAST.accept(this);
-    //TBD:
-
+    int kind = x.oAST.kind;
+    boolean isFloat = x.oAST.type.id == Type.FLOAT;
+    switch (kind) {
+      case Operator.PLUS:
+      case Operator.MINUS:
+      case Operator.TIMES:
+      case Operator.DIV:
+        emit(isFloat ? FloatOp[kind] : IntOp[kind]);
+        return;
+    }
+    // Relational operator:
+    //     [[ E1 ]]
+    //     [[ E2 ]]
+    //     if_icmpXX L1 ; fcmpl/fcmpg + ifXX for floats
+    //     iconst_0
+    //     goto L2
+    // L1:
+    //     iconst_1
+    // L2:
+    L1 = frame.getNewLabel();
+    L2 = frame.getNewLabel();
+    if (isFloat) {
+      emit(FloatCompare[kind]);
+      emitBranch(FloatBranch[kind], L1);
+    } else {
+      emitBranch(IntBranch[kind], L1);
+    }
+    emitBCONST(false);
+    emitBranch(JVM.GOTO, L2);
+    emitLabel(L1);
+    emitBCONST(true);
+    emitLabel(L2);
   }
 
   public void visit(UnaryExpr x) {
-    //emit("; UnaryExpr");
-    String Op = new String(x.oAST.Lexeme);
+    //emitComment("UnaryExpr");
     x.eAST.accept(this);
     // Here we treat the following cases:
-    //   unary "-": emit JVM.INEG for integers
+    //   unary "-": emit JVM.INEG for integers, JVM.FNEG for floats
     //   unary "+": do nothing
     //   "i2f": emit JVM.I2F instruction
-    //   "!": you can use the following code template:
+    //   "!": we use the following code template:
     //
     //    !E  =>    [[E]]
     //              ifne Label1
@@ -862,47 +950,63 @@ public class Emitter implements Visitor {
     //           Label1:
     //              iconst_0
     //           Label2:
-    //TBD:
-    // emitICONST(1);
-    // emitBCONST(true);
-    int L1 = frame.getNewLabel();
-    int L2 = frame.getNewLabel();
-
-    if (Op.equals("-")) {
-      emitBCONST(false);
-      emit(JVM.INEG);
+    switch (x.oAST.kind) {
+      case Operator.MINUS:
+        if (x.oAST.type.id == Type.FLOAT) {
+          emit(JVM.FNEG);
+        } else {
+          emit(JVM.INEG);
+        }
+        break;
+      case Operator.I2F:
+        emit(JVM.I2F);
+        break;
+      case Operator.NOT:
+        int L1 = frame.getNewLabel();
+        int L2 = frame.getNewLabel();
+        emitBranch(JVM.IFNE, L1);
+        emitBCONST(true);
+        emitBranch(JVM.GOTO, L2);
+        emitLabel(L1);
+        emitBCONST(false);
+        emitLabel(L2);
+        break;
     }
-    
-    
-
   }
 
   public void visit(EmptyExpr x) {
-    // emit("; EmptyExpr");
+    // emitComment("EmptyExpr");
   }
 
   public void visit(ActualParam x) {
-    emit("; ActualParam");
+    emitComment("ActualParam");
     x.pAST.accept(this);
   }
 
   public void visit(EmptyActualParam x) {
-    // emit("; EmptyActualParam");
+    // emitComment("EmptyActualParam");
   }
 
   public void visit(ActualParamSequence x) {
-    // emit("; ActualParamSequence");
+    // emitComment("ActualParamSequence");
     x.lAST.accept(this);
     x.rAST.accept(this);
   }
 
+  public void visit(ActualParamList x) {
+    // emitComment("ActualParamList");
+    for (Expr E : x.elements) {
+      E.accept(this);
+    }
+  }
+
   public void visit(CallExpr x) {
-    emit("; CallExpr");
+    emitComment("CallExpr");
     //x.idAST.accept(this);
     assert(x.idAST.declAST instanceof FunDecl);
     FunDecl F = (FunDecl )x.idAST.declAST;
     if(!isStaticMethod(F)) {
-      emit("; \"this\"-pointer is the first ActualParam with instance methods:");
+      emitComment("\"this\"-pointer is the first ActualParam with instance methods:");
       if(isMain)
         emit(JVM.ALOAD_1);
       else
@@ -910,79 +1014,81 @@ public class Emitter implements Visitor {
     }
     x.paramAST.accept(this);
     if(isStaticMethod(F)) {
-      emit(JVM.INVOKESTATIC + " lang/System/" +
-          x.idAST.Lexeme + getDescriptor(F));
+      emitInvoke(JVM.INVOKESTATIC, "lang/System", x.idAST.Lexeme,
+          getDescriptor(F));
     } else {
-      //TBD: in case of an instance method, you need emit an JVM.INVOKEVIRTUAL instruction.
-      //     the name of the function consists of <ClassName>/<functionname><functiondescriptor>.
-      //      Relevant variables/functions: see above for static methods.
-
+      emitInvoke(JVM.INVOKEVIRTUAL, ClassName, x.idAST.Lexeme,
+          getDescriptor(F));
     }
   }
 
   public void visit(ExprSequence x) {
-    // emit("; ExprSequence");
+    // emitComment("ExprSequence");
     x.lAST.accept(this);
     x.rAST.accept(this);
   }
 
+  public void visit(ExprList x) {
+    // emitComment("ExprList");
+    for (Expr E : x.elements) {
+      E.accept(this);
+    }
+  }
+
   public void visit(ID x) {
-    // emit("; ID: " + x.Lexeme);
+    // emitComment("ID: " + x.Lexeme);
   }
 
   public void visit(Operator x) {
-    // emit("; Operator: " + x.Lexeme);
-  } 
+    // emitComment("Operator: " + x.Lexeme);
+  }
 
   public void visit(IntLiteral x) {
-    //emit("; IntLiteral: " + x.Lexeme + "\n");
-    //: here you have to emit an ICONST instruction to load the integer literal
-    //     onto the JVM stack. (see emitICONST).
+    //emitComment("IntLiteral: " + x.Lexeme);
     emitICONST(Integer.parseInt(x.Lexeme));
-  } 
+  }
 
   public void visit(FloatLiteral x) {
-    //emit("; FloatLiteral: " + x.Lexeme + "\n");
-    //: same for float
-    emitICONST(Integer.parseInt(x.Lexeme));
-  } 
+    //emitComment("FloatLiteral: " + x.Lexeme);
+    emitFCONST(Float.parseFloat(x.Lexeme));
+  }
 
   public void visit(BoolLiteral x) {
-    //emit("; BoolLiteral: " + x.Lexeme + "\n");
-    //TBD: and bool...
-  } 
+    //emitComment("BoolLiteral: " + x.Lexeme);
+    emitBCONST(x.Lexeme.equals("true"));
+  }
 
   public void visit(StringLiteral x) {
-    //emit("; StringLiteral: " + x.Lexeme);
-    emit(JVM.LDC + " \"" + x.Lexeme +"\"");
-  } 
+    //emitComment("StringLiteral: " + x.Lexeme);
+    method.code.addString(JVM.LDC, x.Lexeme);
+  }
 
   public void visit(IntType x) {
-    //emit("; IntType");
+    //emitComment("IntType");
   }
 
   public void visit(FloatType x) {
-    //emit("; FloatType");
+    //emitComment("FloatType");
   }
 
   public void visit(BoolType x) {
-    //emit("; BoolType");
+    //emitComment("BoolType");
   }
 
   public void visit(StringType x) {
-    //emit("; StringType");
+    //emitComment("StringType");
   }
 
   public void visit(VoidType x) {
-    //emit("; VoidType");
+    //emitComment("VoidType");
   }
 
   public void visit(ArrayType x) {
-    //emit("; ArrayType");
+    //emitComment("ArrayType");
   }
 
   public void visit(ErrorType x) {
-    emit("; ErrorType");
+    emitComment("ErrorType");
     assert(false);
   }
 
@@ -30,6 +30,9 @@ public class Frame {
     return LabelNr;
   } 
 
+  // Every local variable gets a new index; with optimization, the
+  // LocalAllocator reuses the slots of variables that are not live at
+  // the same time.
   public int getNewLocalVarIndex() {
     LocalVarNr++;
     return LocalVarNr;
@@ -1,77 +1,294 @@
 package MiniC.CodeGen;
 
+// The JVM instructions used by the code generator, as opcodes. The
+// Jasmin mnemonic of an opcode is mnemonic(op).
+
 public class JVM {
 
-  public static final String ICONST_M1 = new String("iconst_m1");
-  public static final String ICONST = new String("iconst");
-  public static final String ICONST_0 = new String("iconst_0");
-  public static final String ICONST_1 = new String("iconst_1");
-  public static final String ILOAD = new String("iload");
-  public static final String ILOAD_0 = new String("iload_0");
-  public static final String ILOAD_1 = new String("iload_1");
-  public static final String ILOAD_2 = new String("iload_2");
-  public static final String ILOAD_3 = new String("iload_3");
-  public static final String ISTORE = new String("istore");
-  public static final String ISTORE_0 = new String("istore_0");
-  public static final String ISTORE_1 = new String("istore_1");
-  public static final String ISTORE_2 = new String("istore_2");
-  public static final String ISTORE_3 = new String("istore_3");
-  public static final String BIPUSH = new String("bipush");
-  public static final String SIPUSH = new String("sipush");
-  public static final String LDC = new String("ldc");
-  public static final String FCONST_0 = new String("fconst_0");
-  public static final String FCONST_1 = new String("fconst_1");
-  public static final String FCONST_2 = new String("fconst_2");
-  public static final String FLOAD = new String("fload");
-  public static final String FLOAD_0 = new String("fload_0");
-  public static final String FLOAD_1 = new String("fload_1");
-  public static final String FLOAD_2 = new String("fload_2");
-  public static final String FLOAD_3 = new String("fload_3");
-  public static final String FSTORE = new String("fstore");
-  public static final String FSTORE_0 = new String("fstore_0");
-  public static final String FSTORE_1 = new String("fstore_1");
-  public static final String FSTORE_2 = new String("fstore_2");
-  public static final String FSTORE_3 = new String("fstore_3");
-  public static final String ALOAD = new String("aload");
-  public static final String ALOAD_0 = new String("aload_0");
-  public static final String ALOAD_1 = new String("aload_1");
-  public static final String ALOAD_2 = new String("aload_2");
-  public static final String ALOAD_3 = new String("aload_3");
-  public static final String ASTORE = new String("astore");
-  public static final String ASTORE_0 = new String("astore_0");
-  public static final String ASTORE_1 = new String("astore_1");
-  public static final String ASTORE_2 = new String("astore_2");
-  public static final String ASTORE_3 = new String("astore_3");
-  public static final String IADD = new String("iadd");
-  public static final String ISUB = new String("isub");
-  public static final String IMUL = new String("imul");
-  public static final String IDIV = new String("idiv");
-  public static final String INEG= new String("ineg"); // x = -x
-  public static final String FADD = new String("fadd");
-  public static final String FSUB = new String("fsub");
-  public static final String FMUL = new String("fmul");
-  public static final String FDIV = new String("fdiv");
-  public static final String FNEG= new String("fneg"); // x = -x
-  public static final String RETURN = new String("return");
-  public static final String IRETURN = new String("ireturn");
-  public static final String FRETURN = new String("freturn");
-  public static final String PUTSTATIC = new String("putstatic");
-  public static final String GETSTATIC = new String("getstatic");
-  public static final String INVOKESTATIC = new String("invokestatic");
-  public static final String INVOKEVIRTUAL = new String("invokevirtual");
-  public static final String GOTO = new String("goto");
-  public static final String IFEQ = new String("ifeq");
-  public static final String IFNE = new String("ifne");
-  public static final String IFLT = new String("iflt");
-  public static final String IFLE = new String("ifle");
-  public static final String IFGT = new String("ifgt");
-  public static final String IFGE = new String("ifge");
-  public static final String IF_ICMPEQ = new String("if_icmpeq");
-  public static final String IF_ICMPNE = new String("if_icmpne");
-  public static final String IF_ICMPLT = new String("if_icmplt");
-  public static final String IF_ICMPLE = new String("if_icmple");
-  public static final String IF_ICMPGT = new String("if_icmpgt");
-  public static final String IF_ICMPGE = new String("if_icmpge");
-  public static final String I2F = new String("i2f");
+  public static final int NOP = 0x00;
+  public static final int ICONST_M1 = 0x02;
+  public static final int ICONST_0 = 0x03;
+  public static final int ICONST_1 = 0x04;
+  public static final int ICONST_2 = 0x05;
+  public static final int ICONST_3 = 0x06;
+  public static final int ICONST_4 = 0x07;
+  public static final int ICONST_5 = 0x08;
+  public static final int ILOAD = 0x15;
+  public static final int ILOAD_0 = 0x1a;
+  public static final int ILOAD_1 = 0x1b;
+  public static final int ILOAD_2 = 0x1c;
+  public static final int ILOAD_3 = 0x1d;
+  public static final int ISTORE = 0x36;
+  public static final int ISTORE_0 = 0x3b;
+  public static final int ISTORE_1 = 0x3c;
+  public static final int ISTORE_2 = 0x3d;
+  public static final int ISTORE_3 = 0x3e;
+  public static final int BIPUSH = 0x10;
+  public static final int SIPUSH = 0x11;
+  public static final int LDC = 0x12;
+  public static final int LDC_W = 0x13;
+  public static final int FCONST_0 = 0x0b;
+  public static final int FCONST_1 = 0x0c;
+  public static final int FCONST_2 = 0x0d;
+  public static final int FLOAD = 0x17;
+  public static final int FLOAD_0 = 0x22;
+  public static final int FLOAD_1 = 0x23;
+  public static final int FLOAD_2 = 0x24;
+  public static final int FLOAD_3 = 0x25;
+  public static final int FSTORE = 0x38;
+  public static final int FSTORE_0 = 0x43;
+  public static final int FSTORE_1 = 0x44;
+  public static final int FSTORE_2 = 0x45;
+  public static final int FSTORE_3 = 0x46;
+  public static final int ALOAD = 0x19;
+  public static final int ALOAD_0 = 0x2a;
+  public static final int ALOAD_1 = 0x2b;
+  public static final int ALOAD_2 = 0x2c;
+  public static final int ALOAD_3 = 0x2d;
+  public static final int ASTORE = 0x3a;
+  public static final int ASTORE_0 = 0x4b;
+  public static final int ASTORE_1 = 0x4c;
+  public static final int ASTORE_2 = 0x4d;
+  public static final int ASTORE_3 = 0x4e;
+  public static final int IADD = 0x60;
+  public static final int ISUB = 0x64;
+  public static final int IMUL = 0x68;
+  public static final int IDIV = 0x6c;
+  public static final int INEG = 0x74; // x = -x
+  public static final int FADD = 0x62;
+  public static final int FSUB = 0x66;
+  public static final int FMUL = 0x6a;
+  public static final int FDIV = 0x6e;
+  public static final int FNEG = 0x76; // x = -x
+  public static final int RETURN = 0xb1;
+  public static final int IRETURN = 0xac;
+  public static final int FRETURN = 0xae;
+  public static final int PUTSTATIC = 0xb3;
+  public static final int GETSTATIC = 0xb2;
+  public static final int INVOKESTATIC = 0xb8;
+  public static final int INVOKEVIRTUAL = 0xb6;
+  public static final int GOTO = 0xa7;
+  public static final int IFEQ = 0x99;
+  public static final int IFNE = 0x9a;
+  public static final int IFLT = 0x9b;
+  public static final int IFLE = 0x9e;
+  public static final int IFGT = 0x9d;
+  public static final int IFGE = 0x9c;
+  public static final int IF_ICMPEQ = 0x9f;
+  public static final int IF_ICMPNE = 0xa0;
+  public static final int IF_ICMPLT = 0xa1;
+  public static final int IF_ICMPLE = 0xa4;
+  public static final int IF_ICMPGT = 0xa3;
+  public static final int IF_ICMPGE = 0xa2;
+  public static final int I2F = 0x86;
+  public static final int FCMPL = 0x95;
+  public static final int FCMPG = 0x96;
+  public static final int POP = 0x57;
+  public static final int DUP = 0x59;
+  public static final int NEW = 0xbb;
+  public static final int INVOKESPECIAL = 0xb7;
+  public static final int WIDE = 0xc4;
+
+  private static final String[] mnemonics = new String[256];
+
+  private static void mnemonic(int op, String mnemonic) {
+    mnemonics[op] = mnemonic;
+  }
+
+  static {
+    mnemonic(NOP, "nop");
+    mnemonic(ICONST_M1, "iconst_m1");
+    mnemonic(ICONST_0, "iconst_0");
+    mnemonic(ICONST_1, "iconst_1");
+    mnemonic(ICONST_2, "iconst_2");
+    mnemonic(ICONST_3, "iconst_3");
+    mnemonic(ICONST_4, "iconst_4");
+    mnemonic(ICONST_5, "iconst_5");
+    mnemonic(ILOAD, "iload");
+    mnemonic(ILOAD_0, "iload_0");
+    mnemonic(ILOAD_1, "iload_1");
+    mnemonic(ILOAD_2, "iload_2");
+    mnemonic(ILOAD_3, "iload_3");
+    mnemonic(ISTORE, "istore");
+    mnemonic(ISTORE_0, "istore_0");
+    mnemonic(ISTORE_1, "istore_1");
+    mnemonic(ISTORE_2, "istore_2");
+    mnemonic(ISTORE_3, "istore_3");
+    mnemonic(BIPUSH, "bipush");
+    mnemonic(SIPUSH, "sipush");
+    mnemonic(LDC, "ldc");
+    mnemonic(LDC_W, "ldc_w");
+    mnemonic(FCONST_0, "fconst_0");
+    mnemonic(FCONST_1, "fconst_1");
+    mnemonic(FCONST_2, "fconst_2");
+    mnemonic(FLOAD, "fload");
+    mnemonic(FLOAD_0, "fload_0");
+    mnemonic(FLOAD_1, "fload_1");
+    mnemonic(FLOAD_2, "fload_2");
+    mnemonic(FLOAD_3, "fload_3");
+    mnemonic(FSTORE, "fstore");
+    mnemonic(FSTORE_0, "fstore_0");
+    mnemonic(FSTORE_1, "fstore_1");
+    mnemonic(FSTORE_2, "fstore_2");
+    mnemonic(FSTORE_3, "fstore_3");
+    mnemonic(ALOAD, "aload");
+    mnemonic(ALOAD_0, "aload_0");
+    mnemonic(ALOAD_1, "aload_1");
+    mnemonic(ALOAD_2, "aload_2");
+    mnemonic(ALOAD_3, "aload_3");
+    mnemonic(ASTORE, "astore");
+    mnemonic(ASTORE_0, "astore_0");
+    mnemonic(ASTORE_1, "astore_1");
+    mnemonic(ASTORE_2, "astore_2");
+    mnemonic(ASTORE_3, "astore_3");
+    mnemonic(IADD, "iadd");
+    mnemonic(ISUB, "isub");
+    mnemonic(IMUL, "imul");
+    mnemonic(IDIV, "idiv");
+    mnemonic(INEG, "ineg");
+    mnemonic(FADD, "fadd");
+    mnemonic(FSUB, "fsub");
+    mnemonic(FMUL, "fmul");
+    mnemonic(FDIV, "fdiv");
+    mnemonic(FNEG, "fneg");
+    mnemonic(RETURN, "return");
+    mnemonic(IRETURN, "ireturn");
+    mnemonic(FRETURN, "freturn");
+    mnemonic(PUTSTATIC, "putstatic");
+    mnemonic(GETSTATIC, "getstatic");
+    mnemonic(INVOKESTATIC, "invokestatic");
+    mnemonic(INVOKEVIRTUAL, "invokevirtual");
+    mnemonic(GOTO, "goto");
+    mnemonic(IFEQ, "ifeq");
+    mnemonic(IFNE, "ifne");
+    mnemonic(IFLT, "iflt");
+    mnemonic(IFLE, "ifle");
+    mnemonic(IFGT, "ifgt");
+    mnemonic(IFGE, "ifge");
+    mnemonic(IF_ICMPEQ, "if_icmpeq");
+    mnemonic(IF_ICMPNE, "if_icmpne");
+    mnemonic(IF_ICMPLT, "if_icmplt");
+    mnemonic(IF_ICMPLE, "if_icmple");
+    mnemonic(IF_ICMPGT, "if_icmpgt");
+    mnemonic(IF_ICMPGE, "if_icmpge");
+    mnemonic(I2F, "i2f");
+    mnemonic(FCMPL, "fcmpl");
+    mnemonic(FCMPG, "fcmpg");
+    mnemonic(POP, "pop");
+    mnemonic(DUP, "dup");
+    mnemonic(NEW, "new");
+    mnemonic(INVOKESPECIAL, "invokespecial");
+    mnemonic(WIDE, "wide");
+  }
+
+  // Returns the Jasmin mnemonic of opcode op:
+  public static String mnemonic(int op) {
+    assert (mnemonics[op] != null) : "unknown JVM opcode " + op;
+    return mnemonics[op];
+  }
+
+  // Loads and stores of local variables: the long forms (iload n) and
+  // the short forms (iload_0 ... iload_3) of each type.
+
+  public static boolean isLoad(int op) {
+    return op == ILOAD || op == FLOAD || op == ALOAD
+        || (op >= ILOAD_0 && op <= ALOAD_3);
+  }
+
+  public static boolean isStore(int op) {
+    return op == ISTORE || op == FSTORE || op == ASTORE
+        || (op >= ISTORE_0 && op <= ASTORE_3);
+  }
+
+  // The type of the local variable of a load or store: 'I', 'F' or 'A'.
+  public static char localType(int op) {
+    assert (isLoad(op) || isStore(op));
+    if (op == ILOAD || op == ISTORE) {
+      return 'I';
+    } else if (op == FLOAD || op == FSTORE) {
+      return 'F';
+    } else if (op == ALOAD || op == ASTORE) {
+      return 'A';
+    }
+    // The short forms come in groups of four per type, in the order
+    // int, long, float, double, reference:
+    int base = op >= ISTORE_0 ? ISTORE_0 : ILOAD_0;
+    return "IJFDA".charAt((op - base) / 4);
+  }
+
+  // The local variable index of a short form load or store (iload_2: 2):
+  public static int implicitIndex(int op) {
+    int base = op >= ISTORE_0 ? ISTORE_0 : ILOAD_0;
+    return (op - base) % 4;
+  }
+
+  // The long form of a load or store: longForm(ILOAD_2) is ILOAD.
+  public static int longForm(int op) {
+    boolean store = isStore(op);
+    switch (localType(op)) {
+      case 'I':
+        return store ? ISTORE : ILOAD;
+      case 'F':
+        return store ? FSTORE : FLOAD;
+      default:
+        return store ? ASTORE : ALOAD;
+    }
+  }
+
+  // The short form of a load or store for local variable index 0 ... 3:
+  // shortForm(ILOAD, 2) is ILOAD_2.
+  public static int shortForm(int op, int index) {
+    assert (index >= 0 && index <= 3);
+    boolean store = isStore(op);
+    switch (localType(op)) {
+      case 'I':
+        return (store ? ISTORE_0 : ILOAD_0) + index;
+      case 'F':
+        return (store ? FSTORE_0 : FLOAD_0) + index;
+      default:
+        return (store ? ASTORE_0 : ALOAD_0) + index;
+    }
+  }
+
+  // The change of the operand stack height by an instruction; not for
+  // field and method references, which depend on the descriptor:
+  public static int stackDelta(int op) {
+    if (isLoad(op)) {
+      return 1;
+    } else if (isStore(op)) {
+      return -1;
+    }
+    switch (op) {
+      case ICONST_M1: case ICONST_0: case ICONST_1: case ICONST_2:
+      case ICONST_3: case ICONST_4: case ICONST_5:
+      case FCONST_0: case FCONST_1: case FCONST_2:
+      case BIPUSH: case SIPUSH: case LDC: case LDC_W:
+      case DUP: case NEW:
+        return 1;
+      case IADD: case ISUB: case IMUL: case IDIV:
+      case FADD: case FSUB: case FMUL: case FDIV:
+      case FCMPL: case FCMPG:
+      case POP:
+      case IFEQ: case IFNE: case IFLT: case IFLE: case IFGT: case IFGE:
+      case IRETURN: case FRETURN:
+        return -1;
+      case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT: case IF_ICMPLE:
+      case IF_ICMPGT: case IF_ICMPGE:
+        return -2;
+      case NOP: case INEG: case FNEG: case I2F: case GOTO: case RETURN:
+        return 0;
+      default:
+        assert(false) : "no stack delta for " + mnemonic(op);
+        return 0;
+    }
+  }
+
+  public static boolean isReturn(int op) {
+    return op == RETURN || op == IRETURN || op == FRETURN;
+  }
+
+  public static boolean isConditionalBranch(int op) {
+    return op >= IFEQ && op <= IF_ICMPLE;
+  }
 
 }
@@ -0,0 +1,220 @@
+package MiniC.CodeGen;
+
+import java.io.*;
+
+// Writes a ClassDef as Jasmin assembly code. The output can be assembled
+// with jasmin.jar; it is mainly useful for debugging the code generator.
+//
+// Every line is assembled in a char buffer that is reused for all lines,
+// and written with a single write() call; the instructions are written
+// without building strings.
+
+public class JasminWriter {
+
+  private Writer out;
+  private char[] line; // the line being assembled
+  private int length;
+  private int indent;
+
+  // The indentation of the levels, three blanks per level:
+  private final static String[] Indent = { "", "   " };
+  private final static String LabelIndent = "  ";
+
+  public JasminWriter() {
+    line = new char[128];
+  }
+
+  public void write(ClassDef c, String outfile) throws IOException {
+    Writer w = new BufferedWriter(new FileWriter(outfile));
+    try {
+      write(c, w);
+    } finally {
+      w.close();
+    }
+  }
+
+  // Returns the Jasmin code for c as a string:
+  public String toText(ClassDef c) {
+    StringWriter w = new StringWriter();
+    try {
+      write(c, w);
+    } catch (IOException e) {
+      assert(false); // cannot happen with a StringWriter
+    }
+    return w.toString();
+  }
+
+  public void write(ClassDef c, Writer w) throws IOException {
+    out = w;
+    indent = 0;
+    emit("; Jassmin assembly code");
+    emit("; MiniC v. 1.0");
+    begin();
+    append(".class public ").append(c.name);
+    end();
+    begin();
+    append(".super ").append(c.superName);
+    end();
+    for (int i = 0; i < c.fieldNames.size(); i++) {
+      begin();
+      append(".field static ").append(c.fieldNames.get(i)).append(' ')
+          .append(c.fieldDescriptors.get(i));
+      end();
+    }
+    for (Method m : c.methods) {
+      writeMethod(m);
+    }
+    out.flush();
+  }
+
+  private void writeMethod(Method m) throws IOException {
+    begin();
+    append("\n.method ");
+    if ((m.access & Method.ACC_PUBLIC) != 0) {
+      append("public ");
+    }
+    if (m.isStatic()) {
+      append("static ");
+    }
+    append(m.name).append(m.descriptor);
+    end();
+    indent++;
+    begin();
+    append(".limit stack ").append(m.maxStack);
+    end();
+    begin();
+    append(".limit locals ").append(m.maxLocals);
+    end();
+    for (String d : m.directives) {
+      emit(d);
+    }
+    Code code = m.code;
+    for (int i = 0; i < code.size(); i++) {
+      writeInstruction(code, i);
+    }
+    indent--;
+    emit(".end method");
+  }
+
+  private void writeInstruction(Code code, int i) throws IOException {
+    if (code.kind(i) == Code.LABEL) {
+      emitLabel(code.arg(i));
+      return;
+    }
+    begin();
+    if (code.kind(i) == Code.COMMENT) {
+      append("; ").append(code.text(i));
+      if (code.arg(i) != Code.NONE) {
+        append(code.arg(i));
+      }
+      end();
+      return;
+    }
+    append(JVM.mnemonic(code.op(i)));
+    switch (code.kind(i)) {
+      case Code.PLAIN:
+        break;
+      case Code.INT:
+        append(' ').append(code.arg(i));
+        break;
+      case Code.FLOAT:
+        append(' ').append(Float.toString(code.floatArg(i)));
+        break;
+      case Code.STRING:
+        append(" \"").append(code.text(i)).append('"');
+        break;
+      case Code.BRANCH:
+        append(" Label").append(code.arg(i));
+        break;
+      case Code.FIELD:
+        append(' ').append(code.owner(i)).append('/').append(code.name(i))
+            .append(' ').append(code.descriptor(i));
+        break;
+      case Code.METHOD:
+        append(' ').append(code.owner(i)).append('/').append(code.name(i))
+            .append(code.descriptor(i));
+        break;
+      case Code.CLASS:
+        append(' ').append(code.text(i));
+        break;
+      default:
+        assert(false);
+    }
+    end();
+  }
+
+  // Emit a single string using indentation:
+  private void emit (String s) throws IOException {
+    begin();
+    append(s);
+    end();
+  }
+
+  // Emit the defining occurrence of a label:
+  private void emitLabel(int label) throws IOException {
+    assert(label >= 0);
+    length = 0;
+    append(LabelIndent).append("Label").append(label).append(':');
+    end();
+  }
+
+  //
+  // Assembling a line:
+  //
+
+  // Starts a new line with the current indentation:
+  private void begin() {
+    length = 0;
+    append(Indent[indent]);
+  }
+
+  // Ends the line and writes it:
+  private void end() throws IOException {
+    append('\n');
+    out.write(line, 0, length);
+  }
+
+  private void reserve(int n) {
+    if (length + n > line.length) {
+      line = java.util.Arrays.copyOf(line, Math.max(2 * line.length,
+          length + n));
+    }
+  }
+
+  private JasminWriter append(char c) {
+    reserve(1);
+    line[length++] = c;
+    return this;
+  }
+
+  private JasminWriter append(String s) {
+    int n = s.length();
+    reserve(n);
+    s.getChars(0, n, line, length);
+    length += n;
+    return this;
+  }
+
+  // Appends the decimal digits of n:
+  private JasminWriter append(int n) {
+    reserve(11);
+    if (n == Integer.MIN_VALUE) {
+      return append(Integer.toString(n));
+    }
+    if (n < 0) {
+      line[length++] = '-';
+      n = -n;
+    }
+    int digits = 1;
+    for (int p = n; p >= 10; p /= 10) {
+      digits++;
+    }
+    for (int d = length + digits - 1; d >= length; d--) {
+      line[d] = (char) ('0' + n % 10);
+      n /= 10;
+    }
+    length += digits;
+    return this;
+  }
+
+}
@@ -0,0 +1,311 @@
+package MiniC.CodeGen;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+// Allocates the JVM local variable slots of a method. The Emitter gives
+// every MiniC local variable a slot of its own (see Frame), so the frame
+// of a function grows with the number of declarations in all its
+// blocks. This pass lets variables share a slot if they are never live
+// at the same time:
+//
+//  1. The code is split into basic blocks, and the live variables at
+//     the end of every block are computed (backward data flow analysis).
+//  2. Two variables interfere if one is stored to while the other one
+//     is live.
+//  3. The variables are assigned slots in the order of their first
+//     occurrence, each the lowest slot that no interfering variable
+//     already has. Only variables of the same type (int/bool or float)
+//     share a slot, so a slot has the same type throughout the method.
+//
+// The slots of "this", the parameters and the object references (mc$
+// in main) are kept. Every local variable is stored to (initialized)
+// before it is read, so a variable is never live at the start of the
+// method.
+
+public class LocalAllocator {
+
+  private Code code;
+  private int nrVars;
+  private int[] varOf;   // slot -> variable, or -1 for a fixed slot
+  private char[] typeOf; // variable -> 'I' or 'F'
+
+  // The basic blocks: block b covers the elements from start[b] up to
+  // (excluding) start[b + 1].
+  private int nrBlocks;
+  private int[] start;
+  private int[] blockOf; // element -> block
+  private BitSet[] liveOut;
+
+  public void allocate(Method m) {
+    code = m.code;
+    if (!findVariables(m)) {
+      return;
+    }
+    findBlocks();
+    computeLiveness();
+    BitSet[] interference = interference();
+    assignSlots(m, interference);
+  }
+
+  // Numbers the variables in the order of their first occurrence.
+  // Returns false if there are none.
+  private boolean findVariables(Method m) {
+    int maxSlot = m.maxLocals;
+    for (int i = 0; i < code.size(); i++) {
+      if (isLocalAccess(i)) {
+        maxSlot = Math.max(maxSlot, code.localIndex(i) + 1);
+      }
+    }
+    varOf = new int[maxSlot];
+    for (int s = 0; s < firstLocal(m) && s < maxSlot; s++) {
+      varOf[s] = -1;
+    }
+    for (int i = 0; i < code.size(); i++) {
+      if (isLocalAccess(i) && JVM.localType(code.op(i)) == 'A') {
+        varOf[code.localIndex(i)] = -1;
+      }
+    }
+    typeOf = new char[maxSlot];
+    nrVars = 0;
+    for (int s = 0; s < maxSlot; s++) {
+      if (varOf[s] != -1) {
+        varOf[s] = -2; // not seen yet
+      }
+    }
+    for (int i = 0; i < code.size(); i++) {
+      if (!isLocalAccess(i)) {
+        continue;
+      }
+      int s = code.localIndex(i);
+      if (varOf[s] == -2) {
+        varOf[s] = nrVars;
+        typeOf[nrVars] = JVM.localType(code.op(i));
+        nrVars++;
+      }
+    }
+    return nrVars > 0;
+  }
+
+  // The first slot after "this" and the parameters:
+  private int firstLocal(Method m) {
+    String d = m.descriptor;
+    int slots = m.isStatic() ? 0 : 1;
+    int i = 1;
+    while (d.charAt(i) != ')') {
+      while (d.charAt(i) == '[') {
+        i++;
+      }
+      if (d.charAt(i) == 'L') {
+        i = d.indexOf(';', i);
+      }
+      i++;
+      slots++;
+    }
+    return slots;
+  }
+
+  private void findBlocks() {
+    int n = code.size();
+    boolean[] leader = new boolean[n + 1];
+    leader[0] = true;
+    leader[n] = true;
+    for (int i = 0; i < n; i++) {
+      if (code.kind(i) == Code.LABEL) {
+        leader[i] = true;
+      } else if (code.kind(i) == Code.BRANCH
+          || (code.kind(i) == Code.PLAIN && JVM.isReturn(code.op(i)))) {
+        leader[i + 1] = true;
+      }
+    }
+    ArrayList<Integer> starts = new ArrayList<Integer>();
+    blockOf = new int[n];
+    for (int i = 0; i < n; i++) {
+      if (leader[i]) {
+        starts.add(i);
+      }
+      blockOf[i] = starts.size() - 1;
+    }
+    nrBlocks = starts.size();
+    start = new int[nrBlocks + 1];
+    for (int b = 0; b < nrBlocks; b++) {
+      start[b] = starts.get(b);
+    }
+    start[nrBlocks] = n;
+  }
+
+  // The successor blocks of block b:
+  private int[] successors(int b, HashMap<Integer, Integer> labels) {
+    int last = start[b + 1] - 1;
+    boolean fallsThrough = b + 1 < nrBlocks;
+    int target = -1;
+    if (code.kind(last) == Code.BRANCH) {
+      target = blockOf[labels.get(code.arg(last))];
+      fallsThrough &= code.op(last) != JVM.GOTO;
+    } else if (code.kind(last) == Code.PLAIN
+        && JVM.isReturn(code.op(last))) {
+      fallsThrough = false;
+    }
+    if (target >= 0 && fallsThrough) {
+      return new int[] { target, b + 1 };
+    } else if (target >= 0) {
+      return new int[] { target };
+    } else if (fallsThrough) {
+      return new int[] { b + 1 };
+    }
+    return new int[0];
+  }
+
+  private void computeLiveness() {
+    HashMap<Integer, Integer> labels = new HashMap<Integer, Integer>();
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL) {
+        labels.put(code.arg(i), i);
+      }
+    }
+    int[][] succ = new int[nrBlocks][];
+    BitSet[] use = new BitSet[nrBlocks];
+    BitSet[] def = new BitSet[nrBlocks];
+    BitSet[] liveIn = new BitSet[nrBlocks];
+    liveOut = new BitSet[nrBlocks];
+    for (int b = 0; b < nrBlocks; b++) {
+      succ[b] = successors(b, labels);
+      use[b] = new BitSet(nrVars);
+      def[b] = new BitSet(nrVars);
+      for (int i = start[b]; i < start[b + 1]; i++) {
+        int v = variable(i);
+        if (v < 0) {
+          continue;
+        }
+        if (JVM.isLoad(code.op(i)) && !def[b].get(v)) {
+          use[b].set(v);
+        } else if (JVM.isStore(code.op(i))) {
+          def[b].set(v);
+        }
+      }
+      liveIn[b] = (BitSet) use[b].clone();
+      liveOut[b] = new BitSet(nrVars);
+    }
+    // Iterate backwards until nothing changes:
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int b = nrBlocks - 1; b >= 0; b--) {
+        BitSet out = liveOut[b];
+        for (int s : succ[b]) {
+          out.or(liveIn[s]);
+        }
+        BitSet in = (BitSet) out.clone();
+        in.andNot(def[b]);
+        in.or(use[b]);
+        if (!in.equals(liveIn[b])) {
+          liveIn[b] = in;
+          changed = true;
+        }
+      }
+    }
+  }
+
+  // Walks every block backwards from its live-out set; a store to v
+  // makes v interfere with all other variables live after it.
+  private BitSet[] interference() {
+    BitSet[] edges = new BitSet[nrVars];
+    for (int v = 0; v < nrVars; v++) {
+      edges[v] = new BitSet(nrVars);
+    }
+    for (int b = 0; b < nrBlocks; b++) {
+      BitSet live = (BitSet) liveOut[b].clone();
+      for (int i = start[b + 1] - 1; i >= start[b]; i--) {
+        int v = variable(i);
+        if (v < 0) {
+          continue;
+        }
+        if (JVM.isStore(code.op(i))) {
+          for (int u = live.nextSetBit(0); u >= 0;
+               u = live.nextSetBit(u + 1)) {
+            if (u != v) {
+              edges[v].set(u);
+              edges[u].set(v);
+            }
+          }
+          live.clear(v);
+        } else {
+          live.set(v);
+        }
+      }
+    }
+    return edges;
+  }
+
+  private void assignSlots(Method m, BitSet[] interference) {
+    int next = 0; // the first slot above all fixed ones
+    for (int s = 0; s < varOf.length; s++) {
+      if (varOf[s] == -1) {
+        next = s + 1;
+      }
+    }
+    next = Math.max(next, firstLocal(m));
+    int[] newSlot = new int[nrVars];
+    ArrayList<Integer> intSlots = new ArrayList<Integer>();
+    ArrayList<Integer> floatSlots = new ArrayList<Integer>();
+    BitSet taken = new BitSet();
+    for (int v = 0; v < nrVars; v++) {
+      taken.clear();
+      BitSet e = interference[v];
+      for (int u = e.nextSetBit(0); u >= 0 && u < v;
+           u = e.nextSetBit(u + 1)) {
+        taken.set(newSlot[u]);
+      }
+      ArrayList<Integer> slots = typeOf[v] == 'F' ? floatSlots : intSlots;
+      int slot = -1;
+      for (int s : slots) {
+        if (!taken.get(s)) {
+          slot = s;
+          break;
+        }
+      }
+      if (slot < 0) {
+        slot = next++;
+        slots.add(slot);
+      }
+      newSlot[v] = slot;
+    }
+    for (int i = 0; i < code.size(); i++) {
+      int v = variable(i);
+      if (v >= 0) {
+        setLocalIndex(i, newSlot[v]);
+      }
+    }
+    m.maxLocals = next;
+  }
+
+  // Rewrites the load or store at i to access slot s, using the short
+  // form (iload_2) where there is one:
+  private void setLocalIndex(int i, int s) {
+    int op = code.op(i);
+    if (code.kind(i) == Code.PLAIN) {
+      op = JVM.longForm(op);
+    }
+    if (s <= 3) {
+      code.setPlain(i, JVM.shortForm(op, s));
+    } else {
+      code.setInt(i, op, s);
+    }
+  }
+
+  // The variable accessed at element i, or -1:
+  private int variable(int i) {
+    if (!isLocalAccess(i)) {
+      return -1;
+    }
+    return varOf[code.localIndex(i)];
+  }
+
+  private boolean isLocalAccess(int i) {
+    int kind = code.kind(i);
+    return (kind == Code.PLAIN || kind == Code.INT)
+        && (JVM.isLoad(code.op(i)) || JVM.isStore(code.op(i)));
+  }
+
+}
@@ -0,0 +1,39 @@
+package MiniC.CodeGen;
+
+import java.util.ArrayList;
+
+// A method of the generated class: its header, limits and code.
+
+public class Method {
+
+  public final static int ACC_PUBLIC = 0x0001;
+  public final static int ACC_STATIC = 0x0008;
+
+  public int access;
+  public String name;
+  public String descriptor;
+  public int maxLocals;
+  public int maxStack;
+  // Jasmin directives without a class-file counterpart (e.g., ".var"):
+  public ArrayList<String> directives;
+  public Code code;
+  // The CodeAnalysis of the code, made by the first ClassFileWriter that
+  // writes the method:
+  public CodeAnalysis analysis;
+
+  public Method (int access, String name, String descriptor) {
+    this.access = access;
+    this.name = name;
+    this.descriptor = descriptor;
+    this.maxLocals = 0;
+    this.maxStack = 0;
+    this.directives = new ArrayList<String>();
+    this.code = new Code();
+    this.analysis = null;
+  }
+
+  public boolean isStatic() {
+    return (access & ACC_STATIC) != 0;
+  }
+
+}
@@ -0,0 +1,409 @@
+package MiniC.CodeGen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Peephole optimizer for the instruction list of a method. The code
+// templates of the Emitter produce lots of branches around boolean
+// constants, e.g., for "if (a > b) S":
+//
+//       if_icmpgt L1            if_icmple L3
+//       iconst_0                [[ S ]]
+//       goto L2           =>  L3:
+//    L1:
+//       iconst_1
+//    L2:
+//       ifeq L3
+//       [[ S ]]
+//    L3:
+//
+// The optimizer applies the following rules until none applies anymore:
+//  - unreferenced labels are removed
+//  - code after goto and return is removed up to the next label
+//  - a branch to a goto is redirected to the goto's target
+//  - a branch whose target pushes a constant that is immediately tested
+//    by ifeq/ifne is redirected to where the test goes
+//  - iconst_0/iconst_1 followed by ifeq/ifne becomes goto or nothing
+//  - "ifXX L1; goto L2; L1:" becomes "ifNOT-XX L2; L1:"
+//  - a goto to the next label is removed
+//  - "istore n; iload n" becomes "dup; istore n" (same for floats)
+// Comments are ignored when looking for patterns.
+//
+// Each rule is one pass over the code. A pass only marks elements as
+// deleted and collects the labels it adds; Code.compact() then applies
+// both at once, so no pass shifts the arrays for every rewrite.
+
+public class Peephole {
+
+  private Code code;
+  private Method method;
+  private HashMap<Integer, Integer> labelIndex; // label nr -> index in code
+  private int nextLabel;
+
+  // Labels added in the current pass, by the index they go before:
+  private HashMap<Integer, Integer> labelsBefore;
+
+  // Labels named in Jasmin directives (".var ... from Label0 to Label1"):
+  private HashSet<Integer> directiveLabels;
+
+  private final static Pattern labelName = Pattern.compile("Label(\\d+)");
+
+  // The conditional branch with the inverse condition, by opcode:
+  private final static int[] inverse = new int[256];
+
+  private static void inverse(int a, int b) {
+    inverse[a] = b;
+    inverse[b] = a;
+  }
+
+  static {
+    inverse(JVM.IFEQ, JVM.IFNE);
+    inverse(JVM.IFLT, JVM.IFGE);
+    inverse(JVM.IFGT, JVM.IFLE);
+    inverse(JVM.IF_ICMPEQ, JVM.IF_ICMPNE);
+    inverse(JVM.IF_ICMPLT, JVM.IF_ICMPGE);
+    inverse(JVM.IF_ICMPGT, JVM.IF_ICMPLE);
+  }
+
+  public void optimize(Method m) {
+    method = m;
+    code = m.code;
+    nextLabel = 0;
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL || code.kind(i) == Code.BRANCH) {
+        nextLabel = Math.max(nextLabel, code.arg(i) + 1);
+      }
+    }
+    directiveLabels = new HashSet<Integer>();
+    for (String d : method.directives) {
+      Matcher matcher = labelName.matcher(d);
+      while (matcher.find()) {
+        directiveLabels.add(Integer.parseInt(matcher.group(1)));
+      }
+    }
+    labelsBefore = new HashMap<Integer, Integer>();
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      changed |= compact(removeUnusedLabels());
+      changed |= compact(removeDeadCode());
+      changed |= compact(threadBranches());
+      changed |= compact(foldConstantBranches());
+      changed |= compact(invertBranchesOverGoto());
+      changed |= compact(removeGotoToNext());
+      changed |= compact(replaceStoreLoad());
+    }
+  }
+
+  // Applies the deletions and the added labels of the last pass:
+  private boolean compact(boolean changed) {
+    if (changed || !labelsBefore.isEmpty()) {
+      code.compact(labelsBefore);
+      labelsBefore.clear();
+    }
+    return changed;
+  }
+
+  // Comments and deleted elements are skipped when looking for patterns:
+  private boolean isSkipped(int i) {
+    return code.kind(i) == Code.COMMENT || code.kind(i) == Code.DELETED;
+  }
+
+  private boolean isGoto(int i) {
+    return code.kind(i) == Code.BRANCH && code.op(i) == JVM.GOTO;
+  }
+
+  private boolean isUnconditional(int i) {
+    if (code.kind(i) == Code.BRANCH) {
+      return code.op(i) == JVM.GOTO;
+    }
+    return code.kind(i) == Code.PLAIN && JVM.isReturn(code.op(i));
+  }
+
+  private boolean isTest(int i) {
+    return code.kind(i) == Code.BRANCH
+        && (code.op(i) == JVM.IFEQ || code.op(i) == JVM.IFNE);
+  }
+
+  // Returns 0 or 1 if instruction i pushes that constant, -1 otherwise:
+  private int constantOf(int i) {
+    if (code.kind(i) == Code.PLAIN && code.op(i) == JVM.ICONST_0) {
+      return 0;
+    } else if (code.kind(i) == Code.PLAIN && code.op(i) == JVM.ICONST_1) {
+      return 1;
+    }
+    return -1;
+  }
+
+  // Index of the next element after i that is not skipped:
+  private int next(int i) {
+    i++;
+    while (i < code.size() && isSkipped(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  // Index of the next instruction after i that is neither skipped nor
+  // a label:
+  private int nextInstruction(int i) {
+    i = next(i);
+    while (i < code.size() && code.kind(i) == Code.LABEL) {
+      i = next(i);
+    }
+    return i;
+  }
+
+  // Index of the previous element before i that is not skipped:
+  private int previous(int i) {
+    i--;
+    while (i >= 0 && isSkipped(i)) {
+      i--;
+    }
+    return i;
+  }
+
+  private void indexLabels() {
+    labelIndex = new HashMap<Integer, Integer>();
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL) {
+        labelIndex.put(code.arg(i), i);
+      }
+    }
+  }
+
+  // Returns the label defined right before index i (ignoring skipped
+  // elements), adding a new label if there is none. The new label is
+  // inserted by the next compaction; until then labelsBefore and
+  // labelIndex know about it.
+  private int labelBefore(int i) {
+    int label = addedLabelBefore(i);
+    if (label >= 0) {
+      return label;
+    }
+    int p = previous(i);
+    if (p >= 0 && code.kind(p) == Code.LABEL) {
+      return code.arg(p);
+    }
+    label = nextLabel++;
+    labelsBefore.put(p + 1, label);
+    labelIndex.put(label, p);
+    return label;
+  }
+
+  // The label added by labelBefore() right before index i (ignoring
+  // skipped elements) in this pass, or -1:
+  private int addedLabelBefore(int i) {
+    for (int j = i; ; j--) {
+      Integer label = labelsBefore.get(j);
+      if (label != null) {
+        return label;
+      }
+      if (j == 0 || !isSkipped(j - 1)) {
+        return -1;
+      }
+    }
+  }
+
+  private boolean removeUnusedLabels() {
+    HashSet<Integer> used = new HashSet<Integer>(directiveLabels);
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.BRANCH) {
+        used.add(code.arg(i));
+      }
+    }
+    boolean changed = false;
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL && !used.contains(code.arg(i))) {
+        code.delete(i);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  private boolean removeDeadCode() {
+    boolean changed = false;
+    boolean dead = false;
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL) {
+        dead = false;
+      } else if (dead && code.kind(i) != Code.COMMENT) {
+        code.delete(i);
+        changed = true;
+      } else if (isUnconditional(i)) {
+        dead = true;
+      }
+    }
+    return changed;
+  }
+
+  // Redirects branches to gotos and to tests of constants:
+  private boolean threadBranches() {
+    boolean changed = false;
+    indexLabels();
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) != Code.BRANCH) {
+        continue;
+      }
+      int t = nextInstruction(labelIndex.get(code.arg(i)));
+      if (t >= code.size()) {
+        continue;
+      }
+      if (isGoto(t)) {
+        // Branch to a goto:
+        int label = finalTarget(code.arg(i));
+        if (label >= 0 && label != code.arg(i)) {
+          code.setArg(i, label);
+          changed = true;
+        }
+        continue;
+      }
+      int k = constantOf(t);
+      int test = nextInstruction(t);
+      if (k >= 0 && test < code.size() && isTest(test)) {
+        // Branch to "iconst_k; ifeq/ifne M":
+        int label = outcome(k, test);
+        if (label != code.arg(i)) {
+          code.setArg(i, label);
+          changed = true;
+        }
+        continue;
+      }
+      int p = previous(i);
+      k = (p >= 0 && addedLabelBefore(i) < 0) ? constantOf(p) : -1;
+      if (isGoto(i) && k >= 0 && isTest(t)) {
+        // "iconst_k; goto L" where L tests the constant:
+        code.setArg(i, outcome(k, t));
+        code.delete(p);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  // Follows a chain of gotos starting at label and returns the label of
+  // the first instruction that is not a goto, or -1 for an endless loop:
+  private int finalTarget(int label) {
+    HashSet<Integer> visited = new HashSet<Integer>();
+    while (visited.add(label)) {
+      int t = nextInstruction(labelIndex.get(label));
+      if (t >= code.size() || !isGoto(t)) {
+        return label;
+      }
+      label = code.arg(t);
+    }
+    return -1;
+  }
+
+  // Returns the label where control goes if the test at index "test"
+  // is applied to the constant k:
+  private int outcome(int k, int test) {
+    boolean taken = code.op(test) == JVM.IFEQ ? (k == 0) : (k != 0);
+    if (taken) {
+      return code.arg(test);
+    }
+    return labelBefore(next(test));
+  }
+
+  // "iconst_k; ifeq/ifne L" becomes "goto L" or disappears:
+  private boolean foldConstantBranches() {
+    boolean changed = false;
+    for (int i = 0; i < code.size(); i++) {
+      int k = constantOf(i);
+      int n = next(i);
+      if (k < 0 || n >= code.size() || !isTest(n)) {
+        continue;
+      }
+      boolean taken = code.op(n) == JVM.IFEQ ? (k == 0) : (k != 0);
+      if (taken) {
+        code.setBranch(n, JVM.GOTO, code.arg(n));
+      } else {
+        code.delete(n);
+      }
+      code.delete(i);
+      changed = true;
+    }
+    return changed;
+  }
+
+  // "ifXX L1; goto L2; L1:" becomes "ifNOT-XX L2; L1:"
+  private boolean invertBranchesOverGoto() {
+    boolean changed = false;
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) != Code.BRANCH || inverse[code.op(i)] == 0) {
+        continue;
+      }
+      int g = next(i);
+      if (g >= code.size() || !isGoto(g)) {
+        continue;
+      }
+      if (!labelFollows(g, code.arg(i))) {
+        continue;
+      }
+      code.setBranch(i, inverse[code.op(i)], code.arg(g));
+      code.delete(g);
+      changed = true;
+    }
+    return changed;
+  }
+
+  // True if label is defined right after index i (possibly among other
+  // labels and skipped elements):
+  private boolean labelFollows(int i, int label) {
+    int n = next(i);
+    while (n < code.size() && code.kind(n) == Code.LABEL) {
+      if (code.arg(n) == label) {
+        return true;
+      }
+      n = next(n);
+    }
+    return false;
+  }
+
+  private boolean removeGotoToNext() {
+    boolean changed = false;
+    for (int i = 0; i < code.size(); i++) {
+      if (isGoto(i) && labelFollows(i, code.arg(i))) {
+        code.delete(i);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  // "istore n; iload n" becomes "dup; istore n":
+  private boolean replaceStoreLoad() {
+    boolean changed = false;
+    for (int i = 0; i < code.size(); i++) {
+      int n = next(i);
+      if (n >= code.size() || !isLocalAccess(i) || !isLocalAccess(n)) {
+        continue;
+      }
+      int store = code.op(i);
+      int load = code.op(n);
+      if (JVM.isStore(store) && JVM.isLoad(load)
+          && JVM.localType(store) == JVM.localType(load)
+          && JVM.localType(store) != 'A'
+          && code.localIndex(i) == code.localIndex(n)) {
+        // Move the store (and the comments after it) onto the load:
+        for (int j = n; j > i; j--) {
+          code.copy(j - 1, j);
+        }
+        code.setPlain(i, JVM.DUP);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  private boolean isLocalAccess(int i) {
+    int kind = code.kind(i);
+    return (kind == Code.PLAIN || kind == Code.INT)
+        && (JVM.isLoad(code.op(i)) || JVM.isStore(code.op(i)));
+  }
+
+}
@@ -0,0 +1,137 @@
+package MiniC.CodeGen;
+
+import java.util.Arrays;
+
+// Computes the max_stack of a method. Every instruction changes the
+// operand stack height by a fixed amount (see JVM.stackDelta()), and
+// the height at a label is the same on all paths that reach it, so one
+// height per label is enough: the code is followed from the start, and
+// from every label as soon as its height is known, i.e., when the first
+// branch to it is seen. Every instruction is looked at once; code that
+// cannot be reached is never looked at and does not count.
+
+public class StackDepth {
+
+  private Code code;
+  private int[] labelIndex; // label -> index of its definition
+  private int[] heightAt;   // label -> stack height, or -1 if not known
+  private int[] worklist;   // labels whose code is still to be followed
+  private int pending;
+  private int max;
+
+  public static int maxStack(Code code) {
+    return new StackDepth(code).run();
+  }
+
+  private StackDepth(Code code) {
+    this.code = code;
+    int nrLabels = 0;
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL) {
+        nrLabels = Math.max(nrLabels, code.arg(i) + 1);
+      }
+    }
+    labelIndex = new int[nrLabels];
+    heightAt = new int[nrLabels];
+    Arrays.fill(heightAt, -1);
+    for (int i = 0; i < code.size(); i++) {
+      if (code.kind(i) == Code.LABEL) {
+        labelIndex[code.arg(i)] = i;
+      }
+    }
+    worklist = new int[nrLabels];
+    pending = 0;
+    max = 0;
+  }
+
+  private int run() {
+    follow(0, 0);
+    while (pending > 0) {
+      int label = worklist[--pending];
+      follow(labelIndex[label] + 1, heightAt[label]);
+    }
+    return max;
+  }
+
+  // Follows the code from index i with stack height "height", up to an
+  // unconditional jump or a label whose code is followed anyway.
+  private void follow(int i, int height) {
+    for (; i < code.size(); i++) {
+      int kind = code.kind(i);
+      if (kind == Code.COMMENT) {
+        continue;
+      }
+      if (kind == Code.LABEL) {
+        if (reach(code.arg(i), height)) {
+          return; // followed from there already
+        }
+        continue;
+      }
+      height += delta(i);
+      assert (height >= 0) : "operand stack underflow";
+      max = Math.max(max, height);
+      if (kind == Code.BRANCH) {
+        if (!reach(code.arg(i), height)) {
+          worklist[pending++] = code.arg(i);
+        }
+        if (code.op(i) == JVM.GOTO) {
+          return;
+        }
+      } else if (kind == Code.PLAIN && JVM.isReturn(code.op(i))) {
+        return;
+      }
+    }
+  }
+
+  // Records that label is reached with stack height "height". Returns
+  // true if it had been reached before.
+  private boolean reach(int label, int height) {
+    if (heightAt[label] >= 0) {
+      assert (heightAt[label] == height)
+          : "inconsistent stack height at Label" + label;
+      return true;
+    }
+    heightAt[label] = height;
+    return false;
+  }
+
+  private int delta(int i) {
+    int op = code.op(i);
+    switch (code.kind(i)) {
+      case Code.FIELD:
+        return op == JVM.GETSTATIC ? 1 : -1;
+      case Code.METHOD: {
+        String d = code.descriptor(i);
+        int delta = -argumentCount(d);
+        if (op != JVM.INVOKESTATIC) {
+          delta--; // the receiver
+        }
+        if (d.charAt(d.length() - 1) != 'V') {
+          delta++;
+        }
+        return delta;
+      }
+      default:
+        return JVM.stackDelta(op);
+    }
+  }
+
+  // The number of arguments of a method descriptor. MiniC has no long
+  // and double values, so every argument takes one slot.
+  private static int argumentCount(String d) {
+    int count = 0;
+    int i = 1;
+    while (d.charAt(i) != ')') {
+      while (d.charAt(i) == '[') {
+        i++;
+      }
+      if (d.charAt(i) == 'L') {
+        i = d.indexOf(';', i);
+      }
+      i++;
+      count++;
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,394 @@
+package MiniC;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import MiniC.Scanner.Scanner;
+import MiniC.Scanner.SourceFile;
+import MiniC.Scanner.Token;
+import MiniC.Parser.Parser;
+import MiniC.SemanticAnalysis.SemanticAnalysis;
+import MiniC.CodeGen.Emitter;
+import MiniC.Optimizer.ConstantFolding;
+import MiniC.AstGen.Program;
+import MiniC.AstGen.SequenceFlattener;
+import MiniC.TreeDrawer.Drawer;
+import MiniC.TreePrinter.Printer;
+import MiniC.Unparser.Unparser;
+import MiniC.Stats.*;
+
+// One run of the compiler on one source file. Every Compilation has its
+// own scanner, parser, semantic analysis, emitter and error reporter, so
+// several Compilations can run in parallel (see BatchCompiler). Phase
+// messages and error messages go to the given PrintStream, if any. The
+// generated code is returned in the CompilationResult and is only
+// written to <ClassName>.class (or .j) if enableOutputFiles() was called.
+// With useCache(), the phases are skipped if the cache already holds the
+// code for the same source text and options.
+//
+// For every phase, the time, the allocated bytes and the amount of work
+// done are recorded in the CompilationResult, printed with Options.Stats,
+// and committed as Java Flight Recorder events (see PhaseEvent).
+
+public class Compilation {
+
+  private String sourceName;
+  private ByteBuffer text;
+  private Options options;
+  private StdEnvironment stdenv;
+  private PrintStream out;
+  private boolean writeOutputFiles;
+  private CompilationCache cache;
+  private String cacheKey;
+  private long phaseStart, phaseAllocated; // of the phase being measured
+
+  private Scanner scanner;
+  private Parser parser;
+  private SemanticAnalysis sem;
+  private ConstantFolding folding;
+  private Emitter emitter;
+  private ErrorReporter reporter;
+  private Drawer drawer;
+  private Printer printer;
+  private Unparser unparser;
+  /* The abstract syntax tree representing
+   * the source program:
+   */
+  private Program AST;
+
+  // Compiles the file sourceName.
+  public Compilation(String sourceName, Options options,
+                     StdEnvironment stdenv, PrintStream out) {
+    this(sourceName, null, options, stdenv, out);
+  }
+
+  // Compiles text, or the file sourceName if text is null. out may be
+  // null; then nothing is printed.
+  public Compilation(String sourceName, ByteBuffer text, Options options,
+                     StdEnvironment stdenv, PrintStream out) {
+    this.sourceName = sourceName;
+    this.text = text;
+    this.options = options;
+    this.stdenv = stdenv;
+    this.out = ScannerMessages.uncaptured(out);
+    this.writeOutputFiles = false;
+  }
+
+  // Write the generated code to <ClassName>.class or <ClassName>.j in
+  // the current directory:
+  public void enableOutputFiles() {
+    writeOutputFiles = true;
+  }
+
+  // Look up the generated code in cache before compiling, and store it
+  // there afterwards:
+  public void useCache(CompilationCache cache) {
+    this.cache = cache;
+  }
+
+  private void println(String s) {
+    if (out != null) {
+      out.println(s);
+    }
+  }
+
+  // Runs all phases.
+  public CompilationResult run() {
+    CompilationResult result = new CompilationResult();
+
+    println("********** " +
+        "MiniC Compiler" +
+        " **********");
+
+    reporter = new ErrorReporter(out);
+    result.diagnostics = reporter.getDiagnostics();
+
+    if (text == null && SourceFile.tooLarge(sourceName)) {
+      reporter.reportError("source file " + sourceName
+          + " is too large (at most " + SourceFile.MaxSize + " bytes).");
+      return finish(result);
+    }
+
+    // Tree dumps and drawings need the AST, so these compilations bypass
+    // the cache:
+    boolean cacheable = (cache != null) && !options.PrintTree
+        && !options.UnparseTree && !options.DrawTree1 && !options.DrawTree2;
+    if (cacheable) {
+      if (!readText()) {
+        return finish(result);
+      }
+      beginPhase(null);
+      cacheKey = cache.key(Emitter.classNameOf(sourceName), options, text);
+      byte[] output = cache.get(cacheKey);
+      endPhase(result, "Cache Lookup", null);
+      if (output != null) {
+        println("Using cached code ...");
+        result.className = Emitter.classNameOf(sourceName);
+        if (options.JasminOutput) {
+          result.jasminText = new String(output);
+        } else {
+          result.classBytes = output;
+        }
+        writeOutput(result.className, output);
+        return finish(result);
+      }
+    }
+
+    // The parser calls the scanner for each token, so scanning cannot be
+    // timed on its own during parsing. It is measured by scanning the
+    // source once more in advance (whose error messages are dropped; the
+    // scanner reports them again while parsing):
+    ScanEvent scanEvent = new ScanEvent();
+    if (options.Stats || scanEvent.isEnabled()) {
+      if (!readText()) {
+        return finish(result);
+      }
+      scan(result, scanEvent);
+    }
+
+    SourceFile source;
+    if (text != null) {
+      source = new SourceFile(text);
+    } else {
+      try {
+        source = new SourceFile(sourceName);
+      } catch (IOException e) {
+        reporter.reportError("cannot open source file " + sourceName + ".");
+        return finish(result);
+      }
+    }
+
+    scanner  = new Scanner(source);
+    /*
+     * Enable this to observe the sequence of tokens
+     * delivered by the scanner:
+     *
+     */
+    //scanner.enableDebugging();
+    parser   = new Parser(scanner, reporter);
+    sem      = new SemanticAnalysis(reporter);
+    folding  = new ConstantFolding();
+    emitter  = new Emitter(sourceName, reporter);
+    if(options.Optimize) {
+      emitter.enableOptimization();
+    }
+    drawer   = new Drawer();
+    printer  = new Printer();
+    unparser = new Unparser();
+
+    if(options.DrawStdEnvTree) {
+      Drawer envdrawer = new Drawer();
+      envdrawer.draw(stdenv.AST);
+    }
+
+    println("Syntax Analysis ...");
+    ParseEvent parseEvent = new ParseEvent();
+    beginPhase(parseEvent);
+    // The scanner prints its errors to System.out; they are reported as
+    // diagnostics of this compilation instead:
+    ScannerMessages.capture(line -> reporter.reportScannerMessage(line));
+    try {
+      AST = parser.parse();	    // 1st pass
+    } finally {
+      ScannerMessages.release();
+    }
+    if (reporter.numErrors == 0) {
+      // The later passes iterate over the lists instead of recursing
+      // down the parser's sequence chains:
+      new SequenceFlattener().flatten(AST);
+    }
+    PhaseStatistics s = endPhase(result, "Syntax Analysis", parseEvent);
+    if ((options.Stats || parseEvent.isEnabled())
+        && AST != null && reporter.numErrors == 0) {
+      s.count = parseEvent.nodes = new NodeCounter().count(AST);
+      s.unit = "nodes";
+    }
+    parseEvent.commit();
+
+    if (reporter.numErrors == 0) {
+      if(options.PrintTree) {
+        try {
+          printer.print(AST, options.PrintTreeF);
+        } catch (IOException e) {
+          reporter.reportError("cannot write " + options.PrintTreeF + ": "
+              + e.getMessage());
+        }
+      }
+      if(options.UnparseTree) {
+        try {
+          unparser.unparse(AST, options.UnparseTreeF);
+        } catch (IOException e) {
+          reporter.reportError("cannot write " + options.UnparseTreeF + ": "
+              + e.getMessage());
+        }
+      }
+      if(options.DrawTree1) {
+        drawer.draw(AST);
+      }
+      println ("Semantic Analysis ...");
+      SemanticAnalysisEvent semEvent = new SemanticAnalysisEvent();
+      beginPhase(semEvent);
+      sem.check(AST);	// 2nd pass
+      s = endPhase(result, "Semantic Analysis", semEvent);
+      s.count = semEvent.lookups = sem.getNumLookups();
+      s.unit = "lookups";
+      semEvent.commit();
+      if(options.DrawTree2) {
+        drawer.draw(AST);
+      }
+      if (reporter.numErrors == 0) {
+        if(options.Optimize) {
+          println ("Optimization ...");
+          OptimizationEvent optEvent = new OptimizationEvent();
+          beginPhase(optEvent);
+          folding.optimize(AST);
+          endPhase(result, "Optimization", optEvent);
+          optEvent.commit();
+        }
+        println ("Code Generation ...");
+        CodeGenerationEvent genEvent = new CodeGenerationEvent();
+        beginPhase(genEvent);
+        byte[] bytes = genCode(result);
+        s = endPhase(result, "Code Generation", genEvent);
+        s.count = genEvent.instructions = emitter.getNumInstructions();
+        s.unit = "instrs";
+        s.outputBytes = genEvent.outputBytes = (bytes == null) ? 0 : bytes.length;
+        genEvent.commit();
+      }
+    }
+
+    return finish(result);
+  }
+
+  // Reads the source file into text, unless that was done already.
+  // Returns false if the file cannot be read.
+  private boolean readText() {
+    if (text != null) {
+      return true;
+    }
+    try {
+      text = ByteBuffer.wrap(Files.readAllBytes(Paths.get(sourceName)));
+    } catch (IOException e) {
+      reporter.reportError("cannot open source file " + sourceName + ".");
+      return false;
+    }
+    return true;
+  }
+
+  // Scans text to the end and records the time and number of tokens:
+  private void scan(CompilationResult result, ScanEvent event) {
+    Scanner s = new Scanner(new SourceFile(text));
+    int tokens = 0;
+    ScannerMessages.capture(line -> { });
+    beginPhase(event);
+    try {
+      while (s.scan().kind != Token.EOF) {
+        tokens++;
+      }
+    } finally {
+      ScannerMessages.release();
+    }
+    PhaseStatistics stats = endPhase(result, "Scan", event);
+    stats.count = event.tokens = tokens;
+    stats.unit = "tokens";
+    event.commit();
+  }
+
+  // Starts measuring a phase; event may be null:
+  private void beginPhase(PhaseEvent event) {
+    if (event != null) {
+      event.source = sourceName;
+      event.begin();
+    }
+    phaseAllocated = PhaseStatistics.allocatedBytes();
+    phaseStart = System.nanoTime();
+  }
+
+  // Stops measuring the current phase and records its statistics. The
+  // caller fills in the counts and commits the event.
+  private PhaseStatistics endPhase(CompilationResult result, String phase,
+                                   PhaseEvent event) {
+    long nanos = System.nanoTime() - phaseStart;
+    long allocated = PhaseStatistics.allocatedBytes();
+    allocated = (allocated < 0 || phaseAllocated < 0) ? -1
+        : allocated - phaseAllocated;
+    if (event != null) {
+      event.end();
+      event.allocated = allocated;
+    }
+    PhaseStatistics s = new PhaseStatistics(phase, nanos, allocated);
+    if (!phase.equals("Scan")) {
+      result.timings.put(phase, nanos);
+    }
+    result.statistics.add(s);
+    return s;
+  }
+
+  // Returns the generated code, or null if there is none:
+  private byte[] genCode(CompilationResult result) {
+    emitter.generate(AST);
+    result.className = emitter.getClassName();
+    byte[] bytes;
+    if (options.JasminOutput) {
+      result.jasminText = emitter.getJasminText();
+      bytes = result.jasminText.getBytes();
+    } else {
+      try {
+        result.classBytes = emitter.getClassBytes();
+      } catch (IOException e) {
+        // e.g., a method is too large for the class file format:
+        reporter.reportError(e.getMessage());
+        return null;
+      }
+      bytes = result.classBytes;
+    }
+    if (cacheKey != null) {
+      cache.put(cacheKey, bytes);
+    }
+    writeOutput(result.className, bytes);
+    return bytes;
+  }
+
+  // Writes the generated code to <ClassName>.class or <ClassName>.j if
+  // enabled:
+  private void writeOutput(String className, byte[] bytes) {
+    if (!writeOutputFiles) {
+      return;
+    }
+    String outfile = className + (options.JasminOutput ? ".j" : ".class");
+    try {
+      Files.write(Paths.get(outfile), bytes);
+    } catch (IOException e) {
+      reporter.reportError("cannot write " + outfile + ": " + e.getMessage());
+    }
+  }
+
+  private CompilationResult finish(CompilationResult result) {
+    result.successful = (reporter.numErrors == 0);
+    if(result.successful) {
+      println("Compilation was successful.");
+    } else {
+      println("Compilation was unsuccessful.");
+    }
+    if (options.Stats && !result.statistics.isEmpty()) {
+      println("********** " +
+          "Statistics" +
+          " **********");
+      for (PhaseStatistics s : result.statistics) {
+        println(s.toString());
+      }
+    }
+    return result;
+  }
+
+  public String getSourceName() {
+    return sourceName;
+  }
+
+  public int getNumErrors() {
+    return reporter == null ? 0 : reporter.numErrors;
+  }
+
+}
@@ -0,0 +1,194 @@
+package MiniC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A directory of generated class files (or Jasmin files), addressed by
+// a SHA-256 hash of everything the output depends on: the compiler
+// version, the options that change the code, the class name and the
+// source text. A Compilation that finds its key in the cache skips all
+// phases and uses the stored output.
+//
+// Entries are written to a temporary file first and then renamed, so
+// several processes can share one cache directory: a reader sees either
+// no entry or a complete one. Reading an entry updates its modification
+// time; when the cache grows beyond its size limit, the entries that
+// were used least recently are deleted.
+
+public class CompilationCache {
+
+  // Change this whenever the generated code changes:
+  public final static String VERSION = "MiniC 1.0";
+
+  private final static String TMP_SUFFIX = ".tmp";
+
+  private Path dir;
+  private long maxBytes;
+  private AtomicLong size; // bytes in the cache, as far as we know
+  private String fingerprint;
+
+  public CompilationCache(Path dir, long maxBytes) throws IOException {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+    Files.createDirectories(dir);
+    this.size = new AtomicLong(scan(new ArrayList<Path>()));
+    this.fingerprint = compilerFingerprint();
+  }
+
+  // VERSION and, if the compiler runs from a jar file, the size and time
+  // of the jar, so that a rebuilt compiler does not use stale entries:
+  private static String compilerFingerprint() {
+    String f = VERSION;
+    try {
+      File jar = new File(CompilationCache.class.getProtectionDomain()
+          .getCodeSource().getLocation().toURI());
+      if (jar.isFile()) {
+        f = f + ":" + jar.length() + ":" + jar.lastModified();
+      }
+    } catch (Exception e) {
+      // no code source: VERSION only
+    }
+    return f;
+  }
+
+  // The key of the output of compiling text to class className:
+  public String key(String className, Options options, ByteBuffer text) {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e); // every JVM has SHA-256
+    }
+    md.update((fingerprint + "\n" + className + "\n"
+        + (options.Optimize ? "O" : "") + (options.JasminOutput ? "j" : "")
+        + "\n").getBytes());
+    md.update(text.duplicate());
+    StringBuilder hex = new StringBuilder();
+    for (byte b : md.digest()) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+      hex.append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  // Returns the stored output for key, or null if there is none:
+  public byte[] get(String key) {
+    Path entry = dir.resolve(key);
+    try {
+      byte[] output = Files.readAllBytes(entry);
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(
+          System.currentTimeMillis()));
+      return output;
+    } catch (IOException e) {
+      return null; // not cached, or evicted in the meantime
+    }
+  }
+
+  // Stores output under key. Failures are ignored: the cache only
+  // saves time.
+  public void put(String key, byte[] output) {
+    Path entry = dir.resolve(key);
+    if (Files.exists(entry)) {
+      return;
+    }
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile(dir, key, TMP_SUFFIX);
+      Files.write(tmp, output);
+      try {
+        Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      try {
+        if (tmp != null) {
+          Files.deleteIfExists(tmp);
+        }
+      } catch (IOException e2) {
+        // ignore
+      }
+      return;
+    }
+    if (size.addAndGet(output.length) > maxBytes) {
+      evict();
+    }
+  }
+
+  // Returns the total size of the entries and collects them in entries.
+  // Leftover temporary files of crashed writers are removed.
+  private long scan(ArrayList<Path> entries) throws IOException {
+    long total = 0;
+    long stale = System.currentTimeMillis() - 60 * 60 * 1000;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+      for (Path p : files) {
+        try {
+          if (p.getFileName().toString().endsWith(TMP_SUFFIX)) {
+            if (Files.getLastModifiedTime(p).toMillis() < stale) {
+              Files.deleteIfExists(p);
+            }
+            continue;
+          }
+          total += Files.size(p);
+          entries.add(p);
+        } catch (IOException e) {
+          // deleted by another process meanwhile
+        }
+      }
+    }
+    return total;
+  }
+
+  // Deletes least recently used entries until the cache is below 90% of
+  // its size limit (so that not every put has to evict).
+  private synchronized void evict() {
+    if (size.get() <= maxBytes) {
+      return; // another thread evicted already
+    }
+    ArrayList<Path> entries = new ArrayList<Path>();
+    long total;
+    try {
+      total = scan(entries);
+    } catch (IOException e) {
+      return;
+    }
+    // Read all times first; they may change while we sort:
+    HashMap<Path, Long> lastUse = new HashMap<Path, Long>();
+    for (Path p : entries) {
+      lastUse.put(p, lastUse(p));
+    }
+    entries.sort(Comparator.comparingLong(lastUse::get));
+    long target = maxBytes / 10 * 9;
+    for (Path p : entries) {
+      if (total <= target) {
+        break;
+      }
+      try {
+        long s = Files.size(p);
+        Files.delete(p);
+        total -= s;
+      } catch (IOException e) {
+        // deleted by another process meanwhile
+      }
+    }
+    size.set(total);
+  }
+
+  private static long lastUse(Path p) {
+    try {
+      return Files.getLastModifiedTime(p).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+}
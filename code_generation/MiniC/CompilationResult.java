@@ -0,0 +1,68 @@
+package MiniC;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import MiniC.Stats.PhaseStatistics;
+
+// The outcome of a Compilation: whether it was successful, its error
+// messages, the time spent in each phase (and, in more detail, its
+// statistics), and the generated code.
+
+public class CompilationResult {
+
+  boolean successful;
+  List<Diagnostic> diagnostics;
+  LinkedHashMap<String, Long> timings;
+  ArrayList<PhaseStatistics> statistics;
+  String className;
+  byte[] classBytes;
+  String jasminText;
+
+  CompilationResult() {
+    timings = new LinkedHashMap<String, Long>();
+    statistics = new ArrayList<PhaseStatistics>();
+  }
+
+  public boolean isSuccessful() {
+    return successful;
+  }
+
+  public List<Diagnostic> getDiagnostics() {
+    return diagnostics;
+  }
+
+  // Nanoseconds per phase ("Cache Lookup", "Syntax Analysis",
+  // "Semantic Analysis", "Optimization", "Code Generation"), in the order
+  // in which the phases ran. Phases that did not run are missing.
+  public Map<String, Long> getTimings() {
+    return timings;
+  }
+
+  // The time, allocation and work of each phase, in the order in which
+  // the phases ran. Besides the phases in getTimings(), this includes a
+  // separate "Scan" of the source if Options.Stats was set or a flight
+  // recording is running.
+  public List<PhaseStatistics> getStatistics() {
+    return statistics;
+  }
+
+  // The name of the generated class (the source file name without
+  // directory and ".mc"):
+  public String getClassName() {
+    return className;
+  }
+
+  // The class file, or null if the compilation was unsuccessful or
+  // produced Jasmin code:
+  public byte[] getClassBytes() {
+    return classBytes;
+  }
+
+  // The Jasmin code if Options.JasminOutput was set, null otherwise:
+  public String getJasminText() {
+    return jasminText;
+  }
+
+}
@@ -0,0 +1,140 @@
+package MiniC.Daemon;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Sends compile requests to a running CompileServer and writes the
+// generated .class (or .j) files to the current directory, like the
+// MiniC command line compiler does. Only the classes of this package
+// are loaded, so the client starts quickly.
+//
+// Usage: java MiniC.Daemon.CompileClient [-port <n>] [-O] [-j] file ...
+//        java MiniC.Daemon.CompileClient [-port <n>] -status | -shutdown
+
+public class CompileClient {
+
+  private Socket socket;
+  private DataInputStream in;
+  private DataOutputStream out;
+
+  public CompileClient(int port) throws IOException {
+    socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    out = new DataOutputStream(
+        new BufferedOutputStream(socket.getOutputStream()));
+  }
+
+  public void close() throws IOException {
+    socket.close();
+  }
+
+  // Compiles sourceName; prints the diagnostics and writes the output
+  // file. Returns true if the compilation was successful.
+  public boolean compile(String sourceName, boolean optimize, boolean jasmin)
+      throws IOException {
+    byte[] text;
+    try {
+      text = Files.readAllBytes(Paths.get(sourceName));
+    } catch (IOException e) {
+      System.out.println("ERROR: cannot open source file " + sourceName + ".");
+      return false;
+    }
+    out.writeInt(Protocol.COMPILE);
+    out.writeUTF(sourceName);
+    out.writeBoolean(optimize);
+    out.writeBoolean(jasmin);
+    out.writeInt(text.length);
+    out.write(text);
+    out.flush();
+
+    boolean successful = in.readBoolean();
+    int nrDiagnostics = in.readInt();
+    for (int i = 0; i < nrDiagnostics; i++) {
+      System.out.println(in.readUTF());
+    }
+    String outfile = in.readUTF();
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    if (!outfile.equals("")) {
+      Files.write(Paths.get(outfile), bytes);
+    }
+    return successful;
+  }
+
+  public String status() throws IOException {
+    out.writeInt(Protocol.STATUS);
+    out.flush();
+    return in.readUTF();
+  }
+
+  public void shutdown() throws IOException {
+    out.writeInt(Protocol.SHUTDOWN);
+    out.flush();
+    in.readUTF();
+  }
+
+  private static void usage() {
+    System.out.println("Usage: CompileClient [-port <n>] [-O] [-j] file ...");
+    System.out.println("       CompileClient [-port <n>] -status | -shutdown");
+    System.exit(1);
+  }
+
+  public static void main(String[] args) {
+    int port = Protocol.DEFAULT_PORT;
+    boolean optimize = false, jasmin = false, status = false, shutdown = false;
+    int first = args.length; // index of the first source file
+    try {
+      for (int i = 0; i < args.length && first == args.length; i++) {
+        if (args[i].equals("-port") && i + 1 < args.length) {
+          port = Integer.parseInt(args[++i]);
+        } else if (args[i].equals("-O")) {
+          optimize = true;
+        } else if (args[i].equals("-j")) {
+          jasmin = true;
+        } else if (args[i].equals("-status")) {
+          status = true;
+        } else if (args[i].equals("-shutdown")) {
+          shutdown = true;
+        } else {
+          first = i;
+        }
+      }
+    } catch (NumberFormatException e) {
+      usage();
+    }
+    if (!status && !shutdown && first == args.length) {
+      usage();
+    }
+
+    boolean allSuccessful = true;
+    try {
+      CompileClient client = new CompileClient(port);
+      if (status) {
+        System.out.print(client.status());
+      }
+      for (int i = first; i < args.length; i++) {
+        if (client.compile(args[i], optimize, jasmin)) {
+          System.out.println("Compilation was successful.");
+        } else {
+          System.out.println("Compilation was unsuccessful.");
+          allSuccessful = false;
+        }
+      }
+      if (shutdown) {
+        client.shutdown();
+      }
+      client.close();
+    } catch (IOException e) {
+      System.err.println("Error: cannot talk to the compile server on port "
+          + port + ": " + e.getMessage());
+      System.exit(1);
+    }
+    if (!allSuccessful) {
+      System.exit(1);
+    }
+  }
+
+}
@@ -0,0 +1,269 @@
+package MiniC.Daemon;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import MiniC.CompilationCache;
+import MiniC.CompilationResult;
+import MiniC.Diagnostic;
+import MiniC.MiniCCompiler;
+import MiniC.Options;
+
+// A long-running compiler process. It accepts connections from
+// CompileClients on a loopback port and hands each connection to a pool
+// of worker threads, which compile the requested sources with a
+// MiniCCompiler (see Protocol). Since the process stays alive, the
+// classes of the compiler are loaded and JIT-compiled only once.
+//
+// Usage: java MiniC.Daemon.CompileServer [-port <n>] [-threads <n>]
+//                                          [-cache <dir>]
+
+public class CompileServer {
+
+  // Compiled a few hundred times at startup so that the first requests
+  // already run compiled code:
+  private final static String WarmUpProgram =
+      "int fib(int n) {\n" +
+      "  if (n < 2) return n;\n" +
+      "  return fib(n - 1) + fib(n - 2);\n" +
+      "}\n" +
+      "float avg(float a, float b) { return (a + b) / 2.0; }\n" +
+      "bool flags[4];\n" +
+      "int main() {\n" +
+      "  int i; float f; f = 1;\n" +
+      "  for (i = 0; i < 10 && !flags[0]; i = i + 1) {\n" +
+      "    f = avg(f, i * 2.5);\n" +
+      "    while (i > 5 || f >= 100.0) { i = i - 1; f = f / 3; }\n" +
+      "  }\n" +
+      "  putInt(fib(10)); putFloat(f); putString(\"done\"); putLn();\n" +
+      "  return 0;\n" +
+      "}\n";
+
+  private ServerSocket serverSocket;
+  private ThreadPoolExecutor workers;
+  private Metrics metrics;
+  private CompilationCache cache; // null: no cache
+  private long startTime;
+  private volatile boolean running;
+
+  public CompileServer(int port, int threads) throws IOException {
+    serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    workers = new ThreadPoolExecutor(threads, threads, 0L,
+        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+    metrics = new Metrics();
+    startTime = System.nanoTime();
+  }
+
+  public void useCache(CompilationCache cache) {
+    this.cache = cache;
+  }
+
+  // The port the server listens on (useful if it was created with port 0):
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public void warmUp(int iterations) {
+    Options optimized = new Options();
+    optimized.Optimize = true;
+    MiniCCompiler plain = new MiniCCompiler();
+    MiniCCompiler opt = new MiniCCompiler(optimized);
+    for (int i = 0; i < iterations; i++) {
+      plain.compile("WarmUp.mc", WarmUpProgram);
+      opt.compile("WarmUp.mc", WarmUpProgram);
+    }
+  }
+
+  // Accepts connections until shutdown() is called.
+  public void serve() throws IOException {
+    running = true;
+    while (running) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        if (!running) {
+          break; // the server socket was closed by shutdown()
+        }
+        throw e;
+      }
+      workers.execute(() -> handle(socket));
+    }
+    workers.shutdown();
+  }
+
+  public void shutdown() {
+    running = false;
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      // nothing left to clean up
+    }
+  }
+
+  // Answers the requests on one connection until the client closes it.
+  private void handle(Socket socket) {
+    try (Socket s = socket) {
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(s.getInputStream()));
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(s.getOutputStream()));
+      while (true) {
+        int request;
+        try {
+          request = in.readInt();
+        } catch (EOFException e) {
+          return;
+        }
+        switch (request) {
+          case Protocol.COMPILE:
+            compile(in, out);
+            break;
+          case Protocol.STATUS:
+            out.writeUTF(status());
+            break;
+          case Protocol.SHUTDOWN:
+            out.writeUTF("bye");
+            out.flush();
+            shutdown();
+            return;
+          default:
+            return; // not a client of ours
+        }
+        out.flush();
+      }
+    } catch (IOException e) {
+      // The client went away; nothing to answer.
+    }
+  }
+
+  private void compile(DataInputStream in, DataOutputStream out)
+      throws IOException {
+    String sourceName = in.readUTF();
+    Options options = new Options();
+    options.Optimize = in.readBoolean();
+    options.JasminOutput = in.readBoolean();
+    int length = in.readInt();
+    if (length < 0 || length > Protocol.MAX_SOURCE_SIZE) {
+      throw new IOException("bad source size " + length);
+    }
+    byte[] text = new byte[length];
+    in.readFully(text);
+
+    metrics.started();
+    long start = System.nanoTime();
+    CompilationResult result;
+    try {
+      MiniCCompiler compiler = new MiniCCompiler(options);
+      compiler.useCache(cache);
+      result = compiler.compile(sourceName, ByteBuffer.wrap(text));
+    } catch (RuntimeException | StackOverflowError e) {
+      metrics.finished(System.nanoTime() - start, false);
+      writeResult(out, false, "ERROR: internal compiler error: " + e,
+          "", new byte[0]);
+      return;
+    }
+    metrics.finished(System.nanoTime() - start, result.isSuccessful());
+
+    List<Diagnostic> diagnostics = result.getDiagnostics();
+    out.writeBoolean(result.isSuccessful());
+    out.writeInt(diagnostics.size());
+    for (Diagnostic d : diagnostics) {
+      out.writeUTF(d.toString());
+    }
+    if (result.getJasminText() != null) {
+      writeOutput(out, result.getClassName() + ".j",
+          result.getJasminText().getBytes());
+    } else if (result.getClassBytes() != null) {
+      writeOutput(out, result.getClassName() + ".class",
+          result.getClassBytes());
+    } else {
+      writeOutput(out, "", new byte[0]);
+    }
+  }
+
+  private void writeResult(DataOutputStream out, boolean successful,
+                           String diagnostic, String outfile, byte[] bytes)
+      throws IOException {
+    out.writeBoolean(successful);
+    out.writeInt(1);
+    out.writeUTF(diagnostic);
+    writeOutput(out, outfile, bytes);
+  }
+
+  private void writeOutput(DataOutputStream out, String outfile,
+                           byte[] bytes) throws IOException {
+    out.writeUTF(outfile);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  public String status() {
+    long uptime = (System.nanoTime() - startTime) / 1000000000L;
+    return "uptime: " + uptime + " s\n"
+        + "requests: " + metrics.requests() + " (" + metrics.failed()
+        + " failed)\n"
+        + "active: " + metrics.active() + "\n"
+        + "queue depth: " + workers.getQueue().size() + "\n"
+        + "latency: p50 " + millis(metrics.percentile(50)) + " ms, p99 "
+        + millis(metrics.percentile(99)) + " ms (last "
+        + metrics.sampleSize() + " compilations)\n";
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.2f", nanos / 1e6);
+  }
+
+  private static void usage() {
+    System.out.println("Usage: CompileServer [-port <n>] [-threads <n>] [-cache <dir>]");
+    System.exit(1);
+  }
+
+  public static void main(String[] args) {
+    int port = Protocol.DEFAULT_PORT;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String cacheDir = "";
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("-port") && i + 1 < args.length) {
+          port = Integer.parseInt(args[++i]);
+        } else if (args[i].equals("-threads") && i + 1 < args.length) {
+          threads = Integer.parseInt(args[++i]);
+        } else if (args[i].equals("-cache") && i + 1 < args.length) {
+          cacheDir = args[++i];
+        } else {
+          usage();
+        }
+      }
+    } catch (NumberFormatException e) {
+      usage();
+    }
+    if (threads < 1) {
+      usage();
+    }
+    try {
+      CompileServer server = new CompileServer(port, threads);
+      if (!cacheDir.equals("")) {
+        server.useCache(new CompilationCache(Paths.get(cacheDir),
+            256L * 1024 * 1024));
+      }
+      server.warmUp(200);
+      System.out.println("MiniC compile server listening on "
+          + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+          + server.getPort());
+      server.serve();
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+}
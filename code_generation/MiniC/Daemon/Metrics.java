@@ -0,0 +1,70 @@
+package MiniC.Daemon;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Request counters and the latencies of the most recent compile requests
+// of a CompileServer. All methods may be called from any thread.
+
+class Metrics {
+
+  private final static int WINDOW = 1024; // latencies kept for percentiles
+
+  private AtomicLong requests = new AtomicLong();
+  private AtomicLong failed = new AtomicLong();
+  private AtomicInteger active = new AtomicInteger();
+
+  private long[] latencies = new long[WINDOW]; // ring buffer, nanoseconds
+  private int nrLatencies = 0;
+  private int next = 0;
+
+  void started() {
+    requests.incrementAndGet();
+    active.incrementAndGet();
+  }
+
+  void finished(long nanos, boolean successful) {
+    active.decrementAndGet();
+    if (!successful) {
+      failed.incrementAndGet();
+    }
+    synchronized (this) {
+      latencies[next] = nanos;
+      next = (next + 1) % WINDOW;
+      nrLatencies = Math.min(nrLatencies + 1, WINDOW);
+    }
+  }
+
+  long requests() {
+    return requests.get();
+  }
+
+  long failed() {
+    return failed.get();
+  }
+
+  int active() {
+    return active.get();
+  }
+
+  // The p-th percentile (0 < p <= 100) of the recorded latencies in
+  // nanoseconds, or 0 if there are none:
+  long percentile(int p) {
+    long[] sorted;
+    synchronized (this) {
+      sorted = Arrays.copyOf(latencies, nrLatencies);
+    }
+    if (sorted.length == 0) {
+      return 0;
+    }
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  synchronized int sampleSize() {
+    return nrLatencies;
+  }
+
+}
@@ -0,0 +1,33 @@
+package MiniC.Daemon;
+
+// The protocol between CompileClient and CompileServer. The client opens
+// a TCP connection to the server on the loopback interface and sends any
+// number of requests; the server answers each request before it reads
+// the next one. Everything is written with a DataOutputStream:
+//
+//   COMPILE   request:  int COMPILE, UTF source name, boolean optimize,
+//                       boolean jasmin, int n, n bytes of source text
+//             response: boolean successful, int k, k * UTF diagnostic,
+//                       UTF output file name ("" if none),
+//                       int n, n bytes of output
+//   STATUS    request:  int STATUS
+//             response: UTF status text
+//   SHUTDOWN  request:  int SHUTDOWN
+//             response: UTF "bye"
+
+final class Protocol {
+
+  final static int DEFAULT_PORT = 4747;
+
+  final static int
+      COMPILE = 1,
+      STATUS = 2,
+      SHUTDOWN = 3;
+
+  // Sources larger than this are rejected:
+  final static int MAX_SOURCE_SIZE = 64 * 1024 * 1024;
+
+  private Protocol() {
+  }
+
+}
@@ -0,0 +1,44 @@
+package MiniC;
+
+import MiniC.Scanner.SourcePos;
+
+// An error message of a compilation. Errors that do not belong to a
+// position in the source program (e.g., an output file that cannot be
+// written) have line 0.
+
+public class Diagnostic {
+
+  public final String message;
+  public final int line, startCol, endCol;
+
+  // An error from start to end, packed as by SourcePos.pack():
+  public Diagnostic(String message, long start, long end) {
+    this.message = message;
+    line = SourcePos.line(start);
+    startCol = SourcePos.col(start);
+    endCol = SourcePos.col(end);
+  }
+
+  public Diagnostic(String message, SourcePos pos) {
+    this.message = message;
+    if (pos != null) {
+      line = pos.StartLine;
+      startCol = pos.StartCol;
+      endCol = pos.EndCol;
+    } else {
+      line = 0;
+      startCol = 0;
+      endCol = 0;
+    }
+  }
+
+  // The message as the ErrorReporter prints it:
+  public String toString() {
+    if (line == 0) {
+      return "ERROR: " + message;
+    }
+    return "ERROR: " + message + " " + startCol + ".." + endCol
+        + ", line " + line + ".";
+  }
+
+}
@@ -0,0 +1,189 @@
+package MiniC;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+// The command line driver of the compiler. It is not MiniC.MiniC: the
+// jarNoScanner and jarNoScannerNoParser builds copy the provided
+// MiniC.class over ours, because the provided Scanner and Parser call
+// helpers in it. This class is the Main-Class of the jar instead.
+
+public class Driver {
+
+  //commandline args:
+  private static String sourceName;
+  private static Options options;
+  private static boolean Batch;
+  private static int Parallelism;
+  private static ArrayList<String> batchSources;
+  private static String CacheDir;
+  private static long CacheSize; // in bytes
+  private static CompilationCache cache;
+
+
+  static void compileProgram (String sourceName) {
+    Compilation c = new Compilation(sourceName, options,
+        StdEnvironment.getInstance(), System.out);
+    c.enableOutputFiles();
+    if (cache != null) {
+      c.useCache(cache);
+    }
+    c.run();
+  }
+
+  // Compiles all files in batchSources in parallel and exits with
+  // status 1 if any compilation failed.
+  static void compileBatch () {
+    // The StdEnvironment is only read during compilation; all
+    // compilations share one instance:
+    StdEnvironment stdenv = StdEnvironment.getInstance();
+    BatchCompiler batch = new BatchCompiler(options, Parallelism);
+    batch.useCache(cache);
+    for (String s : batchSources) {
+      batch.add(s);
+    }
+    if (batch.compileAll(stdenv) > 0) {
+      System.exit(1);
+    }
+  }
+
+  public static void usage() {
+    System.out.println("Usage: MiniC [options] filename");
+    System.out.println("       MiniC [options] -b file|directory ...");
+    System.out.println("Option: -ast1 to draw the AST before semantic analysis");
+    System.out.println("Option: -ast2 to draw the AST after semantic analysis");
+    System.out.println("Option: -envast to draw the StdEnvironment AST"); 
+    System.out.println("Option: -t <file> to dump the AST to <file>");
+    System.out.println("Option: -u <file> to unparse the AST to <file>");
+    System.out.println("Option: -j to generate Jasmin assembly code instead of a class file");
+    System.out.println("Option: -O to optimize (constant folding, peephole optimization and local variable slot allocation)");
+    System.out.println("Option: -stats to print the time, allocation and work of each phase");
+    System.out.println("Option: -b to compile several files and all .mc files in directories in parallel");
+    System.out.println("Option: -p <n> to use <n> threads with -b (default: number of processors)");
+    System.out.println("Option: -cache <dir> to reuse generated code from the cache in <dir>");
+    System.out.println("Option: -cachesize <n> to limit the cache to <n> MB (default: 256)");
+  }
+
+  // Returns false if the command line is not valid:
+  public static boolean processCmdLine(String[] args) {
+    options = new Options();
+    Batch = false;
+    Parallelism = Runtime.getRuntime().availableProcessors();
+    batchSources = new ArrayList<String>();
+    CacheDir = "";
+    CacheSize = 256L * 1024 * 1024;
+    sourceName = "";
+    int arg_index = 0;
+    while (arg_index < args.length) {
+      if (args[arg_index].equals("-ast1")) {
+        options.DrawTree1 = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-ast2")) {
+        options.DrawTree2 = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-envast")) {
+        options.DrawStdEnvTree = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-j")) {
+        options.JasminOutput = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-O")) {
+        options.Optimize = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-stats")) {
+        options.Stats = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-b")) {
+        Batch = true;
+        arg_index++;
+      } else if (args[arg_index].equals("-p")) {
+        if (arg_index + 1 >= args.length) {
+          return false;
+        }
+        arg_index++;
+        try {
+          Parallelism = Integer.parseInt(args[arg_index]);
+        } catch (NumberFormatException e) {
+          return false;
+        }
+        if (Parallelism < 1) {
+          return false;
+        }
+        arg_index++;
+      } else if (args[arg_index].equals("-cache")) {
+        if (arg_index + 1 >= args.length) {
+          return false;
+        }
+        arg_index++;
+        CacheDir = args[arg_index];
+        arg_index++;
+      } else if (args[arg_index].equals("-cachesize")) {
+        if (arg_index + 1 >= args.length) {
+          return false;
+        }
+        arg_index++;
+        try {
+          CacheSize = Long.parseLong(args[arg_index]) * 1024 * 1024;
+        } catch (NumberFormatException e) {
+          return false;
+        }
+        if (CacheSize < 1) {
+          return false;
+        }
+        arg_index++;
+      } else if (Batch) {
+        batchSources.add(args[arg_index]);
+        arg_index++;
+      } else if (args[arg_index].equals("-t")) {
+        options.PrintTree = true;
+        if (args.length < arg_index + 1) {
+          return false;
+        } else {
+          arg_index++;
+          options.PrintTreeF = args[arg_index];
+          arg_index++;
+        }
+      } else if (args[arg_index].equals("-u")) {
+        options.UnparseTree = true;
+        if (args.length < arg_index + 1) {
+          return false;
+        } else {
+          arg_index++;
+          options.UnparseTreeF = args[arg_index];
+          arg_index++;
+        }
+      } else {
+        sourceName = args[arg_index];
+        arg_index++;
+        if (arg_index < args.length) {
+          // After the input source file no arg is allowed:
+          return false;
+        }
+      }
+    }
+    return Batch ? !batchSources.isEmpty() : !sourceName.equals("");
+  }
+
+  public static void main(String[] args) {
+    if (!processCmdLine(args)) {
+      usage();
+      System.exit(1);
+    }
+    if (!CacheDir.equals("")) {
+      try {
+        cache = new CompilationCache(Paths.get(CacheDir), CacheSize);
+      } catch (IOException e) {
+        System.err.println("Error: cannot use cache directory " + CacheDir
+            + ": " + e.getMessage());
+        System.exit(1);
+      }
+    }
+    if (Batch) {
+      compileBatch();
+    } else {
+      compileProgram(sourceName);
+    }
+  }
+
+}
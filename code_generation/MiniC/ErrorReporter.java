@@ -1,28 +1,82 @@
 package MiniC;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import MiniC.Scanner.SourcePos;
+import MiniC.AstGen.AST;
 
 public class ErrorReporter {
 
   int numErrors;
+  private PrintStream out;
+  private ArrayList<Diagnostic> diagnostics;
 
   ErrorReporter()
+  {
+    this(System.out);
+  }
+
+  // Error messages go to out instead of System.out; used when several
+  // compilations run in parallel. If out is null, the messages are only
+  // collected (see getDiagnostics()).
+  ErrorReporter(PrintStream out)
   {
     numErrors = 0;
+    this.out = out;
+    this.diagnostics = new ArrayList<Diagnostic>();
   }
 
   public void reportError(String message, String tokenName, SourcePos pos) {
-    System.out.print ("ERROR: ");
+    report(new Diagnostic(format(message, tokenName), pos));
+  }
+
+  // Reports an error at the position of x:
+  public void reportError(String message, String tokenName, AST x) {
+    report(new Diagnostic(format(message, tokenName), x.start, x.end));
+  }
+
+  // Reports an error that has no position in the source program:
+  public void reportError(String message) {
+    report(new Diagnostic(message, null));
+  }
 
+  // Reports a line that the scanner printed (see ScannerMessages). The
+  // scanner goes on after such an error, and the provided compiler lets
+  // the parse errors that follow decide whether the compilation fails, so
+  // the line is not counted as an error.
+  void reportScannerMessage(String line) {
+    String message = line.startsWith("ERROR: ") ? line.substring(7) : line;
+    Diagnostic d = new Diagnostic(message, null);
+    diagnostics.add(d);
+    if (out != null) {
+      out.println(d);
+    }
+  }
+
+  // Replaces every '%' in message by tokenName:
+  private static String format(String message, String tokenName) {
+    StringBuilder m = new StringBuilder();
     for (int c = 0; c < message.length(); c++) {
       if (message.charAt(c) == '%') {
-        System.out.print(tokenName);
+        m.append(tokenName);
       } else {
-        System.out.print(message.charAt(c));
+        m.append(message.charAt(c));
       }
     }
-    System.out.println(" " + pos.StartCol + ".." + pos.EndCol + ", line " + pos.StartLine + ".");
+    return m.toString();
+  }
+
+  private void report(Diagnostic d) {
+    diagnostics.add(d);
+    if (out != null) {
+      out.println(d);
+    }
     numErrors++;
   }
 
+  public List<Diagnostic> getDiagnostics() {
+    return diagnostics;
+  }
+
 }
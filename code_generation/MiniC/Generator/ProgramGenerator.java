@@ -0,0 +1,553 @@
+package MiniC.Generator;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Random;
+
+// Generates random MiniC programs for load tests, stress tests and
+// benchmarks. The same seed and parameters always give the same program.
+//
+// The programs are correct: they pass semantic analysis and use only
+// what the code generator implements (no arrays). Every identifier is
+// declared before it is used, every expression has the type its context
+// requires (up to int-to-float coercion), functions only call functions
+// defined before them, and every loop runs a bounded number of times
+// (its counter is not assigned in the loop body). Since functions call
+// each other from loops, running a large program may still take long.
+//
+// Usage: java MiniC.Generator.ProgramGenerator [-seed <n>] [-globals <n>]
+//          [-functions <n>] [-statements <n>] [-depth <n>]
+//          [-exprdepth <n>] [-params <n>] [-size <n>[K|M|G]] [-o <file>]
+
+public class ProgramGenerator {
+
+  private final static int INT = 0, FLOAT = 1, BOOL = 2, VOID = 3;
+  private final static String[] TypeName = { "int", "float", "bool", "void" };
+
+  // The parameters (see the constructor for the defaults):
+  public long Seed;
+  public int Globals;     // number of global variables
+  public int Functions;   // number of functions besides main
+  public int Statements;  // number of statements per function body
+  public int Depth;       // maximum nesting depth of blocks, if, while and for
+  public int ExprDepth;   // maximum depth of expressions
+  public int Params;      // maximum number of parameters of a function
+  public long Size;       // if > 0: generate functions until the program
+                          // has at least Size bytes (instead of Functions)
+
+  private Random random;
+  private Writer out;
+  private long written;   // characters (= bytes) written so far
+
+  // Global variables by type:
+  private ArrayList<ArrayList<String>> globals;
+  // The functions defined so far: their return types and parameter
+  // types, and their numbers by return type:
+  private ArrayList<Integer> funType;
+  private ArrayList<int[]> funParams;
+  private ArrayList<ArrayList<Integer>> funsOfType;
+  // The parameters and local variables visible at the current point of
+  // the current function, innermost last:
+  private ArrayList<String> localNames;
+  private ArrayList<Integer> localTypes;
+  private int nrLocals;   // locals declared in the current function
+
+  public ProgramGenerator() {
+    Seed = 1;
+    Globals = 20;
+    Functions = 20;
+    Statements = 10;
+    Depth = 3;
+    ExprDepth = 3;
+    Params = 3;
+    Size = 0;
+  }
+
+  public String generate() {
+    StringWriter s = new StringWriter();
+    try {
+      generate(s);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // a StringWriter does not fail
+    }
+    return s.toString();
+  }
+
+  public void generate(Writer out) throws IOException {
+    this.out = out;
+    random = new Random(Seed);
+    written = 0;
+    globals = new ArrayList<ArrayList<String>>();
+    funsOfType = new ArrayList<ArrayList<Integer>>();
+    for (int t = INT; t <= VOID; t++) {
+      globals.add(new ArrayList<String>());
+      funsOfType.add(new ArrayList<Integer>());
+    }
+    funType = new ArrayList<Integer>();
+    funParams = new ArrayList<int[]>();
+    localNames = new ArrayList<String>();
+    localTypes = new ArrayList<Integer>();
+
+    for (int i = 0; i < Globals; i++) {
+      genGlobal(i);
+    }
+    if (Globals > 0) {
+      emit("\n");
+    }
+    for (int i = 0; Size > 0 ? written < Size : i < Functions; i++) {
+      genFunction(i);
+    }
+    genMain();
+    out.flush();
+  }
+
+  private void emit(String s) throws IOException {
+    out.write(s);
+    written += s.length();
+  }
+
+  private void indent(int level) throws IOException {
+    for (int i = 0; i < level; i++) {
+      emit("  ");
+    }
+  }
+
+  private int randomType() {
+    return random.nextInt(3); // INT, FLOAT or BOOL
+  }
+
+  //
+  // Declarations:
+  //
+
+  private void genGlobal(int i) throws IOException {
+    int t = randomType();
+    String name = "g" + i;
+    emit(TypeName[t] + " " + name);
+    if (random.nextInt(3) == 0) {
+      emit(" = " + literal(t));
+    }
+    emit(";\n");
+    globals.get(t).add(name);
+  }
+
+  private void genFunction(int n) throws IOException {
+    int type = random.nextInt(4);
+    int[] params = new int[Params > 0 ? random.nextInt(Params + 1) : 0];
+    emit(TypeName[type] + " f" + n + "(");
+    for (int i = 0; i < params.length; i++) {
+      params[i] = randomType();
+      emit((i > 0 ? ", " : "") + TypeName[params[i]] + " p" + i);
+      localNames.add("p" + i);
+      localTypes.add(params[i]);
+    }
+    emit(") {\n");
+    genBody(Statements);
+    if (type != VOID) {
+      indent(1);
+      emit("return " + expr(type, ExprDepth) + ";\n");
+    }
+    emit("}\n\n");
+    localNames.clear();
+    localTypes.clear();
+    // Defined only now, so that it does not call itself:
+    funType.add(type);
+    funParams.add(params);
+    funsOfType.get(type).add(n);
+  }
+
+  private void genMain() throws IOException {
+    emit("int main() {\n");
+    genBody(Statements);
+    indent(1);
+    emit("return 0;\n");
+    emit("}\n");
+  }
+
+  // The declarations and statements of a function body. The loop
+  // counters k1, k2, ... (one per nesting level) are never assigned
+  // outside of their loop headers.
+  private void genBody(int statements) throws IOException {
+    nrLocals = 0;
+    if (Depth > 0) {
+      indent(1);
+      for (int d = 1; d <= Depth; d++) {
+        emit((d > 1 ? " " : "") + "int k" + d + ";");
+      }
+      emit("\n");
+    }
+    int mark = localNames.size();
+    genLocals(1, random.nextInt(4));
+    for (int i = 0; i < statements; i++) {
+      genStmt(1, 0);
+    }
+    pop(mark);
+  }
+
+  private void genLocals(int level, int n) throws IOException {
+    for (int i = 0; i < n; i++) {
+      int t = randomType();
+      String name = "v" + nrLocals++;
+      indent(level);
+      emit(TypeName[t] + " " + name);
+      if (random.nextBoolean()) {
+        // No coercion here: the initializer has exactly the type of the
+        // variable.
+        emit(" = " + expr(t, ExprDepth, false));
+      }
+      emit(";\n");
+      localNames.add(name);
+      localTypes.add(t);
+    }
+  }
+
+  // Makes the locals declared after mark invisible again:
+  private void pop(int mark) {
+    while (localNames.size() > mark) {
+      localNames.remove(localNames.size() - 1);
+      localTypes.remove(localTypes.size() - 1);
+    }
+  }
+
+  //
+  // Statements; nesting is the number of enclosing compound, if, while
+  // and for statements:
+  //
+
+  private void genStmt(int level, int nesting) throws IOException {
+    int choice = random.nextInt(nesting < Depth ? 10 : 5);
+    switch (choice) {
+      case 0: case 1: case 2:
+        genAssignment(level);
+        break;
+      case 3:
+        genCall(level);
+        break;
+      case 4:
+        genPut(level);
+        break;
+      case 5:
+        genCompound(level, nesting);
+        break;
+      case 6: case 7:
+        genIf(level, nesting);
+        break;
+      case 8:
+        genWhile(level, nesting);
+        break;
+      default:
+        genFor(level, nesting);
+        break;
+    }
+  }
+
+  private void genAssignment(int level) throws IOException {
+    int t = randomType();
+    String v = variable(t);
+    if (v == null) {
+      genPut(level);
+      return;
+    }
+    indent(level);
+    // int values may be assigned to float variables:
+    int et = (t == FLOAT && random.nextInt(4) == 0) ? INT : t;
+    emit(v + " = " + expr(et, ExprDepth) + ";\n");
+  }
+
+  private void genCall(int level) throws IOException {
+    if (funType.isEmpty()) {
+      genPut(level);
+      return;
+    }
+    int f = random.nextInt(funType.size());
+    indent(level);
+    emit(call(f, ExprDepth) + ";\n");
+  }
+
+  private void genPut(int level) throws IOException {
+    indent(level);
+    switch (random.nextInt(5)) {
+      case 0:
+        emit("putInt(" + expr(INT, ExprDepth) + ");\n");
+        break;
+      case 1:
+        emit("putFloat(" + expr(FLOAT, ExprDepth) + ");\n");
+        break;
+      case 2:
+        emit("putBool(" + expr(BOOL, ExprDepth) + ");\n");
+        break;
+      case 3:
+        emit("putString(\"s" + random.nextInt(100) + "\");\n");
+        break;
+      default:
+        emit("putLn();\n");
+        break;
+    }
+  }
+
+  private void genCompound(int level, int nesting) throws IOException {
+    indent(level);
+    emit("{\n");
+    genBlockContents(level + 1, nesting + 1);
+    indent(level);
+    emit("}\n");
+  }
+
+  // The body of a compound statement: a few locals and statements.
+  private void genBlockContents(int level, int nesting) throws IOException {
+    int mark = localNames.size();
+    genLocals(level, random.nextInt(3));
+    int n = 1 + random.nextInt(3);
+    for (int i = 0; i < n; i++) {
+      genStmt(level, nesting);
+    }
+    pop(mark);
+  }
+
+  // The body of an if, while or for statement:
+  private void genSubStmt(int level, int nesting) throws IOException {
+    emit(" {\n");
+    genBlockContents(level + 1, nesting);
+    indent(level);
+    emit("}");
+  }
+
+  private void genIf(int level, int nesting) throws IOException {
+    indent(level);
+    emit("if (" + expr(BOOL, ExprDepth) + ")");
+    genSubStmt(level, nesting + 1);
+    if (random.nextBoolean()) {
+      emit(" else");
+      genSubStmt(level, nesting + 1);
+    }
+    emit("\n");
+  }
+
+  private void genWhile(int level, int nesting) throws IOException {
+    String k = "k" + (nesting + 1);
+    indent(level);
+    emit(k + " = 0;\n");
+    indent(level);
+    emit("while (" + k + " < " + (1 + random.nextInt(4)));
+    if (random.nextBoolean()) {
+      emit(" && " + expr(BOOL, ExprDepth - 1));
+    }
+    emit(") {\n");
+    genBlockContents(level + 1, nesting + 1);
+    indent(level + 1);
+    emit(k + " = " + k + " + 1;\n");
+    indent(level);
+    emit("}\n");
+  }
+
+  private void genFor(int level, int nesting) throws IOException {
+    String k = "k" + (nesting + 1);
+    indent(level);
+    emit("for (" + k + " = 0; " + k + " < " + (1 + random.nextInt(4)) + "; "
+        + k + " = " + k + " + 1)");
+    genSubStmt(level, nesting + 1);
+    emit("\n");
+  }
+
+  //
+  // Expressions. Every binary expression is parenthesized, so that the
+  // generated text parses as generated.
+  //
+
+  private String expr(int t, int depth) {
+    return expr(t, depth, true);
+  }
+
+  // An expression of type t. With coerce, int operands may appear in
+  // float arithmetic.
+  private String expr(int t, int depth, boolean coerce) {
+    if (depth <= 0 || random.nextInt(4) == 0) {
+      return leaf(t);
+    }
+    switch (t) {
+      case INT:
+        switch (random.nextInt(6)) {
+          case 0: case 1:
+            return "(" + expr(INT, depth - 1, coerce) + " "
+                + pick("+", "-", "*") + " " + expr(INT, depth - 1, coerce) + ")";
+          case 2:
+            // Divisors are non-zero literals, so that constant folding
+            // never divides by zero:
+            return "(" + expr(INT, depth - 1, coerce) + " / "
+                + (1 + random.nextInt(9)) + ")";
+          case 3:
+            return "-" + expr(INT, depth - 1, coerce);
+          default:
+            return callOrLeaf(INT, depth);
+        }
+      case FLOAT:
+        switch (random.nextInt(6)) {
+          case 0: case 1:
+            int rt = (coerce && random.nextInt(3) == 0) ? INT : FLOAT;
+            return "(" + expr(FLOAT, depth - 1, coerce) + " "
+                + pick("+", "-", "*") + " " + expr(rt, depth - 1, coerce) + ")";
+          case 2:
+            return "(" + expr(FLOAT, depth - 1, coerce) + " / "
+                + (1 + random.nextInt(9)) + ".5)";
+          case 3:
+            return "-" + expr(FLOAT, depth - 1, coerce);
+          default:
+            return callOrLeaf(FLOAT, depth);
+        }
+      default: // BOOL
+        switch (random.nextInt(6)) {
+          case 0: case 1:
+            int ct = random.nextBoolean() ? INT : FLOAT;
+            return "(" + expr(ct, depth - 1, coerce) + " "
+                + pick("<", "<=", ">", ">=", "==", "!=") + " "
+                + expr(ct, depth - 1, coerce) + ")";
+          case 2:
+            return "(" + expr(BOOL, depth - 1, coerce) + " "
+                + pick("&&", "||") + " " + expr(BOOL, depth - 1, coerce) + ")";
+          case 3:
+            return "!" + expr(BOOL, depth - 1, coerce);
+          default:
+            return callOrLeaf(BOOL, depth);
+        }
+    }
+  }
+
+  // A call of a function that returns t, or a leaf if there is none:
+  private String callOrLeaf(int t, int depth) {
+    ArrayList<Integer> funs = funsOfType.get(t);
+    if (funs.isEmpty()) {
+      return leaf(t);
+    }
+    // The arguments get half the depth; with up to Params arguments per
+    // call, the expressions would grow exponentially otherwise:
+    return call(funs.get(random.nextInt(funs.size())), (depth - 1) / 2);
+  }
+
+  private String call(int f, int depth) {
+    StringBuilder s = new StringBuilder("f" + f + "(");
+    int[] params = funParams.get(f);
+    for (int i = 0; i < params.length; i++) {
+      if (i > 0) {
+        s.append(", ");
+      }
+      s.append(expr(params[i], depth, false));
+    }
+    return s.append(")").toString();
+  }
+
+  private String leaf(int t) {
+    String v = random.nextBoolean() ? variable(t) : null;
+    return v != null ? v : literal(t);
+  }
+
+  private String literal(int t) {
+    switch (t) {
+      case INT:
+        return Integer.toString(random.nextInt(100));
+      case FLOAT:
+        return random.nextInt(100) + "." + random.nextInt(10);
+      default:
+        return random.nextBoolean() ? "true" : "false";
+    }
+  }
+
+  // A visible variable of type t, or null if there is none. Locals and
+  // parameters are preferred over globals.
+  private String variable(int t) {
+    int n = 0;
+    for (int type : localTypes) {
+      if (type == t) {
+        n++;
+      }
+    }
+    ArrayList<String> g = globals.get(t);
+    if (n > 0 && (g.isEmpty() || random.nextInt(4) != 0)) {
+      int k = random.nextInt(n);
+      for (int i = 0; i < localTypes.size(); i++) {
+        if (localTypes.get(i) == t && k-- == 0) {
+          return localNames.get(i);
+        }
+      }
+    }
+    if (g.isEmpty()) {
+      return null;
+    }
+    return g.get(random.nextInt(g.size()));
+  }
+
+  private String pick(String... choices) {
+    return choices[random.nextInt(choices.length)];
+  }
+
+  //
+  // The command line interface:
+  //
+
+  private static void usage() {
+    System.out.println("Usage: ProgramGenerator [-seed <n>] [-globals <n>] [-functions <n>]");
+    System.out.println("         [-statements <n>] [-depth <n>] [-exprdepth <n>] [-params <n>]");
+    System.out.println("         [-size <n>[K|M|G]] [-o <file>]");
+    System.exit(1);
+  }
+
+  // Parses sizes like 100, 64K, 10M or 1G:
+  private static long parseSize(String s) {
+    long unit = 1;
+    char last = Character.toUpperCase(s.charAt(s.length() - 1));
+    if (last == 'K' || last == 'M' || last == 'G') {
+      unit = last == 'K' ? 1024L : last == 'M' ? 1024L * 1024 : 1024L * 1024 * 1024;
+      s = s.substring(0, s.length() - 1);
+    }
+    return Long.parseLong(s) * unit;
+  }
+
+  public static void main(String[] args) {
+    ProgramGenerator g = new ProgramGenerator();
+    String outfile = "";
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (i + 1 >= args.length) {
+          usage();
+        }
+        String value = args[i + 1];
+        if (args[i].equals("-seed")) {
+          g.Seed = Long.parseLong(value);
+        } else if (args[i].equals("-globals")) {
+          g.Globals = Integer.parseInt(value);
+        } else if (args[i].equals("-functions")) {
+          g.Functions = Integer.parseInt(value);
+        } else if (args[i].equals("-statements")) {
+          g.Statements = Integer.parseInt(value);
+        } else if (args[i].equals("-depth")) {
+          g.Depth = Integer.parseInt(value);
+        } else if (args[i].equals("-exprdepth")) {
+          g.ExprDepth = Integer.parseInt(value);
+        } else if (args[i].equals("-params")) {
+          g.Params = Integer.parseInt(value);
+        } else if (args[i].equals("-size")) {
+          g.Size = parseSize(value);
+        } else if (args[i].equals("-o")) {
+          outfile = value;
+        } else {
+          usage();
+        }
+        i++;
+      }
+    } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+      usage();
+    }
+    if (g.Globals < 0 || g.Functions < 0 || g.Statements < 0 || g.Depth < 0
+        || g.ExprDepth < 0 || g.Params < 0) {
+      usage();
+    }
+    try (Writer out = new BufferedWriter(new OutputStreamWriter(
+        outfile.equals("") ? System.out : new FileOutputStream(outfile),
+        "ISO-8859-1"), 1 << 16)) {
+      g.generate(out);
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+}
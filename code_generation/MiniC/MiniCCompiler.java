@@ -0,0 +1,62 @@
+package MiniC;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+// The compiler as a library, for programs that compile MiniC code
+// without starting a JVM per file. The generated code is returned in
+// the CompilationResult; nothing is printed and no files are written
+// (except tree dumps requested by the Options). Errors, including
+// unreadable source files and the lexical errors that the provided
+// Scanner prints itself, are reported as Diagnostics in the result (see
+// ScannerMessages). As with the command line compiler, a lexical error
+// fails the compilation only through the parse errors it causes; e.g.,
+// an illegal escape sequence is a Diagnostic of a successful result.
+//
+// A MiniCCompiler can be used by several threads at the same time.
+
+public class MiniCCompiler {
+
+  private Options options;
+  private CompilationCache cache; // null: no cache
+
+  public MiniCCompiler() {
+    this(new Options());
+  }
+
+  public MiniCCompiler(Options options) {
+    this.options = options;
+  }
+
+  // Reuse generated code from cache (and store new code there):
+  public void useCache(CompilationCache cache) {
+    this.cache = cache;
+  }
+
+  // Compiles the program text. "name" is the name of the source file;
+  // it is used for the class name.
+  public CompilationResult compile(String name, String text) {
+    return compile(name,
+        ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)));
+  }
+
+  // Compiles the bytes between the position and the limit of text:
+  public CompilationResult compile(String name, ByteBuffer text) {
+    return run(new Compilation(name, text, options,
+        StdEnvironment.getInstance(), null));
+  }
+
+  public CompilationResult compile(Path sourceFile) {
+    return run(new Compilation(sourceFile.toString(), null, options,
+        StdEnvironment.getInstance(), null));
+  }
+
+  private CompilationResult run(Compilation c) {
+    if (cache != null) {
+      c.useCache(cache);
+    }
+    return c.run();
+  }
+
+}
@@ -0,0 +1,516 @@
+package MiniC.Optimizer;
+
+import java.util.IdentityHashMap;
+import MiniC.StdEnvironment;
+import MiniC.Scanner.SourcePos;
+import MiniC.AstGen.*;
+
+// Constant folding and propagation on the decorated AST. This pass runs
+// after semantic analysis, so all expressions carry their types and
+// int-to-float coercions are explicit "i2f" UnaryExprs.
+//
+// Folding: BinaryExprs and UnaryExprs whose operands are IntExpr,
+// FloatExpr or BoolExpr literals are replaced by a literal of the result.
+// Divisions by zero and float results that are not finite are left to
+// the runtime. "true && e", "false || e" etc. are simplified because the
+// right operand would not be evaluated anyway.
+//
+// Propagation: a variable whose declaration has a constant initializer
+// and that is never assigned to is replaced by that constant at all its
+// applied occurrences. So is a local variable without initializer that
+// is assigned exactly once, by an assignment statement of a constant
+// among the statements of the block that declares it ("int x; x = 5;"):
+// its occurrences after that statement are replaced. The statements of
+// a block run in order, so the assignment precedes them; occurrences
+// before it are left alone.
+//
+// The AST is traversed twice: the first traversal folds literal
+// expressions and counts the assignments to each variable; the second
+// traversal propagates the constants and folds again.
+
+public class ConstantFolding implements Visitor {
+
+  private Expr result; // replacement for the expression visited last
+  private boolean propagate;
+  private IdentityHashMap<Decl, Integer> assigned; // number of assignments
+  private IdentityHashMap<Decl, Expr> constants;
+
+  public void optimize(Program progAST) {
+    assigned = new IdentityHashMap<Decl, Integer>();
+    constants = new IdentityHashMap<Decl, Expr>();
+    propagate = false;
+    progAST.accept(this);
+    propagate = true;
+    progAST.accept(this);
+  }
+
+  // Folds expression e and returns the expression that replaces it
+  // (e itself if nothing could be folded):
+  private Expr fold(Expr e) {
+    result = e;
+    e.accept(this);
+    return result;
+  }
+
+  private boolean isLiteral(Expr e) {
+    return (e instanceof IntExpr) || (e instanceof FloatExpr)
+        || (e instanceof BoolExpr);
+  }
+
+  private int intValue(Expr e) {
+    return ((IntExpr) e).GetValue();
+  }
+
+  private float floatValue(Expr e) {
+    return Float.parseFloat(((FloatExpr) e).astFL.Lexeme);
+  }
+
+  private boolean boolValue(Expr e) {
+    return ((BoolExpr) e).astBL.Lexeme.equals("true");
+  }
+
+  // The literals are placed at the expression they replace, at; the
+  // positions are copied, so the nodes are created with NoPos:
+  private final static SourcePos NoPos = new SourcePos();
+
+  private Expr makeInt(int value, AST at) {
+    IntLiteral l = new IntLiteral(Integer.toString(value), NoPos);
+    l.setPosition(at);
+    Expr e = new IntExpr(l, NoPos);
+    e.setPosition(at);
+    e.type = StdEnvironment.intType;
+    return e;
+  }
+
+  private Expr makeFloat(float value, AST at) {
+    FloatLiteral l = new FloatLiteral(Float.toString(value), NoPos);
+    l.setPosition(at);
+    Expr e = new FloatExpr(l, NoPos);
+    e.setPosition(at);
+    e.type = StdEnvironment.floatType;
+    return e;
+  }
+
+  private Expr makeBool(boolean value, AST at) {
+    BoolLiteral l = new BoolLiteral(value ? "true" : "false", NoPos);
+    l.setPosition(at);
+    Expr e = new BoolExpr(l, NoPos);
+    e.setPosition(at);
+    e.type = StdEnvironment.boolType;
+    return e;
+  }
+
+  // A fresh copy of literal e at the position of at:
+  private Expr copyLiteral(Expr e, AST at) {
+    if (e instanceof IntExpr) {
+      return makeInt(intValue(e), at);
+    } else if (e instanceof FloatExpr) {
+      return makeFloat(floatValue(e), at);
+    } else {
+      return makeBool(boolValue(e), at);
+    }
+  }
+
+  // Counts an assignment to the variable on the left-hand side (in the
+  // first traversal only):
+  private void recordAssignment(Expr lhs) {
+    if (!propagate && lhs instanceof VarExpr) {
+      AST D = ((VarExpr) lhs).Ident.declAST;
+      if (D instanceof Decl) {
+        assigned.merge((Decl) D, 1, Integer::sum);
+      }
+    }
+  }
+
+  // Visits the statements of a block one by one (s is a StmtList, a
+  // StmtSequence chain or a single statement). In the second traversal,
+  // an assignment of a constant to a variable of locals that is assigned
+  // only there makes the variable a constant for the statements after it.
+  private void visitBlockStmts(Stmt s, IdentityHashMap<Decl, Boolean> locals) {
+    if (s instanceof StmtList) {
+      for (Stmt t : ((StmtList) s).elements) {
+        visitBlockStmt(t, locals);
+      }
+      return;
+    }
+    while (s instanceof StmtSequence) {
+      visitBlockStmt(((StmtSequence) s).s1AST, locals);
+      s = ((StmtSequence) s).s2AST;
+    }
+    visitBlockStmt(s, locals);
+  }
+
+  private void visitBlockStmt(Stmt s, IdentityHashMap<Decl, Boolean> locals) {
+    s.accept(this);
+    if (!propagate || !(s instanceof AssignStmt)) {
+      return;
+    }
+    AssignStmt a = (AssignStmt) s;
+    if (!(a.lAST instanceof VarExpr)) {
+      return;
+    }
+    AST D = ((VarExpr) a.lAST).Ident.declAST;
+    if (locals.containsKey(D) && assigned.get(D) == 1
+        && isLiteral(a.rAST) && a.rAST.type.Tequal(((VarDecl) D).tAST)) {
+      constants.put((Decl) D, a.rAST);
+    }
+  }
+
+  // Enters the variables without initializer that d declares into locals
+  // (d is a DeclList, a DeclSequence chain or a single declaration):
+  private void collectUninitialized(Decl d,
+                                    IdentityHashMap<Decl, Boolean> locals) {
+    if (d instanceof DeclList) {
+      for (Decl e : ((DeclList) d).elements) {
+        collectUninitialized(e, locals);
+      }
+      return;
+    }
+    while (d instanceof DeclSequence) {
+      collectUninitialized(((DeclSequence) d).D1, locals);
+      d = ((DeclSequence) d).D2;
+    }
+    if (d instanceof VarDecl && ((VarDecl) d).eAST instanceof EmptyExpr) {
+      locals.put(d, true);
+    }
+  }
+
+  public void visit(Program x) {
+    x.D.accept(this);
+  }
+
+  public void visit(EmptyDecl x) {
+  }
+
+  public void visit(FunDecl x) {
+    x.paramsAST.accept(this);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(TypeDecl x) {
+  }
+
+  public void visit(FormalParamDecl x) {
+  }
+
+  public void visit(FormalParamDeclSequence x) {
+  }
+
+  public void visit(FormalParamDeclList x) {
+  }
+
+  public void visit(EmptyFormalParamDecl x) {
+  }
+
+  public void visit(StmtSequence x) {
+    x.s1AST.accept(this);
+    x.s2AST.accept(this);
+  }
+
+  public void visit(StmtList x) {
+    for (Stmt s : x.elements) {
+      s.accept(this);
+    }
+  }
+
+  public void visit(AssignStmt x) {
+    recordAssignment(x.lAST);
+    if (x.lAST instanceof ArrayExpr) {
+      x.lAST.accept(this); // fold the index only
+    }
+    x.rAST = fold(x.rAST);
+  }
+
+  public void visit(IfStmt x) {
+    x.eAST = fold(x.eAST);
+    x.thenAST.accept(this);
+    if (x.elseAST != null) {
+      x.elseAST.accept(this);
+    }
+  }
+
+  public void visit(WhileStmt x) {
+    x.eAST = fold(x.eAST);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(ForStmt x) {
+    x.e1AST = fold(x.e1AST);
+    x.e2AST = fold(x.e2AST);
+    x.e3AST = fold(x.e3AST);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(ReturnStmt x) {
+    x.eAST = fold(x.eAST);
+  }
+
+  public void visit(CompoundStmt x) {
+    x.astDecl.accept(this);
+    IdentityHashMap<Decl, Boolean> locals = new IdentityHashMap<Decl, Boolean>();
+    if (propagate) {
+      collectUninitialized(x.astDecl, locals);
+    }
+    visitBlockStmts(x.astStmt, locals);
+  }
+
+  public void visit(EmptyStmt x) {
+  }
+
+  public void visit(EmptyCompoundStmt x) {
+  }
+
+  public void visit(CallStmt x) {
+    x.eAST = fold(x.eAST);
+  }
+
+  public void visit(VarDecl x) {
+    x.eAST = fold(x.eAST);
+    // The type check guards against initializers that were not coerced
+    // to the variable's type:
+    if (propagate && isLiteral(x.eAST) && !assigned.containsKey(x)
+        && x.eAST.type.Tequal(x.tAST)) {
+      constants.put(x, x.eAST);
+    }
+  }
+
+  public void visit(DeclSequence x){
+    x.D1.accept(this);
+    x.D2.accept(this);
+  }
+
+  public void visit(DeclList x) {
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
+  public void visit(VarExpr x) {
+    if (propagate) {
+      Expr c = constants.get(x.Ident.declAST);
+      if (c != null) {
+        result = copyLiteral(c, x);
+      }
+    }
+  }
+
+  public void visit(AssignExpr x) {
+    recordAssignment(x.lAST);
+    if (x.lAST instanceof ArrayExpr) {
+      x.lAST.accept(this);
+    }
+    x.rAST = fold(x.rAST);
+    result = x;
+  }
+
+  public void visit(IntExpr x) {
+  }
+
+  public void visit(FloatExpr x) {
+  }
+
+  public void visit(BoolExpr x) {
+  }
+
+  public void visit(StringExpr x) {
+  }
+
+  public void visit(ArrayExpr x) {
+    x.indexAST = fold(x.indexAST);
+    result = x;
+  }
+
+  public void visit(BinaryExpr x) {
+    x.lAST = fold(x.lAST);
+    x.rAST = fold(x.rAST);
+    result = x;
+    int Op = x.oAST.kind;
+    Expr l = x.lAST;
+    Expr r = x.rAST;
+    if (Op == Operator.AND || Op == Operator.OR) {
+      if (l instanceof BoolExpr) {
+        boolean shortCircuit =
+            Op == Operator.AND ? !boolValue(l) : boolValue(l);
+        // "false && e" is false and "true || e" is true; otherwise the
+        // value is the value of e:
+        result = shortCircuit ? makeBool(boolValue(l), x) : r;
+      }
+      return;
+    }
+    if (!isLiteral(l) || !isLiteral(r)) {
+      return;
+    }
+    if ((l instanceof IntExpr) && (r instanceof IntExpr)) {
+      int a = intValue(l);
+      int b = intValue(r);
+      switch (Op) {
+        case Operator.PLUS:
+          result = makeInt(a + b, x);
+          break;
+        case Operator.MINUS:
+          result = makeInt(a - b, x);
+          break;
+        case Operator.TIMES:
+          result = makeInt(a * b, x);
+          break;
+        case Operator.DIV:
+          if (b != 0) {
+            result = makeInt(a / b, x);
+          }
+          break;
+        default:
+          result = makeBool(compare(Op, Integer.compare(a, b)), x);
+      }
+    } else if ((l instanceof FloatExpr) && (r instanceof FloatExpr)) {
+      float a = floatValue(l);
+      float b = floatValue(r);
+      float v;
+      switch (Op) {
+        case Operator.PLUS:
+          v = a + b;
+          break;
+        case Operator.MINUS:
+          v = a - b;
+          break;
+        case Operator.TIMES:
+          v = a * b;
+          break;
+        case Operator.DIV:
+          v = a / b;
+          break;
+        default:
+          result = makeBool(compare(Op, Float.compare(a, b)), x);
+          if (a == b) {
+            // Float.compare distinguishes 0.0 and -0.0, the JVM does not:
+            result = makeBool(compare(Op, 0), x);
+          }
+          return;
+      }
+      if (!Float.isNaN(v) && !Float.isInfinite(v)) {
+        result = makeFloat(v, x);
+      }
+    } else if ((l instanceof BoolExpr) && (r instanceof BoolExpr)) {
+      int c = Boolean.compare(boolValue(l), boolValue(r));
+      if (Op == Operator.EQ || Op == Operator.NOTEQ) {
+        result = makeBool(compare(Op, c), x);
+      }
+    }
+  }
+
+  // Applies relational operator Op to the result c of a comparison
+  // (negative: less, 0: equal, positive: greater):
+  private boolean compare(int Op, int c) {
+    switch (Op) {
+      case Operator.EQ:
+        return c == 0;
+      case Operator.NOTEQ:
+        return c != 0;
+      case Operator.LT:
+        return c < 0;
+      case Operator.LE:
+        return c <= 0;
+      case Operator.GT:
+        return c > 0;
+      default:
+        assert(Op == Operator.GE);
+        return c >= 0;
+    }
+  }
+
+  public void visit(UnaryExpr x) {
+    x.eAST = fold(x.eAST);
+    result = x;
+    int Op = x.oAST.kind;
+    Expr e = x.eAST;
+    if (Op == Operator.PLUS && isLiteral(e)) {
+      result = e;
+    } else if (Op == Operator.MINUS && (e instanceof IntExpr)) {
+      result = makeInt(-intValue(e), x);
+    } else if (Op == Operator.MINUS && (e instanceof FloatExpr)) {
+      result = makeFloat(-floatValue(e), x);
+    } else if (Op == Operator.NOT && (e instanceof BoolExpr)) {
+      result = makeBool(!boolValue(e), x);
+    } else if (Op == Operator.I2F && (e instanceof IntExpr)) {
+      result = makeFloat((float) intValue(e), x);
+    }
+  }
+
+  public void visit(EmptyExpr x) {
+  }
+
+  public void visit(ActualParam x) {
+    x.pAST = fold(x.pAST);
+  }
+
+  public void visit(EmptyActualParam x) {
+  }
+
+  public void visit(ActualParamSequence x) {
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(ActualParamList x) {
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
+  public void visit(CallExpr x) {
+    x.paramAST.accept(this);
+    result = x;
+  }
+
+  public void visit(ExprSequence x) {
+    x.lAST = fold(x.lAST);
+    x.rAST = fold(x.rAST);
+    result = x;
+  }
+
+  public void visit(ExprList x) {
+    for (int i = 0; i < x.elements.length; i++) {
+      x.elements[i] = fold(x.elements[i]);
+    }
+    result = x;
+  }
+
+  public void visit(ID x) {
+  }
+
+  public void visit(Operator x) {
+  }
+
+  public void visit(IntLiteral x) {
+  }
+
+  public void visit(FloatLiteral x) {
+  }
+
+  public void visit(BoolLiteral x) {
+  }
+
+  public void visit(StringLiteral x) {
+  }
+
+  public void visit(IntType x) {
+  }
+
+  public void visit(FloatType x) {
+  }
+
+  public void visit(BoolType x) {
+  }
+
+  public void visit(StringType x) {
+  }
+
+  public void visit(VoidType x) {
+  }
+
+  public void visit(ArrayType x) {
+  }
+
+  public void visit(ErrorType x) {
+  }
+
+}
@@ -0,0 +1,25 @@
+package MiniC;
+
+// The command line options that control a compilation. One Options
+// object can be shared by any number of Compilations.
+
+public class Options {
+
+  public boolean DrawTree1, DrawTree2, DrawStdEnvTree, PrintTree, UnparseTree;
+  public boolean JasminOutput, Optimize, Stats;
+  public String PrintTreeF, UnparseTreeF;
+
+  public Options() {
+    DrawTree1 = false;
+    DrawTree2 = false;
+    DrawStdEnvTree = false;
+    PrintTree = false;
+    PrintTreeF = "";
+    UnparseTree = false;
+    UnparseTreeF = "";
+    JasminOutput = false;
+    Optimize = false;
+    Stats = false;
+  }
+
+}
@@ -0,0 +1,81 @@
+package MiniC.Scanner;
+
+// Classifies identifier lexemes into keywords, Boolean literals and
+// ordinary identifiers. Used by the Scanner (directly on the source
+// buffer) and by the Token constructor.
+//
+// Every keyword is placed in a 32-entry table at slot
+//
+//   (first char + 2 * second char + length) & 31
+//
+// which is collision-free for the MiniC keywords (the static initializer
+// checks this). A lookup is one hash computation and at most one
+// character-wise comparison; it never allocates.
+
+public final class Keywords {
+
+  private final static int TableSize = 32;
+
+  private final static String[] lexemes = new String[TableSize];
+  private final static int[] kinds = new int[TableSize];
+
+  private static int hash(char first, char second, int length) {
+    return (first + 2 * second + length) & (TableSize - 1);
+  }
+
+  private static void enter(String lexeme, int kind) {
+    int h = hash(lexeme.charAt(0), lexeme.charAt(1), lexeme.length());
+    if (lexemes[h] != null) {
+      throw new Error("Keywords: hash collision between \"" + lexemes[h]
+          + "\" and \"" + lexeme + "\"");
+    }
+    lexemes[h] = lexeme;
+    kinds[h] = kind;
+  }
+
+  static {
+    for (int kind = Token.BOOL; kind <= Token.WHILE; kind++) {
+      enter(Token.spell(kind), kind);
+    }
+    enter("true", Token.BOOLLITERAL);
+    enter("false", Token.BOOLLITERAL);
+  }
+
+  private Keywords() {
+  }
+
+  // Returns the token kind for the identifier lexeme: a keyword kind,
+  // Token.BOOLLITERAL for true/false, or Token.ID.
+  public static int classify(String lexeme) {
+    int length = lexeme.length();
+    if (length < 2) {
+      return Token.ID;
+    }
+    int h = hash(lexeme.charAt(0), lexeme.charAt(1), length);
+    String keyword = lexemes[h];
+    if (keyword != null && keyword.equals(lexeme)) {
+      return kinds[h];
+    }
+    return Token.ID;
+  }
+
+  // Same as classify(String), for the identifier that occupies
+  // "length" characters from offset "start" in the source buffer.
+  public static int classify(SourceFile source, int start, int length) {
+    if (length < 2) {
+      return Token.ID;
+    }
+    int h = hash(source.charAt(start), source.charAt(start + 1), length);
+    String keyword = lexemes[h];
+    if (keyword == null || keyword.length() != length) {
+      return Token.ID;
+    }
+    for (int i = 0; i < length; i++) {
+      if (keyword.charAt(i) != source.charAt(start + i)) {
+        return Token.ID;
+      }
+    }
+    return kinds[h];
+  }
+
+}
@@ -1,34 +1,104 @@
 package MiniC.Scanner;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
 public class SourceFile {
 
   java.io.File source_file;
-  java.io.FileInputStream source;
+  // The complete source text. Large files are memory-mapped, all other
+  // files are read into a byte[] window in one go. Either way readChar()
+  // is a plain buffer access and never a system call.
+  ByteBuffer source;
   final char EOL = '\n';
   public final static char EOF = '\u0000';
+  // Files of at least this many bytes are memory-mapped:
+  private final static long MapThreshold = 256 * 1024;
+  // The largest file that fits into a buffer (offsets are ints):
+  public final static long MaxSize = Integer.MAX_VALUE;
 
-  public SourceFile (String filename) {
+  public SourceFile (String filename) throws java.io.IOException {
+    source_file = new java.io.File(filename);
+    FileChannel channel = FileChannel.open(source_file.toPath(),
+        StandardOpenOption.READ);
     try {
-       source_file = new java.io.File(filename);
-       source = new java.io.FileInputStream(source_file);
-    } catch (java.io.IOException e) {
-       System.err.println("Error opening file " + filename);
-       System.err.println("Exiting...");
-       System.exit(1);
+      long size = channel.size();
+      if (size > MaxSize) {
+        throw new java.io.IOException(filename + " is too large (" + size
+            + " bytes, at most " + MaxSize + ")");
+      }
+      if (size >= MapThreshold) {
+        source = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } else {
+        // Small files and non-regular files (pipes report size 0):
+        source = ByteBuffer.wrap(Files.readAllBytes(source_file.toPath()));
+      }
+    } finally {
+      channel.close();
     }
   }
 
+  // True if the file "filename" is too large to be compiled:
+  public static boolean tooLarge(String filename) {
+    return new java.io.File(filename).length() > MaxSize;
+  }
+
+  // A source file whose text is already in memory: the bytes between
+  // the position and the limit of "text". The buffer is not modified.
+  public SourceFile (ByteBuffer text) {
+    source = text.slice();
+  }
+
   public char readChar()
   {
-     try {
-        int c = source.read();
-        if (c == -1) {
-           c = EOF;
-        }
-        return (char) c;
-     } catch (java.io.IOException e) {
-        return EOF;
-     }
+    if (!source.hasRemaining()) {
+      return EOF;
+    }
+    return (char) (source.get() & 0xff);
+  }
+
+  // Returns the offset of the character that the next readChar()
+  // will deliver.
+  public int getOffset() {
+    return source.position();
+  }
+
+  // Returns the total number of characters in the source file.
+  public int length() {
+    return source.limit();
+  }
+
+  // Returns the character "ahead" positions after the current offset
+  // without consuming anything; peek(0) is the character that the next
+  // readChar() will deliver. Returns EOF past the end of the file.
+  public char peek(int ahead) {
+    int index = source.position() + ahead;
+    if (index >= source.limit()) {
+      return EOF;
+    }
+    return (char) (source.get(index) & 0xff);
+  }
+
+  // Returns the character at the absolute offset "index"
+  // (0 <= index < length()).
+  public char charAt(int index) {
+    return (char) (source.get(index) & 0xff);
+  }
+
+  // Returns the source text between offset "start" (inclusive) and
+  // offset "end" (exclusive) as a string, e.g., the lexeme of a token.
+  public String slice(int start, int end) {
+    assert (start >= 0 && start <= end && end <= source.limit());
+    if (source.hasArray()) {
+      return new String(source.array(), source.arrayOffset() + start,
+          end - start, StandardCharsets.ISO_8859_1);
+    }
+    byte[] bytes = new byte[end - start];
+    source.get(start, bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
   }
 
 }
@@ -13,4 +13,29 @@ public class SourcePos {
     EndLine = 0;
   }
 
+  // The ASTs do not keep SourcePos objects but two longs per node, the
+  // start and the end, each with the line in the upper and the column in
+  // the lower 32 bits:
+
+  public static long pack(int line, int col) {
+    return ((long) line << 32) | (col & 0xffffffffL);
+  }
+
+  public static int line(long packed) {
+    return (int) (packed >>> 32);
+  }
+
+  public static int col(long packed) {
+    return (int) packed;
+  }
+
+  public static SourcePos unpack(long start, long end) {
+    SourcePos pos = new SourcePos();
+    pos.StartLine = line(start);
+    pos.StartCol = col(start);
+    pos.EndLine = line(end);
+    pos.EndCol = col(end);
+    return pos;
+  }
+
 }
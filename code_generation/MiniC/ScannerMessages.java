@@ -0,0 +1,101 @@
+package MiniC;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.function.Consumer;
+
+// The provided Scanner prints its error messages ("ERROR: unterminated
+// string literal", ...) to System.out instead of reporting them to an
+// ErrorReporter. To turn them into diagnostics of the Compilation that
+// runs the scanner, System.out is replaced (once, on the first capture())
+// by a stream that hands every line a capturing thread prints to that
+// thread's consumer. Output of all other threads goes to the original
+// System.out. The consumer runs on the printing thread, so the scanner's
+// messages keep their order relative to the parser's.
+
+public final class ScannerMessages {
+
+  private static PrintStream original; // null: not installed yet
+  private static PrintStream installed;
+
+  private final static ThreadLocal<Capture> captures =
+      new ThreadLocal<Capture>();
+
+  private static class Capture {
+    Consumer<String> consumer;
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+  }
+
+  // Passes each line (without line separator) that the current thread
+  // prints to System.out to consumer, until release() is called:
+  public static void capture(Consumer<String> consumer) {
+    install();
+    Capture c = new Capture();
+    c.consumer = consumer;
+    captures.set(c);
+  }
+
+  // Stops capturing; an unterminated last line is passed on, too:
+  public static void release() {
+    Capture c = captures.get();
+    captures.remove();
+    if (c != null && c.line.size() > 0) {
+      c.consumer.accept(c.line.toString());
+    }
+  }
+
+  // Returns the original System.out if s is the capturing stream, so
+  // output to s is never captured; s otherwise:
+  public static synchronized PrintStream uncaptured(PrintStream s) {
+    return (s != null && s == installed) ? original : s;
+  }
+
+  private static synchronized void install() {
+    if (original == null) {
+      original = System.out;
+      installed = new PrintStream(new Router(), true);
+      System.setOut(installed);
+    }
+  }
+
+  private static class Router extends OutputStream {
+
+    public void write(int b) {
+      Capture c = captures.get();
+      if (c == null) {
+        original.write(b);
+      } else if (b == '\n') {
+        String text = c.line.toString();
+        c.line.reset();
+        // What the consumer prints must not be captured again:
+        captures.remove();
+        try {
+          c.consumer.accept(text);
+        } finally {
+          captures.set(c);
+        }
+      } else if (b != '\r') {
+        c.line.write(b);
+      }
+    }
+
+    public void write(byte[] b, int off, int len) {
+      if (captures.get() == null) {
+        original.write(b, off, len);
+        return;
+      }
+      for (int i = off; i < off + len; i++) {
+        write(b[i]);
+      }
+    }
+
+    public void flush() {
+      if (captures.get() == null) {
+        original.flush();
+      }
+    }
+
+  }
+
+}
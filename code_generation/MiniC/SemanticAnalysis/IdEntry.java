@@ -7,13 +7,20 @@ public class IdEntry {
   protected String id;
   protected Decl declAST;
   protected int level;
-  protected IdEntry previous;
+  protected IdEntry previous;  // previously entered entry (any identifier)
+  protected IdEntry shadowed;  // entry for the same identifier at a lower level
 
   public IdEntry (String id, Decl declAST, int level, IdEntry previous) {
+    this(id, declAST, level, previous, null);
+  }
+
+  public IdEntry (String id, Decl declAST, int level, IdEntry previous,
+                  IdEntry shadowed) {
     this.id = id;
     this.declAST = declAST;
     this.level = level;
     this.previous = previous;
+    this.shadowed = shadowed;
   }
 
 }
@@ -1,17 +1,29 @@
 package MiniC.SemanticAnalysis;
 
+import java.util.IdentityHashMap;
+
 import MiniC.AstGen.*;
 
 final public class ScopeStack {
 
   private int level;
+  // All entries of all open levels, most recent first (linked via
+  // IdEntry.previous). Closing a level undoes its entries in this order.
   private IdEntry latest;
+  // Maps each identifier to its innermost visible entry. Entries that the
+  // innermost entry shadows are linked via IdEntry.shadowed.
+  private IdentityHashMap<String, IdEntry> visible;
+  private int retrievals; // number of calls of retrieve()
 
   public ScopeStack () {
     level = 1;  // MiniC's global scope is on level 1.
     latest = null;
+    visible = new IdentityHashMap<String, IdEntry>();
   }
 
+  // Identifiers are compared by reference: "id" must be an interned
+  // string, as is every ID.Lexeme.
+
   // Opens a new level in the scope stack, 1 higher than the
   // current topmost level.
 
@@ -29,12 +41,13 @@ final public class ScopeStack {
     // Presumably, idTable.level > 0:
     assert (this.level > 0);
     entry = this.latest;
-    while (entry.level == this.level) {
-      /*
-         local = entry;
-         entry = local.previous;
-       */
-      assert(entry.previous != null);
+    while (entry != null && entry.level == this.level) {
+      // Make the entry shadowed by "entry" visible again:
+      if (entry.shadowed == null) {
+        visible.remove(entry.id);
+      } else {
+        visible.put(entry.id, entry.shadowed);
+      }
       entry = entry.previous;
     }
     this.level--;
@@ -48,23 +61,18 @@ final public class ScopeStack {
 
   public boolean enter (String id, Decl declAST) {
 
-    IdEntry entry = this.latest;
-    boolean searching = true;
+    IdEntry entry = visible.get(id);
 
     // Check for duplicate entry ...
-    while (searching) {
-      if (entry == null || entry.level < this.level)
-        searching = false;
-      else if (entry.id.equals(id)) {
-        // duplicate entry dedected:
-        return false;
-      } else
-        entry = entry.previous;
+    if (entry != null && entry.level == this.level) {
+      // duplicate entry dedected:
+      return false;
     }
 
     // "id" does not exist on this scope level, add new entry for "id":...
-    entry = new IdEntry(id, declAST, this.level, this.latest);
+    entry = new IdEntry(id, declAST, this.level, this.latest, entry);
     this.latest = entry;
+    visible.put(id, entry);
     return true;
   }
 
@@ -76,21 +84,17 @@ final public class ScopeStack {
 
   public Decl retrieve (String id) {
 
-    IdEntry entry;
-    Decl declAST = null;
-    boolean searching = true;
+    retrievals++;
+    IdEntry entry = visible.get(id);
 
-    entry = this.latest;
-    while (searching) {
-      if (entry == null)
-        searching = false;
-      else if (entry.id.equals(id)) {
-        searching = false;
-        declAST = entry.declAST;
-      } else
-        entry = entry.previous;
+    if (entry == null) {
+      return null;
     }
-    return declAST;
+    return entry.declAST;
+  }
+
+  public int getNumRetrievals () {
+    return retrievals;
   }
 
 }
@@ -78,40 +78,19 @@ public class SemanticAnalysis implements Visitor {
   //  <int> x <int> -> <sometype>
   //  <float> x <float> -> <sometype>
   private boolean HasIntOrFloatArgs (Operator op) {
-    return (op.Lexeme.equals("+") ||
-        op.Lexeme.equals("-") ||
-        op.Lexeme.equals("*") ||
-        op.Lexeme.equals("/") ||
-        op.Lexeme.equals("<") ||
-        op.Lexeme.equals("<=") ||
-        op.Lexeme.equals(">") ||
-        op.Lexeme.equals(">=") ||
-        op.Lexeme.equals("==") ||
-        op.Lexeme.equals("!="));
+    return Operator.IntOrFloatArgs[op.kind];
   }
 
   // This function returns true, if an operator accepts bool arguments.
   //  <bool> x <bool> -> <sometype>
   private boolean HasBoolArgs (Operator op) {
-    return (op.Lexeme.equals("&&") ||
-        op.Lexeme.equals("||") ||
-        op.Lexeme.equals("!") ||
-        op.Lexeme.equals("!=") ||
-        op.Lexeme.equals("=="));
+    return Operator.BoolArgs[op.kind];
   }
 
   // This function returns true, if an operator returns a bool value.
   //  <sometype> x <sometype> -> bool
   private boolean HasBoolReturnType (Operator op) {
-    return (op.Lexeme.equals("&&") ||
-        op.Lexeme.equals("||") ||
-        op.Lexeme.equals("!")  ||
-        op.Lexeme.equals("!=") ||
-        op.Lexeme.equals("==") ||
-        op.Lexeme.equals("<")  ||
-        op.Lexeme.equals("<=") ||
-        op.Lexeme.equals(">")  ||
-        op.Lexeme.equals(">="));
+    return Operator.BoolResult[op.kind];
   }
 
   // This function performs coercion of an integer-valued expression e.
@@ -128,10 +107,12 @@ public class SemanticAnalysis implements Visitor {
   //              |       \
   //           i2f<int>   Expr AST for e <int>
   //
+  private final static SourcePos NoPos = new SourcePos();
+
   private Expr i2f (Expr e) {
-    Operator op = new Operator ("i2f", new SourcePos());
+    Operator op = new Operator ("i2f", NoPos);
     op.type = StdEnvironment.intType;
-    UnaryExpr eAST = new UnaryExpr (op, e, new SourcePos());
+    UnaryExpr eAST = new UnaryExpr (op, e, NoPos);
     eAST.type = StdEnvironment.floatType;
     return eAST;
   }
@@ -142,21 +123,15 @@ public class SemanticAnalysis implements Visitor {
   //    void foo (int a, bool b){}
   //
   // the return value will be 2.
-  // Note: this function assumes the AST tree layout from Assignment 3.
+  // Note: this function assumes the flat parameter lists built by the
+  // SequenceFlattener.
   private int GetNrOfFormalParams(FunDecl f) {
-    int NrArgs = 0;
     Decl D = f.paramsAST;
     assert ((D instanceof EmptyFormalParamDecl) ||
-        (D instanceof FormalParamDeclSequence));
+        (D instanceof FormalParamDeclList));
     if(D instanceof EmptyFormalParamDecl)
       return 0;
-    while (D instanceof FormalParamDeclSequence) {
-      NrArgs++;
-      D = ((FormalParamDeclSequence) D).rAST;
-      assert ((D instanceof EmptyFormalParamDecl) ||
-          (D instanceof FormalParamDeclSequence));
-    }
-    return NrArgs;
+    return ((FormalParamDeclList) D).elements.length;
   }
 
   // Given a function declaration FunDecl, this method returns the AST for 
@@ -166,54 +141,38 @@ public class SemanticAnalysis implements Visitor {
   //    void foo (int a, bool b){}
   //
   // the AST returned will be "bool b".
-  // Note: this function assumes the AST tree layout from Assignment 3.
+  // Note: this function assumes the flat parameter lists built by the
+  // SequenceFlattener.
   private FormalParamDecl GetFormalParam (FunDecl f, int nr) {
     int fArgs = GetNrOfFormalParams(f);
     assert(fArgs >= 0);
     assert (nr <= fArgs);
-    FormalParamDeclSequence S = (FormalParamDeclSequence) f.paramsAST;
-    for (int i = 1; i < nr; i++) {
-      assert(S.rAST instanceof FormalParamDeclSequence);
-      S = (FormalParamDeclSequence) S.rAST;
-    }
-    assert(S.lAST instanceof FormalParamDecl);
-    return (FormalParamDecl) S.lAST;
+    Decl D = ((FormalParamDeclList) f.paramsAST).elements[nr - 1];
+    assert(D instanceof FormalParamDecl);
+    return (FormalParamDecl) D;
   }
 
   // Get the number of actual parameters of a function call expression:
   // Similar to GetNrOfFormalParams above.
-  // Note: this function assumes the AST tree layout from Assignment 3.
   private int GetNrOfActualParams(CallExpr f) {
-    int NrArgs = 0;
     Expr P = f.paramAST;
     assert ((P instanceof EmptyActualParam) ||
-        (P instanceof ActualParamSequence));
+        (P instanceof ActualParamList));
     if(P instanceof EmptyActualParam)
       return 0;
-    while (P instanceof ActualParamSequence) {
-      NrArgs++;
-      P = ((ActualParamSequence) P).rAST;
-      assert ((P instanceof EmptyActualParam) ||
-          (P instanceof ActualParamSequence));
-    }
-    return NrArgs;
+    return ((ActualParamList) P).elements.length;
   }
 
   // Given a function call expression, get the actual parameter nr
   // (nr is the number of the parameter).
   // Similar to GetFormalParam above.
-  // Note: this function assumes the AST tree layout from Assignment 3.
   private ActualParam GetActualParam (CallExpr f, int nr) {
     int aArgs = GetNrOfActualParams(f);
-    Expr P = f.paramAST;
     assert(aArgs >= 0);
     assert (nr <= aArgs);
-    for (int i = 1; i < nr; i++) {
-      assert(P instanceof ActualParamSequence);
-      P = ((ActualParamSequence) P).rAST;
-    }
-    assert (((ActualParamSequence) P).lAST instanceof ActualParam);
-    return (ActualParam) ((ActualParamSequence) P).lAST;
+    Expr P = ((ActualParamList) f.paramAST).elements[nr - 1];
+    assert (P instanceof ActualParam);
+    return (ActualParam) P;
   }
 
   // Given a type t, this function can be used to print the type.
@@ -246,7 +205,7 @@ public class SemanticAnalysis implements Visitor {
   // This array of strings contains the error messages that we generate
   // for errors detected during semantic analysis. These messages are
   // output using the ErrorReporter.
-  // Example: reporter.reportError(errMsg[0], "", new SourcePos());
+  // Example: reporter.reportError(errMsg[0], "", progAST);
   //          will print "ERROR #0: main function is missing".
   private String errMsg[] = {
     "#0: main function missing",
@@ -304,6 +263,11 @@ public class SemanticAnalysis implements Visitor {
   //  (b) Each expression and value-or-variable-name is decorated by its type.
 
   public void check(Program progAST) {
+    if (!(progAST.D instanceof DeclList)) {
+      // Straight from the parser (the provided MiniC driver does not
+      // flatten the AST), so turn the sequence chains into lists first:
+      new SequenceFlattener().flatten(progAST);
+    }
     visit(progAST);
     // STEP 3:
     // Check Error 0
@@ -313,13 +277,18 @@ public class SemanticAnalysis implements Visitor {
 
     /* Start of your code: */
     if (scopeStack.retrieve("main") == null) {
-      reporter.reportError(errMsg[0], "", progAST.pos);
+      reporter.reportError(errMsg[0], "", progAST);
       return;
     }
 
     /* End of your code */
   }
 
+  // The number of identifier lookups in the scope stack so far:
+  public int getNumLookups() {
+    return scopeStack.getNumRetrievals();
+  }
+
   public void visit(Program x) {
     x.D.accept(this);
   }
@@ -328,6 +297,7 @@ public class SemanticAnalysis implements Visitor {
   }
 
   public void visit(FunDecl x) {
+    x.tAST = Type.canonical(x.tAST);
     currentFunctionReturnType = x.tAST;
     // STEP 1:
     // Enter this function in the scope stack. Return Error 2 if this
@@ -335,7 +305,7 @@ public class SemanticAnalysis implements Visitor {
 
     /* Start of your code: */
     if (scopeStack.enter(x.idAST.Lexeme, x) == false) {
-      reporter.reportError(errMsg[2], "", x.idAST.pos);
+      reporter.reportError(errMsg[2], "", x.idAST);
       return;
       // return;
     }
@@ -350,13 +320,13 @@ public class SemanticAnalysis implements Visitor {
     // Decl D = 
     if (scopeStack.retrieve("main") != null) {
       if (!(currentFunctionReturnType.Tequal(StdEnvironment.intType))){
-        reporter.reportError(errMsg[1], "", x.idAST.pos);
+        reporter.reportError(errMsg[1], "", x.idAST);
         return;
       }
     }
     // if (scopeStack.retrieve("main") != null) {
     //   if (!(currentFunctionReturnType.Tequal(StdEnvironment.intType))){
-    //     reporter.reportError(errMsg[1], "", x.pos);
+    //     reporter.reportError(errMsg[1], "", x);
     //   }
   
     // }
@@ -390,6 +360,8 @@ public class SemanticAnalysis implements Visitor {
   }
 
   public void visit(FormalParamDecl x) {
+    Type T = x.astType; // the parser's node, for its source position
+    x.astType = Type.canonical(T);
     if (x.astType instanceof ArrayType) {
       ((ArrayType)x.astType).astExpr.accept(this);
     }
@@ -403,7 +375,7 @@ public class SemanticAnalysis implements Visitor {
     /* Start of your code: */
     
     if (scopeStack.enter(x.astIdent.Lexeme, x) == false) {
-      reporter.reportError(errMsg[2], "", x.astIdent.pos);
+      reporter.reportError(errMsg[2], "", x.astIdent);
       return;
     }
     /* End of your code */
@@ -416,14 +388,14 @@ public class SemanticAnalysis implements Visitor {
     /* Start of your code: */
     // System.out.println(x.astType);
     if (x.astType.Tequal(StdEnvironment.voidType)) {
-      reporter.reportError(errMsg[3], "", x.astType.pos);
+      reporter.reportError(errMsg[3], "", T);
       return;
     }
     // if (x.astIdent.Lexeme == "void") {
-    //   reporter.reportError(errMsg[3], "", x.pos);
+    //   reporter.reportError(errMsg[3], "", x);
     // }
     if (x.astIdent.Lexeme == "void[]") {
-      reporter.reportError(errMsg[4], "", x.pos);
+      reporter.reportError(errMsg[4], "", x);
       return;
     }
 
@@ -435,6 +407,12 @@ public class SemanticAnalysis implements Visitor {
     x.rAST.accept(this);
   }
 
+  public void visit(FormalParamDeclList x) {
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
   public void visit(EmptyFormalParamDecl x) {
   }
 
@@ -443,6 +421,12 @@ public class SemanticAnalysis implements Visitor {
     x.s2AST.accept(this);
   }
 
+  public void visit(StmtList x) {
+    for (Stmt s : x.elements) {
+      s.accept(this);
+    }
+  }
+
   public void visit(AssignStmt x) {
     x.lAST.accept(this);
     x.rAST.accept(this);
@@ -469,7 +453,7 @@ public class SemanticAnalysis implements Visitor {
           x.rAST = i2f(x.rAST);
       } 
     } else {
-      reporter.reportError(errMsg[6], "", x.rAST.pos);
+      reporter.reportError(errMsg[6], "", x.rAST);
       return;
     }
 
@@ -483,13 +467,13 @@ public class SemanticAnalysis implements Visitor {
     //     x.rAST = i2f(x.rAST);
     //   }
     // } else {
-    //   reporter.reportError(errMsg[6], "", x.rAST.pos);
+    //   reporter.reportError(errMsg[6], "", x.rAST);
     // }
 
     /* End of your code */
 
     if(!(x.lAST instanceof VarExpr) && !(x.lAST instanceof ArrayExpr)) {
-      reporter.reportError(errMsg[7], "", x.lAST.pos);
+      reporter.reportError(errMsg[7], "", x.lAST);
     }
   }
 
@@ -502,7 +486,7 @@ public class SemanticAnalysis implements Visitor {
 
     /* Start of your code: */
     if (x.eAST.type.Tequal(StdEnvironment.boolType) != true) {
-      reporter.reportError(errMsg[20], "", x.eAST.pos);
+      reporter.reportError(errMsg[20], "", x.eAST);
     }
     /* End of your code */
     x.thenAST.accept(this);
@@ -520,7 +504,7 @@ public class SemanticAnalysis implements Visitor {
 
     /* Start of your code: */
     if (x.eAST.type.Tequal(StdEnvironment.boolType) != true) {
-      reporter.reportError(errMsg[22], "", x.eAST.pos);
+      reporter.reportError(errMsg[22], "", x.eAST);
       return;
     }
     /* End of your code */
@@ -532,7 +516,7 @@ public class SemanticAnalysis implements Visitor {
     if(!(x.e2AST instanceof EmptyExpr)) {
       x.e2AST.accept(this);
       if(!x.e2AST.type.Tequal(StdEnvironment.boolType)) {
-        reporter.reportError(errMsg[21], "", x.e2AST.pos);
+        reporter.reportError(errMsg[21], "", x.e2AST);
       }
     }
     if(!(x.e3AST instanceof EmptyExpr)) {
@@ -550,7 +534,7 @@ public class SemanticAnalysis implements Visitor {
     if (x.eAST instanceof EmptyExpr) {
       // ``return;'' requires void function return type:
       if (!currentFunctionReturnType.Tequal(StdEnvironment.voidType)) {
-        reporter.reportError(errMsg[8], "", x.eAST.pos);
+        reporter.reportError(errMsg[8], "", x.eAST);
       }
       return; // done -> early exit
     }
@@ -568,7 +552,7 @@ public class SemanticAnalysis implements Visitor {
         x.eAST = i2f(x.eAST);
       }
     } else {
-      reporter.reportError(errMsg[8], "", x.eAST.pos);
+      reporter.reportError(errMsg[8], "", x.eAST);
     }
   }
 
@@ -631,6 +615,7 @@ public class SemanticAnalysis implements Visitor {
   }
 
   public void visit(VarDecl x) {
+    x.tAST = Type.canonical(x.tAST);
     if (x.tAST instanceof ArrayType) {
       ((ArrayType)x.tAST).astExpr.accept(this);
     }
@@ -644,8 +629,8 @@ public class SemanticAnalysis implements Visitor {
         // Perform i2f coercion if necessary.
         
         // 27.1 / 15
-        if (!(x.eAST instanceof ExprSequence)) {
-          reporter.reportError(errMsg[15], "", x.pos);
+        if (!(x.eAST instanceof ExprList)) {
+          reporter.reportError(errMsg[15], "", x);
           // break;
         }
 
@@ -655,7 +640,7 @@ public class SemanticAnalysis implements Visitor {
         // 27.4 / 13
         // System.out.println(x.eAST.type instanceof BoolType);
         // if ((ArrayType)x.tAST).astType.Tequal(StdEnvironment.intType) && ((x.eAST instanceof StringExpr) || x.eAST instanceof BoolExpr)) {
-        //   reporter.reportError(errMsg[13], "", x.eAST.pos);
+        //   reporter.reportError(errMsg[13], "", x.eAST);
         // }
 
 
@@ -670,8 +655,8 @@ public class SemanticAnalysis implements Visitor {
         // Perform i2f coercion if necessary.
         
         // 27.2 / 14
-        if (x.eAST instanceof ExprSequence) {
-          reporter.reportError(errMsg[14], "", x.pos);
+        if (x.eAST instanceof ExprList) {
+          reporter.reportError(errMsg[14], "", x);
           // break;
         }
 
@@ -679,12 +664,12 @@ public class SemanticAnalysis implements Visitor {
         if (x.tAST.Tequal(StdEnvironment.intType) && (x.eAST.type instanceof StringType) ||
             x.tAST.Tequal(StdEnvironment.floatType) && (x.eAST.type instanceof StringType) ||
             x.tAST.Tequal(StdEnvironment.boolType) && (x.eAST.type instanceof StringType)) {
-          reporter.reportError(errMsg[6], "", x.pos);
+          reporter.reportError(errMsg[6], "", x);
         }
         
         
         
-        // reporter.reportError(errMsg[14], "", (((ArrayType)x.tAST).pos));
+        // reporter.reportError(errMsg[14], "", (((ArrayType)x.tAST)));
         // System.out.println(AT);
         
         /* Start of your code: */
@@ -702,7 +687,7 @@ public class SemanticAnalysis implements Visitor {
     /* Start of your code: */
 
     if (scopeStack.enter(x.idAST.Lexeme, x) == false) {
-      reporter.reportError(errMsg[2], "", x.idAST.pos);
+      reporter.reportError(errMsg[2], "", x.idAST);
       // return;
     }
     /* End of your code */
@@ -714,11 +699,11 @@ public class SemanticAnalysis implements Visitor {
     /* Start of your code: */
     
     if (x.tAST.Tequal(StdEnvironment.voidType)) {
-      reporter.reportError(errMsg[3], "", x.pos);
+      reporter.reportError(errMsg[3], "", x);
       return;
     }
     if ("${x.tAST.Lexeme}" == "void[]") {
-      reporter.reportError(errMsg[4], "", x.pos);
+      reporter.reportError(errMsg[4], "", x);
       return;
     }
 
@@ -730,6 +715,12 @@ public class SemanticAnalysis implements Visitor {
     x.D2.accept(this);
   }
 
+  public void visit(DeclList x) {
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
   public void visit(VarExpr x) {
     x.Ident.accept(this);
     //STEP 2:
@@ -741,13 +732,13 @@ public class SemanticAnalysis implements Visitor {
     x.type = typeOfDecl (x.Ident.declAST);
     /* Start of your code: */
     // if(!(typeOfDecl(VE.Ident.declAST) instanceof ArrayType)) {
-    //   reporter.reportError(errMsg[12], "", x.pos);
+    //   reporter.reportError(errMsg[12], "", x);
     //   x.type = StdEnvironment.errorType; 
     // } else {
     //   x.type = typeOfArrayType(x.idAST.type);
     // }
     if (x.Ident.declAST instanceof FunDecl) {
-      reporter.reportError(errMsg[11], "", x.pos);
+      reporter.reportError(errMsg[11], "", x);
       x.type = StdEnvironment.errorType;
       return;
     }
@@ -767,11 +758,11 @@ public class SemanticAnalysis implements Visitor {
         x.rAST = i2f(x.rAST);
       }
     } else {
-      reporter.reportError(errMsg[6], "", x.rAST.pos);
+      reporter.reportError(errMsg[6], "", x.rAST);
       return;
     }
     if(!(x.lAST instanceof VarExpr) && !(x.lAST instanceof ArrayExpr)) {
-      reporter.reportError(errMsg[7], "", x.lAST.pos);
+      reporter.reportError(errMsg[7], "", x.lAST);
       return;
     }
   }
@@ -827,12 +818,12 @@ public class SemanticAnalysis implements Visitor {
     x.idAST.accept(this);
     x.indexAST.accept(this);
     if(!x.indexAST.type.Tequal(StdEnvironment.intType)) {
-      reporter.reportError(errMsg[17], "", x.indexAST.pos);
+      reporter.reportError(errMsg[17], "", x.indexAST);
       return;
     }
     VarExpr VE = (VarExpr)x.idAST;
     if(!(typeOfDecl(VE.Ident.declAST) instanceof ArrayType)) {
-      reporter.reportError(errMsg[12], "", x.pos);
+      reporter.reportError(errMsg[12], "", x);
       x.type = StdEnvironment.errorType; 
       return;
     } else {
@@ -909,7 +900,7 @@ public class SemanticAnalysis implements Visitor {
     if (!((x.lAST.type instanceof ErrorType) || (x.rAST.type instanceof ErrorType)))
     {
       // Error not spurious, because AST children are ok.
-      reporter.reportError(errMsg[9], "", x.pos);
+      reporter.reportError(errMsg[9], "", x);
       return;
 
     }
@@ -953,7 +944,7 @@ public class SemanticAnalysis implements Visitor {
     } else {
       x.oAST.type = StdEnvironment.errorType;
       x.type = StdEnvironment.errorType;
-      reporter.reportError(errMsg[10], "", x.pos);
+      reporter.reportError(errMsg[10], "", x);
       return;
     }
 
@@ -976,6 +967,12 @@ public class SemanticAnalysis implements Visitor {
     x.rAST.accept(this);
   }
 
+  public void visit(ActualParamList x) {
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
   public void visit(CallExpr x) {
     //Here we perform semantic analysis of function calls:
     x.type = StdEnvironment.errorType;
@@ -992,7 +989,7 @@ public class SemanticAnalysis implements Visitor {
 
     /* Start of your code: */
     if (!(D instanceof FunDecl))  {
-      reporter.reportError(errMsg[19], "", x.pos);
+      reporter.reportError(errMsg[19], "", x);
       return;
     }
     /* End of your code */
@@ -1009,12 +1006,12 @@ public class SemanticAnalysis implements Visitor {
     int NrActualParams = GetNrOfActualParams(x);
 
     if (NrActualParams > NrFormalParams) {
-      reporter.reportError(errMsg[23], "", x.pos);
+      reporter.reportError(errMsg[23], "", x);
       return;
     }
     
     if (NrActualParams < NrFormalParams) {
-      reporter.reportError(errMsg[24], "", x.pos);
+      reporter.reportError(errMsg[24], "", x);
       return;
     }
 
@@ -1025,7 +1022,7 @@ public class SemanticAnalysis implements Visitor {
       Type ActualT = Act.pAST.type;
     
       if (!(ActualT.AssignableTo(FormalT))) {
-        reporter.reportError(errMsg[25], Integer.toString(i), x.pos);
+        reporter.reportError(errMsg[25], Integer.toString(i), x);
         return;
       }
       if (ActualT.Tequal(StdEnvironment.intType) && FormalT.Tequal(StdEnvironment.floatType)) {
@@ -1074,6 +1071,12 @@ public class SemanticAnalysis implements Visitor {
     x.rAST.accept(this);
   }
 
+  public void visit(ExprList x) {
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
   public void visit(ID x) {
     // STEP 1:
     // Here we look up the declaration of an identifier
@@ -1085,7 +1088,7 @@ public class SemanticAnalysis implements Visitor {
     }
     /* Start of your code: */
     else {
-      reporter.reportError(errMsg[5], "", x.pos);
+      reporter.reportError(errMsg[5], "", x);
       return;
     }
     /* End of your code */
@@ -0,0 +1,18 @@
+package MiniC.Stats;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("MiniC.CodeGeneration")
+@Label("Code Generation")
+public class CodeGenerationEvent extends PhaseEvent {
+
+  @Label("Instructions")
+  public long instructions;
+
+  @Label("Output Size")
+  @DataAmount
+  public long outputBytes;
+
+}
@@ -0,0 +1,296 @@
+package MiniC.Stats;
+
+import MiniC.AstGen.*;
+
+// Counts the nodes of an AST.
+
+public class NodeCounter implements Visitor {
+
+  private int nodes;
+
+  public int count(AST ast) {
+    nodes = 0;
+    ast.accept(this);
+    return nodes;
+  }
+
+  public void visit(Program x) {
+    nodes++;
+    x.D.accept(this);
+  }
+
+  public void visit(EmptyDecl x) {
+    nodes++;
+  }
+
+  public void visit(FunDecl x) {
+    nodes++;
+    x.tAST.accept(this);
+    x.idAST.accept(this);
+    x.paramsAST.accept(this);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(TypeDecl x) {
+    nodes++;
+  }
+
+  public void visit(FormalParamDecl x) {
+    nodes++;
+    x.astType.accept(this);
+    x.astIdent.accept(this);
+  }
+
+  public void visit(FormalParamDeclSequence x) {
+    nodes++;
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(FormalParamDeclList x) {
+    nodes++;
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
+  public void visit(EmptyFormalParamDecl x) {
+    nodes++;
+  }
+
+  public void visit(StmtSequence x) {
+    nodes++;
+    x.s1AST.accept(this);
+    x.s2AST.accept(this);
+  }
+
+  public void visit(StmtList x) {
+    nodes++;
+    for (Stmt s : x.elements) {
+      s.accept(this);
+    }
+  }
+
+  public void visit(AssignStmt x) {
+    nodes++;
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(IfStmt x) {
+    nodes++;
+    x.eAST.accept(this);
+    x.thenAST.accept(this);
+    if(x.elseAST != null) {
+      x.elseAST.accept(this);
+    }
+  }
+
+  public void visit(WhileStmt x) {
+    nodes++;
+    x.eAST.accept(this);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(ForStmt x) {
+    nodes++;
+    x.e1AST.accept(this);
+    x.e2AST.accept(this);
+    x.e3AST.accept(this);
+    x.stmtAST.accept(this);
+  }
+
+  public void visit(ReturnStmt x) {
+    nodes++;
+    x.eAST.accept(this);
+  }
+
+  public void visit(CompoundStmt x) {
+    nodes++;
+    x.astDecl.accept(this);
+    x.astStmt.accept(this);
+  }
+
+  public void visit(EmptyStmt x) {
+    nodes++;
+  }
+
+  public void visit(EmptyCompoundStmt x) {
+    nodes++;
+  }
+
+  public void visit(CallStmt x) {
+    nodes++;
+    x.eAST.accept(this);
+  }
+
+  public void visit(VarDecl x) {
+    nodes++;
+    x.tAST.accept(this);
+    x.idAST.accept(this);
+    x.eAST.accept(this);
+  }
+
+  public void visit(DeclSequence x) {
+    nodes++;
+    x.D1.accept(this);
+    x.D2.accept(this);
+  }
+
+  public void visit(DeclList x) {
+    nodes++;
+    for (Decl d : x.elements) {
+      d.accept(this);
+    }
+  }
+
+  public void visit(VarExpr x) {
+    nodes++;
+    x.Ident.accept(this);
+  }
+
+  public void visit(AssignExpr x) {
+    nodes++;
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(IntExpr x) {
+    nodes++;
+    x.astIL.accept(this);
+  }
+
+  public void visit(FloatExpr x) {
+    nodes++;
+    x.astFL.accept(this);
+  }
+
+  public void visit(BoolExpr x) {
+    nodes++;
+    x.astBL.accept(this);
+  }
+
+  public void visit(StringExpr x) {
+    nodes++;
+    x.astSL.accept(this);
+  }
+
+  public void visit(ArrayExpr x) {
+    nodes++;
+    x.idAST.accept(this);
+    x.indexAST.accept(this);
+  }
+
+  public void visit(BinaryExpr x) {
+    nodes++;
+    x.lAST.accept(this);
+    x.oAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(UnaryExpr x) {
+    nodes++;
+    x.oAST.accept(this);
+    x.eAST.accept(this);
+  }
+
+  public void visit(EmptyExpr x) {
+    nodes++;
+  }
+
+  public void visit(ActualParam x) {
+    nodes++;
+    x.pAST.accept(this);
+  }
+
+  public void visit(EmptyActualParam x) {
+    nodes++;
+  }
+
+  public void visit(ActualParamSequence x) {
+    nodes++;
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(ActualParamList x) {
+    nodes++;
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
+  public void visit(CallExpr x) {
+    nodes++;
+    x.idAST.accept(this);
+    x.paramAST.accept(this);
+  }
+
+  public void visit(ExprSequence x) {
+    nodes++;
+    x.lAST.accept(this);
+    x.rAST.accept(this);
+  }
+
+  public void visit(ExprList x) {
+    nodes++;
+    for (Expr e : x.elements) {
+      e.accept(this);
+    }
+  }
+
+  public void visit(ID x) {
+    nodes++;
+  }
+
+  public void visit(Operator x) {
+    nodes++;
+  }
+
+  public void visit(IntLiteral x) {
+    nodes++;
+  }
+
+  public void visit(FloatLiteral x) {
+    nodes++;
+  }
+
+  public void visit(BoolLiteral x) {
+    nodes++;
+  }
+
+  public void visit(StringLiteral x) {
+    nodes++;
+  }
+
+  public void visit(IntType x) {
+    nodes++;
+  }
+
+  public void visit(FloatType x) {
+    nodes++;
+  }
+
+  public void visit(BoolType x) {
+    nodes++;
+  }
+
+  public void visit(StringType x) {
+    nodes++;
+  }
+
+  public void visit(VoidType x) {
+    nodes++;
+  }
+
+  public void visit(ArrayType x) {
+    nodes++;
+    x.astType.accept(this);
+    x.astExpr.accept(this);
+  }
+
+  public void visit(ErrorType x) {
+    nodes++;
+  }
+
+}
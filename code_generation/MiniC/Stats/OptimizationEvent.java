@@ -0,0 +1,9 @@
+package MiniC.Stats;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("MiniC.Optimization")
+@Label("Optimization")
+public class OptimizationEvent extends PhaseEvent {
+}
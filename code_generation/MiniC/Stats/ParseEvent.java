@@ -0,0 +1,13 @@
+package MiniC.Stats;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("MiniC.Parse")
+@Label("Syntax Analysis")
+public class ParseEvent extends PhaseEvent {
+
+  @Label("AST Nodes")
+  public long nodes;
+
+}
@@ -0,0 +1,22 @@
+package MiniC.Stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+
+// A Java Flight Recorder event for one phase of a Compilation. The event
+// is recorded only if a recording is running, e.g., with
+//   java -XX:StartFlightRecording=filename=minic.jfr MiniC.Driver ...
+// and can be shown with "jfr print --categories MiniC minic.jfr".
+
+@Category("MiniC")
+public abstract class PhaseEvent extends jdk.jfr.Event {
+
+  @Label("Source File")
+  public String source;
+
+  @Label("Allocated")
+  @DataAmount
+  public long allocated; // -1 if the JVM cannot measure it
+
+}
@@ -0,0 +1,71 @@
+package MiniC.Stats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// What one phase of a Compilation cost and how much work it did:
+// the wall clock time, the bytes allocated by the compiling thread, and
+// a phase-specific count (tokens, AST nodes, scope stack lookups or
+// instructions) and, for code generation, the size of the output.
+
+public class PhaseStatistics {
+
+  private final static ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  public String phase;
+  public long nanos;
+  public long allocatedBytes; // -1 if unknown
+  public long count;          // -1 if the phase has nothing to count
+  public String unit;         // what count counts
+  public long outputBytes;    // size of the generated code, -1 if none
+
+  public PhaseStatistics(String phase, long nanos, long allocatedBytes) {
+    this.phase = phase;
+    this.nanos = nanos;
+    this.allocatedBytes = allocatedBytes;
+    this.count = -1;
+    this.unit = "";
+    this.outputBytes = -1;
+  }
+
+  // The number of bytes the current thread has allocated so far, or -1
+  // if the JVM does not support measuring it:
+  public static long allocatedBytes() {
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean t =
+          (com.sun.management.ThreadMXBean) threads;
+      if (t.isThreadAllocatedMemorySupported()
+          && t.isThreadAllocatedMemoryEnabled()) {
+        return t.getCurrentThreadAllocatedBytes();
+      }
+    }
+    return -1;
+  }
+
+  // The rate of count per second, or -1 if there is none:
+  public double perSecond() {
+    if (count < 0 || nanos <= 0) {
+      return -1;
+    }
+    return count * 1e9 / nanos;
+  }
+
+  // One line of the -stats table:
+  public String toString() {
+    String line = String.format("%-18s %10.3f ms", phase, nanos / 1e6);
+    if (allocatedBytes >= 0) {
+      line += String.format(" %10.1f KB", allocatedBytes / 1024.0);
+    } else {
+      line += String.format(" %13s", "-");
+    }
+    if (count >= 0) {
+      line += String.format(" %8d %-8s", count, unit);
+      line += String.format(" %12.0f %s/s", perSecond(), unit);
+    }
+    if (outputBytes >= 0) {
+      line += String.format(" %8d bytes out", outputBytes);
+    }
+    return line;
+  }
+
+}
@@ -0,0 +1,13 @@
+package MiniC.Stats;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("MiniC.Scan")
+@Label("Scan")
+public class ScanEvent extends PhaseEvent {
+
+  @Label("Tokens")
+  public long tokens;
+
+}
@@ -0,0 +1,13 @@
+package MiniC.Stats;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("MiniC.SemanticAnalysis")
+@Label("Semantic Analysis")
+public class SemanticAnalysisEvent extends PhaseEvent {
+
+  @Label("Scope Stack Lookups")
+  public long lookups;
+
+}
@@ -5,29 +5,47 @@ import MiniC.AstGen.*;
 
 public final class StdEnvironment {
 
-  // The pre-defined language environment for MiniC:
+  // The pre-defined language environment for MiniC. It is built once,
+  // when the class is loaded, and never changed afterwards, so all
+  // compilations (also concurrent ones) share the same declarations.
 
 
   // ASTs representing the MiniC standard type declarations:
 
-  public static TypeDecl intTypeDecl, boolTypeDecl, floatTypeDecl,
+  public static final TypeDecl intTypeDecl, boolTypeDecl, floatTypeDecl,
          stringTypeDecl, voidTypeDecl, errorTypeDecl;
 
-  // ASTs representing the MiniC standard types:
+  // ASTs representing the MiniC standard types (the canonical type nodes,
+  // see Type.canonical()):
 
-  public static Type intType, boolType, floatType, stringType, voidType,errorType;
+  public static final Type intType, boolType, floatType, stringType, voidType,errorType;
 
 
   // ASTs representing the declarations of our pre-defined MiniC functions:
 
-  public static FunDecl getInt, putInt, getBool, putBool, getFloat, putFloat;
-  public static FunDecl getString, putString;
-  public static FunDecl putLn;
+  public static final FunDecl getInt, putInt, getBool, putBool, getFloat, putFloat;
+  public static final FunDecl getString, putString;
+  public static final FunDecl putLn;
 
-  public Program AST;
-  private static SourcePos dummyPos = new SourcePos();
+  // The declarations above as an AST, so that it can be traversed and
+  // printed:
 
+  public final Program AST;
+  private static final Program standardAST;
+  private static final SourcePos dummyPos = new SourcePos();
+
+  private static final StdEnvironment instance;
+
+  // All StdEnvironment objects refer to the same, shared AST:
   public StdEnvironment () {
+    AST = standardAST;
+  }
+
+  public static StdEnvironment getInstance() {
+    return instance;
+  }
+
+  static {
     DeclSequence D;
     FormalParamDecl pDecl;
     FormalParamDeclSequence pSeq;
@@ -37,12 +55,12 @@ public final class StdEnvironment {
      * generate an AST, so that it can be traversed and printed:
      *
      */
-    intType = new IntType(dummyPos);
-    boolType = new BoolType(dummyPos);
-    floatType = new FloatType(dummyPos);
-    stringType = new StringType(dummyPos);
-    voidType = new VoidType(dummyPos);
-    errorType = new ErrorType(dummyPos);
+    intType = Type.primitive(Type.INT);
+    boolType = Type.primitive(Type.BOOL);
+    floatType = Type.primitive(Type.FLOAT);
+    stringType = Type.primitive(Type.STRING);
+    voidType = Type.primitive(Type.VOID);
+    errorType = Type.primitive(Type.ERROR);
 
     putLn = new FunDecl(voidType,
         new ID("putLn", dummyPos),
@@ -145,8 +163,10 @@ public final class StdEnvironment {
     intTypeDecl = new TypeDecl(intType, dummyPos);
     D = new DeclSequence (intTypeDecl, D, dummyPos);
 
-    AST = new Program (D, dummyPos);
-
+    standardAST = new Program (D, dummyPos);
+    // The parameter lists as seen by SemanticAnalysis and the Emitter:
+    new SequenceFlattener().flatten(standardAST);
+    instance = new StdEnvironment();
   }
 
 }
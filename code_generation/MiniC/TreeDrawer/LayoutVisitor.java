@@ -4,7 +4,6 @@ import java.awt.*;
 
 import MiniC.AstGen.Visitor;
 import MiniC.AstGen.*;
-import MiniC.StdEnvironment;
 
 public class LayoutVisitor implements Visitor {
 
@@ -22,28 +21,15 @@ public class LayoutVisitor implements Visitor {
     this.TypeInfo = true; // TBD: make this a constructor argument!
   }
 
+  // The tags of the types, indexed by Type.id:
+  private final static String[] TypeTags = {
+    "<int>", "<bool>", "<float>", "<string>", "<void>", "<error>", "<array>" };
+
   private String TypeTag (Type t) {
-    String l = new String("");
     if (t == null) {
-      l = new String("<?>");
-    } else if (t.Tequal(StdEnvironment.intType)) {
-      l = new String ("<int>");
-    } else if (t.Tequal(StdEnvironment.boolType)) {
-      l = new String ("<bool>");
-    } else if (t.Tequal(StdEnvironment.floatType)) {
-      l = new String ("<float>");
-    } else if (t.Tequal(StdEnvironment.stringType)) {
-      l = new String ("<string>");
-    } else if (t.Tequal(StdEnvironment.voidType)) {
-      l = new String ("<void>");
-    } else if (t instanceof ArrayType) {
-      l = new String ("<array>");
-    } else if (t instanceof ErrorType) { //.Tequal(StdEnvironment.errorType)) {
-      l = new String ("<error>");
-    } else {
-      assert(false);
-    }
-    return l;
+      return "<?>";
+    }
+    return TypeTags[t.id];
     }
 
     public void visit(Program x) {
@@ -72,6 +58,10 @@ public class LayoutVisitor implements Visitor {
       Tree = layoutBinary("FormalParamDeclSeq", x.lAST, x.rAST);
     }
 
+    public void visit(FormalParamDeclList x) {
+      Tree = layoutList("FormalParamDeclList", x.elements);
+    }
+
     public void visit(EmptyFormalParamDecl x) {
       Tree = layoutNullary("EmptyFormalParamDecl");
     }
@@ -80,6 +70,10 @@ public class LayoutVisitor implements Visitor {
       Tree = layoutBinary("StmtSeq", x.s1AST, x.s2AST);
     }
 
+    public void visit(StmtList x) {
+      Tree = layoutList("StmtList", x.elements);
+    }
+
     public void visit(AssignStmt x) {
       Tree = layoutBinary("AssignStmt", x.lAST, x.rAST);
     }
@@ -134,6 +128,10 @@ public class LayoutVisitor implements Visitor {
       Tree = layoutBinary("DeclSeq", x.D1, x.D2);
     }
 
+    public void visit(DeclList x) {
+      Tree = layoutList("DeclList", x.elements);
+    }
+
     public void visit(VarExpr x) {
       String l = new String("");
       if (TypeInfo) {
@@ -222,6 +220,10 @@ public class LayoutVisitor implements Visitor {
       Tree = layoutBinary("ActualParamSeq", x.lAST, x.rAST);
     }
 
+    public void visit(ActualParamList x) {
+      Tree = layoutList("ActualParamList", x.elements);
+    }
+
     public void visit(CallExpr x) {
       String l = new String("");
       if (TypeInfo) {
@@ -234,6 +236,10 @@ public class LayoutVisitor implements Visitor {
       Tree = layoutBinary("ExprSeq", x.lAST, x.rAST);
     }
 
+    public void visit(ExprList x) {
+      Tree = layoutList("ExprList", x.elements);
+    }
+
     public void visit(ID x) {
       Tree = layoutNullary(x.Lexeme);
     }
@@ -355,6 +361,22 @@ public class LayoutVisitor implements Visitor {
       return dt;
     }
 
+    // One child per element of a list:
+    private DrawingTree layoutList (String name, AST[] children) {
+      if (children.length == 0) {
+        return layoutNullary(name);
+      }
+      DrawingTree dt = layoutCaption(name);
+      DrawingTree[] d = new DrawingTree[children.length];
+      for (int i = 0; i < children.length; i++) {
+        children[i].accept(this);
+        d[i] = Tree;
+      }
+      dt.setChildren(d);
+      attachParent(dt, join(dt));
+      return dt;
+    }
+
     private void attachParent(DrawingTree dt, int w) {
       int y = PARENT_SEP;
       int x2 = (w - dt.width) / 2 - BORDER;
@@ -21,12 +21,25 @@ public class TreePrinterVisitor implements Visitor {
         out.write (" ");
       }
       out.write (s);
-    } catch (Exception e) {
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
+    } catch (IOException e) {
+      // Visitor methods cannot throw checked exceptions; the caller
+      // unwraps this again:
+      throw new UncheckedIOException(e);
     }
   }
 
+  // Prints a flat list in the same way as the chain of sequence nodes it
+  // was built from, so that the output does not depend on the flattening:
+  private void writeList(String sequence, AST[] elements, String empty) {
+    for (AST e : elements) {
+      write(sequence + "\n");
+      indent++;
+      e.accept(this);
+    }
+    write(empty + "\n");
+    indent -= elements.length;
+  }
+
   public void visit(Program x) {
     write("Program\n");
     indent++;
@@ -67,6 +80,10 @@ public class TreePrinterVisitor implements Visitor {
     indent--;
   }
 
+  public void visit(FormalParamDeclList x) {
+    writeList("FormalParamDeclSequence", x.elements, "EmptyFormalParamDecl");
+  }
+
   public void visit(EmptyFormalParamDecl x) {
     write("EmptyFormalParamDecl\n");
   }
@@ -79,6 +96,10 @@ public class TreePrinterVisitor implements Visitor {
     indent--;
   }
 
+  public void visit(StmtList x) {
+    writeList("StmtSequence", x.elements, "EmptyStmt");
+  }
+
   public void visit(AssignStmt x) {
     write("AssignStmt\n");
     indent++;
@@ -163,6 +184,10 @@ public class TreePrinterVisitor implements Visitor {
     indent--;
   }
 
+  public void visit(DeclList x) {
+    writeList("DeclSequence", x.elements, "EmptyDecl");
+  }
+
   public void visit(VarExpr x) {
     write("VarExpr\n");
     indent++;
@@ -254,6 +279,10 @@ public class TreePrinterVisitor implements Visitor {
     indent--;
   }
 
+  public void visit(ActualParamList x) {
+    writeList("ActualParamSequence", x.elements, "EmptyActualParam");
+  }
+
   public void visit(CallExpr x) {
     write("CallExpr\n");
     indent++;
@@ -270,6 +299,10 @@ public class TreePrinterVisitor implements Visitor {
     indent--;
   }
 
+  public void visit(ExprList x) {
+    writeList("ExprSequence", x.elements, "EmptyExpr");
+  }
+
   public void visit(ID x) {
     write("ID: " + x.Lexeme + "\n");
   }
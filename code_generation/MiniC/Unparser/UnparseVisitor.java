@@ -29,9 +29,10 @@ public class UnparseVisitor implements Visitor {
   private void write (String s) {
     try {
       out.write (s);
-    } catch (Exception e) {
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
+    } catch (IOException e) {
+      // Visitor methods cannot throw checked exceptions; the caller
+      // unwraps this again:
+      throw new UncheckedIOException(e);
     }
   }
 
@@ -57,7 +58,7 @@ public class UnparseVisitor implements Visitor {
     write(" ");
     x.idAST.accept(this);
     write ("(");
-    if (x.paramsAST.getClass() == FormalParamDeclSequence.class) {
+    if (x.paramsAST.getClass() != EmptyFormalParamDecl.class) {
       x.paramsAST.accept(this);
     }
     write (")");
@@ -93,6 +94,15 @@ public class UnparseVisitor implements Visitor {
     }
   }
 
+  public void visit(FormalParamDeclList x) {
+    for (int i = 0; i < x.elements.length; i++) {
+      if (i > 0) {
+        write(", ");
+      }
+      x.elements[i].accept(this);
+    }
+  }
+
   public void visit(EmptyFormalParamDecl x) {
     assert (false);
   }
@@ -104,6 +114,12 @@ public class UnparseVisitor implements Visitor {
     }
   }
 
+  public void visit(StmtList x) {
+    for (int i = 0; i < x.elements.length; i++) {
+      x.elements[i].accept(this);
+    }
+  }
+
   public void visit(AssignStmt x) {
     newline();
     x.lAST.accept(this);
@@ -179,10 +195,10 @@ public class UnparseVisitor implements Visitor {
     newline();
     write("{");
     indent++;
-    if (x.astDecl.getClass() == DeclSequence.class) {
+    if (x.astDecl.getClass() != EmptyDecl.class) {
       x.astDecl.accept(this);
     }
-    if (x.astStmt.getClass() == StmtSequence.class) {
+    if (x.astStmt.getClass() != EmptyStmt.class) {
       x.astStmt.accept(this);
     }
     indent--;
@@ -220,7 +236,8 @@ public class UnparseVisitor implements Visitor {
       write("[");
       ((ArrayType)x.tAST).astExpr.accept(this);
       write("]");
-      if (x.eAST.getClass() == ExprSequence.class) {
+      if (x.eAST.getClass() == ExprSequence.class
+          || x.eAST.getClass() == ExprList.class) {
         write(" = { ");
         x.eAST.accept(this);
         write(" }");
@@ -232,7 +249,8 @@ public class UnparseVisitor implements Visitor {
       x.tAST.accept(this);
       write (" ");
       x.idAST.accept(this);
-      if (x.eAST.getClass() == ExprSequence.class) {
+      if (x.eAST.getClass() == ExprSequence.class
+          || x.eAST.getClass() == ExprList.class) {
         write(" = { ");
         x.eAST.accept(this);
         write(" }");
@@ -251,6 +269,12 @@ public class UnparseVisitor implements Visitor {
     }
   }
 
+  public void visit(DeclList x) {
+    for (int i = 0; i < x.elements.length; i++) {
+      x.elements[i].accept(this);
+    }
+  }
+
   public void visit(VarExpr x) {
     x.Ident.accept(this);
   }
@@ -321,10 +345,19 @@ public class UnparseVisitor implements Visitor {
     }
   }
 
+  public void visit(ActualParamList x) {
+    for (int i = 0; i < x.elements.length; i++) {
+      if (i > 0) {
+        write(", ");
+      }
+      x.elements[i].accept(this);
+    }
+  }
+
   public void visit(CallExpr x) {
     x.idAST.accept(this);
     write("(");
-    if (x.paramAST.getClass() == ActualParamSequence.class) {
+    if (x.paramAST.getClass() != EmptyActualParam.class) {
       x.paramAST.accept(this);
     }
     write(")");
@@ -338,6 +371,15 @@ public class UnparseVisitor implements Visitor {
     }
   }
 
+  public void visit(ExprList x) {
+    for (int i = 0; i < x.elements.length; i++) {
+      if (i > 0) {
+        write(", ");
+      }
+      x.elements[i].accept(this);
+    }
+  }
+
   public void visit(ID x) {
     write(x.Lexeme);
   }
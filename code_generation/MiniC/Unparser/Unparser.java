@@ -5,20 +5,19 @@ import MiniC.AstGen.Program;
 
 public class Unparser {
 
-  public void unparse(Program ast, String FileName) {
+  public void unparse(Program ast, String FileName) throws IOException {
+    // Create file 
+    FileWriter fstream = new FileWriter(FileName);
+    BufferedWriter out = new BufferedWriter(fstream);
     try {
-      // Create file 
-      FileWriter fstream = new FileWriter(FileName);
-      BufferedWriter out = new BufferedWriter(fstream);
       // Create an UnparseVisitor and visit the AST:
       UnparseVisitor uv = new UnparseVisitor(out);
       ast.accept(uv);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
       //Close the output stream
       out.close();
-    } catch (Exception e) {
-      //Catch exception if any
-      System.err.println("Error: " + e.getMessage());
-      System.exit(1);
     }
   }
 
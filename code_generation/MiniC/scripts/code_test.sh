@@ -6,12 +6,12 @@
 TOPDIR=`pwd`
 tst=$TOPDIR/CodeGen/tst/base/testcases
 sol=$TOPDIR/CodeGen/tst/base/solutions
+err=$TOPDIR/CodeGen/tst/base/errors
 ans=$TOPDIR/CodeGen/results
 report=$ans/report.txt
 all=0
 ok=0
 classpath=$TOPDIR/../build/classes/java/main:.
-jasmin=$TOPDIR/../resources/jasmin_2.4/jasmin.jar
 minic=$TOPDIR/../build/libs/MiniC-CodeGen.jar
 
 rm -rf $ans
@@ -19,38 +19,60 @@ mkdir -p $ans
 echo "Codge Generation Test Report" >$report
 echo "generated "`date` >>$report
 #
-# Run testcases:
+# Run testcases, without and with -O (the optimized code must print the
+# same):
 #
 echo "Testing code generation..."
+for opt in "" "-O"
+do
 for file in $tst/*.mc
 do
      all=$(( $all + 1 ))
      f=`basename $file .mc`
+     t=$f$opt
      rm -f $f.j $f.class
-     java -ea -jar $minic $file > /dev/null
-     if [ -f $f.j ]
+     java -ea -jar $minic $opt $file > /dev/null
+     if [ -f $f.class ]
      then
-          # We produced $f.j, assemble to classfile and run:
-          java -jar $jasmin $f.j > /dev/null
-          if [ -f $f.class ]
+          # We produced $f.class, run it:
+          java -ea -cp $classpath $f >$ans/res_$t
+          diff -u --ignore-all-space --ignore-blank-lines $sol/${f}.txt $ans/res_$t > $ans/diff_$t
+          if [ "$?" -eq 0 ]
           then
-             java -ea -cp $classpath $f >$ans/res_$f
-             diff -u --ignore-all-space --ignore-blank-lines $sol/${f}.txt $ans/res_$f > $ans/diff_$f
-             if [ "$?" -eq 0 ]
-             then
-                 echo -n "+"
-                 echo "$f succeded" >> $report
-                 rm -rf $ans/res_$f $ans/diff_$f $f.j $f.class
-                 ok=$(( $ok + 1 ))
-                 continue
-             fi
-          else
-             echo "Could not generate $f.class"
+              echo -n "+"
+              echo "$t succeded" >> $report
+              rm -rf $ans/res_$t $ans/diff_$t $f.class
+              ok=$(( $ok + 1 ))
+              continue
           fi
      else
-          echo "Could not generate $f.j"
+          echo "Could not generate $f.class"
+     fi
+     echo "$t failed" >> $report
+done
+done
+#
+# Erroneous programs must be rejected with the same error messages
+# without and with -stats:
+#
+for file in $err/*.mc
+do
+     all=$(( $all + 1 ))
+     f=`basename $file .mc`
+     rm -f $f.j $f.class
+     java -ea -jar $minic $file >$ans/err_$f 2>&1
+     java -ea -jar $minic -stats $file >$ans/err_stats_$f 2>&1
+     if grep -q "Compilation was unsuccessful" $ans/err_stats_$f \
+        && diff <(grep ERROR $ans/err_$f) <(grep ERROR $ans/err_stats_$f) \
+           >$ans/diff_err_$f
+     then
+          echo -n "+"
+          echo "$f -stats succeded" >> $report
+          rm -f $ans/err_$f $ans/err_stats_$f $ans/diff_err_$f
+          ok=$(( $ok + 1 ))
+          continue
      fi
-     echo "$f failed" >> $report
+     echo "$f -stats failed" >> $report
 done
 echo
 echo "Testing finished, pls. consult the test report in $ans."
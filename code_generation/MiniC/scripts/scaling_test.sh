@@ -0,0 +1,71 @@
+#!/bin/bash
+#
+# Note: this script must be run from the MiniC directory, otherwise the
+# hardcoded paths won't work!
+#
+# Scaling test for the phases of the compiler: generates random MiniC
+# programs of 1K, 10K, 100K, ... bytes up to the given maximum size with
+# MiniC.Generator.ProgramGenerator, compiles each of them with -stats,
+# and prints a table with the time of every phase (in ms). If the time
+# per byte grows with the size, a phase does not scale linearly.
+#
+# Usage: scripts/scaling_test.sh [max-size[K|M|G]] [seed]
+#
+# e.g. scripts/scaling_test.sh 1G (needs a few GB of disk space and
+# heap; pass more heap in JAVA_OPTS, e.g. JAVA_OPTS=-Xmx16g)
+#
+TOPDIR=`pwd`
+max=${1:-10M}
+seed=${2:-1}
+ans=$TOPDIR/CodeGen/results
+minic=$TOPDIR/../build/libs/MiniC-CodeGen.jar
+
+case $max in
+  *K) maxbytes=$(( ${max%K} * 1024 ));;
+  *M) maxbytes=$(( ${max%M} * 1024 * 1024 ));;
+  *G) maxbytes=$(( ${max%G} * 1024 * 1024 * 1024 ));;
+  *)  maxbytes=$max;;
+esac
+
+mkdir -p $ans
+cd $ans
+printf "%10s %10s %10s %10s %10s %10s %10s\n" bytes lines scan parse \
+  semantic codegen total
+for size in 1K 10K 100K 1M 10M 100M 1G; do
+  case $size in
+    *K) bytes=$(( ${size%K} * 1024 ));;
+    *M) bytes=$(( ${size%M} * 1024 * 1024 ));;
+    *G) bytes=$(( ${size%G} * 1024 * 1024 * 1024 ));;
+  esac
+  if [ $bytes -gt $maxbytes ]; then
+    break
+  fi
+  src=scaling_$size.mc
+  java -cp $minic MiniC.Generator.ProgramGenerator -seed $seed \
+    -size $size -o $src
+  lines=`wc -l < $src`
+  #
+  # The parser builds declaration sequences recursively, so it needs a
+  # big stack (the later phases iterate over flattened lists):
+  #
+  java -Xss1g $JAVA_OPTS -cp $minic MiniC.Driver -stats $src > scaling.log 2>&1
+  if ! grep -q "was successful" scaling.log; then
+    echo "$src: compilation failed, see $ans/scaling.log"
+    exit 1
+  fi
+  awk -v bytes=`wc -c < $src` -v lines=$lines '
+    / ms / {
+      for (i = 1; $i != "ms"; i++)
+        ;
+      ms = $(i - 1);
+      phase = $1;
+      t[phase] = ms;
+      total += ms;
+    }
+    END {
+      printf "%10d %10d %10.1f %10.1f %10.1f %10.1f %10.1f\n", bytes, lines,
+        t["Scan"], t["Syntax"], t["Semantic"], t["Code"], total - t["Scan"];
+    }' scaling.log
+  rm -f $src scaling_$size.class
+done
+rm -f scaling.log
@@ -0,0 +1,43 @@
+#!/bin/bash
+#
+# Note: this script must be run from the MiniC directory, otherwise the
+# hardcoded paths won't work!
+#
+# Stress test for the scope stack: generates a MiniC program with many
+# global variables and deeply nested compound statements, and times the
+# compiler on it.
+#
+# Usage: scripts/scope_bench.sh [nr-of-globals] [nesting-depth]
+#
+TOPDIR=`pwd`
+globals=${1:-100000}
+depth=${2:-200}
+ans=$TOPDIR/CodeGen/results
+src=$ans/scope_bench.mc
+minic=$TOPDIR/../build/libs/MiniC-CodeGen.jar
+
+mkdir -p $ans
+#
+# Generate the program:
+#
+awk -v globals=$globals -v depth=$depth 'BEGIN {
+  for (i = 0; i < globals; i++)
+    printf "int g%d;\n", i;
+  printf "int main() {\n";
+  for (d = 1; d <= depth; d++) {
+    printf "{ int v%d; int g%d;\n", d, d;
+    for (k = 0; k < 10; k++)
+      printf "v%d = g%d + g%d;\n", d, (d * 7919 + k * 104729) % globals, d;
+  }
+  for (d = 1; d <= depth; d++)
+    printf "}\n";
+  printf "return 0;\n}\n";
+}' > $src
+echo "Generated $src: $globals globals, nesting depth $depth."
+#
+# Compile and time it. Declaration sequences are right-recursive lists,
+# so the parser and the visitors need a big stack:
+#
+cd $ans
+time java -Xss1g -jar $minic $src > /dev/null
+rm -f scope_bench.class
@@ -1,5 +1,6 @@
 package MiniC;
 
+import java.io.IOException;
 import MiniC.Scanner.Scanner;
 import MiniC.Scanner.Token;
 import MiniC.Scanner.SourceFile;
@@ -17,7 +18,15 @@ public class MiniC {
 
     System.out.println("Lexical Analysis ...");
 
-    SourceFile source = new SourceFile(sourceName);
+    SourceFile source;
+    try {
+      source = new SourceFile(sourceName);
+    } catch (IOException e) {
+      System.err.println("Error opening file " + sourceName);
+      System.err.println("Exiting...");
+      System.exit(1);
+      return;
+    }
 
     scanner = new Scanner(source);
     scanner.enableDebugging();
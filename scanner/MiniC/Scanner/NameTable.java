@@ -0,0 +1,84 @@
+package MiniC.Scanner;
+
+// Maps identifier spellings in the source buffer to canonical String
+// objects. Each distinct identifier is materialized only once; later
+// occurrences return the same String without allocating. The canonical
+// strings are String.intern()ed, so they are also identical to equal
+// string literals in the compiler (e.g., "main"), and identifiers can be
+// compared by reference.
+
+public final class NameTable {
+
+  // Open addressing with linear probing; the table is at most half full.
+  private String[] names;
+  private int count;
+
+  public NameTable() {
+    names = new String[256];
+    count = 0;
+  }
+
+  // Returns the canonical string for the "length" characters at offset
+  // "start" in "source".
+  public String lookup(SourceFile source, int start, int length) {
+    // Same function as String.hashCode(), so that stored names can be
+    // checked with their cached hash code first:
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + source.charAt(start + i);
+    }
+    int mask = names.length - 1;
+    int slot = mix(hash) & mask;
+    String name;
+    while ((name = names[slot]) != null) {
+      if (name.hashCode() == hash && matches(name, source, start, length)) {
+        return name;
+      }
+      slot = (slot + 1) & mask;
+    }
+    name = source.slice(start, start + length).intern();
+    names[slot] = name;
+    count++;
+    if (2 * count > names.length) {
+      rehash();
+    }
+    return name;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(String name, SourceFile source,
+      int start, int length) {
+    if (name.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (name.charAt(i) != source.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void rehash() {
+    String[] old = names;
+    names = new String[2 * old.length];
+    int mask = names.length - 1;
+    for (String name : old) {
+      if (name != null) {
+        int slot = mix(name.hashCode()) & mask;
+        while (names[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        names[slot] = name;
+      }
+    }
+  }
+
+}
@@ -1,9 +1,5 @@
 package MiniC.Scanner;
 
-import java.util.function.ToDoubleBiFunction;
-
-import javax.security.auth.callback.TextOutputCallback;
-
 import MiniC.Scanner.SourceFile;
 import MiniC.Scanner.Token;
 
@@ -11,720 +7,366 @@ public final class Scanner {
 
   private SourceFile sourceFile;
 
-  private char currentChar;
   private boolean verbose;
-  private StringBuffer currentLexeme;
-  private boolean currentlyScanningToken;
+  private NameTable names;
+  // The lexeme of the token just scanned: "lexemeLength" characters from
+  // offset "lexemeStart" in the source buffer. currentLexeme is only set
+  // for identifiers (their canonical string) and is null otherwise.
+  private int lexemeStart;
+  private int lexemeLength;
+  private String currentLexeme;
   private int currentLineNr;
   private int currentColNr;
+  private int nrTokens; // tokens delivered so far
+
+  ///////////////////////////////////////////////////////////////////////////////
+  //
+  // Identifiers, literals (except strings), operators and separators are
+  // recognized by a DFA that is driven by the transition table below.
+  // Characters are first mapped to a character class, so that a table row
+  // has one column per class instead of one column per character.
+  //
+  ///////////////////////////////////////////////////////////////////////////////
 
-  public int flag;
+  // Character classes:
+  private final static int
+      cOther = 0,        // any character that cannot extend a token
+      cLetter = 1,       // a-z, A-Z and '_', except 'e' and 'E'
+      cExp = 2,          // e E
+      cDigit = 3,        // 0-9
+      cDot = 4,          // .
+      cPlus = 5,         // +
+      cMinus = 6,        // -
+      cTimes = 7,        // *
+      cDiv = 8,          // /
+      cAssign = 9,       // =
+      cLess = 10,        // <
+      cGreater = 11,     // >
+      cNot = 12,         // !
+      cAmp = 13,         // &
+      cBar = 14,         // |
+      cLeftBrace = 15,   // {
+      cRightBrace = 16,  // }
+      cLeftBracket = 17, // [
+      cRightBracket = 18,// ]
+      cLeftParen = 19,   // (
+      cRightParen = 20,  // )
+      cComma = 21,       // ,
+      cSemicolon = 22,   // ;
+      nrClasses = 23;
+
+  // DFA states; sDead means that no token can be extended any further:
+  private final static int
+      sDead = 0,
+      sStart = 1,
+      sId = 2,
+      sInt = 3,          // 12
+      sDot = 4,          // .
+      sFraction = 5,     // 12.  12.3  .3
+      sExp = 6,          // 12e
+      sExpSign = 7,      // 12e+
+      sExpDigits = 8,    // 12e+3
+      sPlus = 9,
+      sMinus = 10,
+      sTimes = 11,
+      sDiv = 12,
+      sAssign = 13,
+      sEq = 14,
+      sNot = 15,
+      sNotEq = 16,
+      sLess = 17,
+      sLessEq = 18,
+      sGreater = 19,
+      sGreaterEq = 20,
+      sAmp = 21,         // &
+      sAnd = 22,
+      sBar = 23,         // |
+      sOr = 24,
+      sLeftBrace = 25,
+      sRightBrace = 26,
+      sLeftBracket = 27,
+      sRightBracket = 28,
+      sLeftParen = 29,
+      sRightParen = 30,
+      sComma = 31,
+      sSemicolon = 32,
+      sError = 33,
+      nrStates = 34;
+
+  // Marks states that do not accept a token:
+  private final static int NoToken = -1;
+
+  private final static byte[] charClass = new byte[256];
+  private final static int[][] transition = new int[nrStates][nrClasses];
+  private final static int[] acceptKind = new int[nrStates];
+
+  private static void edge(int from, int cls, int to) {
+    transition[from][cls] = to;
+  }
 
+  private static void accept(int state, int kind) {
+    acceptKind[state] = kind;
+  }
 
-  private int divStart;
-  private int divFinish;
+  // Single-character tokens: start --cls--> state, accepting kind.
+  private static void single(int cls, int state, int kind) {
+    edge(sStart, cls, state);
+    accept(state, kind);
+  }
 
-  private boolean isDigit(char c) {
-    return (c >= '0' && c <= '9');
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      charClass[c] = cLetter;
+      charClass[Character.toUpperCase(c)] = cLetter;
+    }
+    charClass['_'] = cLetter;
+    charClass['e'] = charClass['E'] = cExp;
+    for (char c = '0'; c <= '9'; c++) {
+      charClass[c] = cDigit;
+    }
+    charClass['.'] = cDot;
+    charClass['+'] = cPlus;
+    charClass['-'] = cMinus;
+    charClass['*'] = cTimes;
+    charClass['/'] = cDiv;
+    charClass['='] = cAssign;
+    charClass['<'] = cLess;
+    charClass['>'] = cGreater;
+    charClass['!'] = cNot;
+    charClass['&'] = cAmp;
+    charClass['|'] = cBar;
+    charClass['{'] = cLeftBrace;
+    charClass['}'] = cRightBrace;
+    charClass['['] = cLeftBracket;
+    charClass[']'] = cRightBracket;
+    charClass['('] = cLeftParen;
+    charClass[')'] = cRightParen;
+    charClass[','] = cComma;
+    charClass[';'] = cSemicolon;
+
+    java.util.Arrays.fill(acceptKind, NoToken);
+
+    // Identifiers (keywords are classified by Keywords once the DFA stops):
+    edge(sStart, cLetter, sId);
+    edge(sStart, cExp, sId);
+    edge(sId, cLetter, sId);
+    edge(sId, cExp, sId);
+    edge(sId, cDigit, sId);
+    accept(sId, Token.ID);
+
+    // Integer and floating-point literals:
+    edge(sStart, cDigit, sInt);
+    edge(sInt, cDigit, sInt);
+    edge(sInt, cDot, sFraction);
+    edge(sInt, cExp, sExp);
+    edge(sStart, cDot, sDot);
+    edge(sDot, cDigit, sFraction);
+    edge(sFraction, cDigit, sFraction);
+    edge(sFraction, cExp, sExp);
+    edge(sExp, cPlus, sExpSign);
+    edge(sExp, cMinus, sExpSign);
+    edge(sExp, cDigit, sExpDigits);
+    edge(sExpSign, cDigit, sExpDigits);
+    edge(sExpDigits, cDigit, sExpDigits);
+    accept(sInt, Token.INTLITERAL);
+    accept(sFraction, Token.FLOATLITERAL);
+    accept(sExpDigits, Token.FLOATLITERAL);
+
+    // Operators:
+    single(cPlus, sPlus, Token.PLUS);
+    single(cMinus, sMinus, Token.MINUS);
+    single(cTimes, sTimes, Token.TIMES);
+    single(cDiv, sDiv, Token.DIV);
+    single(cAssign, sAssign, Token.ASSIGN);
+    single(cNot, sNot, Token.NOT);
+    single(cLess, sLess, Token.LESS);
+    single(cGreater, sGreater, Token.GREATER);
+    edge(sAssign, cAssign, sEq);
+    edge(sNot, cAssign, sNotEq);
+    edge(sLess, cAssign, sLessEq);
+    edge(sGreater, cAssign, sGreaterEq);
+    accept(sEq, Token.EQ);
+    accept(sNotEq, Token.NOTEQ);
+    accept(sLessEq, Token.LESSEQ);
+    accept(sGreaterEq, Token.GREATEREQ);
+    edge(sStart, cAmp, sAmp);
+    edge(sAmp, cAmp, sAnd);
+    accept(sAnd, Token.AND);
+    edge(sStart, cBar, sBar);
+    edge(sBar, cBar, sOr);
+    accept(sOr, Token.OR);
+
+    // Separators:
+    single(cLeftBrace, sLeftBrace, Token.LEFTBRACE);
+    single(cRightBrace, sRightBrace, Token.RIGHTBRACE);
+    single(cLeftBracket, sLeftBracket, Token.LEFTBRACKET);
+    single(cRightBracket, sRightBracket, Token.RIGHTBRACKET);
+    single(cLeftParen, sLeftParen, Token.LEFTPAREN);
+    single(cRightParen, sRightParen, Token.RIGHTPAREN);
+    single(cComma, sComma, Token.COMMA);
+    single(cSemicolon, sSemicolon, Token.SEMICOLON);
+
+    // Anything else is an illegal character:
+    single(cOther, sError, Token.ERROR);
   }
 
   ///////////////////////////////////////////////////////////////////////////////
 
   public Scanner(SourceFile source) {
     sourceFile = source;
-    currentChar = sourceFile.readChar();
     verbose = false;
-    currentLineNr = -1;
-    currentColNr = -1;
-
+    names = new NameTable();
+    currentLineNr = 1;
+    currentColNr = 1;
+    nrTokens = 0;
   }
 
   public void enableDebugging() {
     verbose = true;
   }
 
-  // takeIt appends the current character to the current token, and gets
-  // the next character from the source program (or the to-be-implemented
-  // "untake" buffer in case of look-ahead characters that got 'pushed back'
-  // into the input stream).
-
-  private void takeIt() {
-    if (currentlyScanningToken) {
-      currentLexeme.append(currentChar);
+  // Consumes n characters of the current line.
+  private void skip(int n) {
+    for (int i = 0; i < n; i++) {
+      sourceFile.readChar();
     }
-    currentChar = sourceFile.readChar();
+    currentColNr += n;
   }
 
-  private int scanToken() {
-
-    switch (currentChar) {
-
-      case 'b': // bool
-        takeIt();
-        if (currentChar == 'o') {
-          takeIt();
-          if (currentChar == 'o') {
-            takeIt();
-            if (currentChar == 'l') {
-              takeIt();
-              return Token.BOOL;
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
-        }
-
-      case 'e': // else
-      flag = 0;
-        takeIt();
-        if (currentChar == 'l') {
-          takeIt();
-          if (currentChar == 's') {
-            takeIt();
-            if (currentChar == 'e') {
-              takeIt();
-              return Token.ELSE;
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
-        }
-
-      case 'f': // float, for, false(bool)
-        takeIt();
-        if (currentChar == 'l') {
-          takeIt();
-          if (currentChar == 'o') {
-            takeIt();
-            if (currentChar == 'a') {
-              takeIt();
-              if (currentChar == 't') {
-                takeIt();
-                return Token.FLOAT;
-              } else {
-                while (Character.isLetter(currentChar) ||
-                    isDigit(currentChar) || currentChar == '_') {
-                  takeIt();
-                }
-                return Token.ID;
-              }
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-
-        } else if (currentChar == 'o') {
-          takeIt();
-          if (currentChar == 'r') {
-            takeIt();
-            return Token.FOR;
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else if (currentChar == 'a') {
-          takeIt();
-          if (currentChar == 'l') {
-            takeIt();
-            if (currentChar == 's') {
-              takeIt();
-              if (currentChar == 'e') {
-                takeIt();
-                return Token.BOOLLITERAL;
-              } else {
-                while (Character.isLetter(currentChar) ||
-                    isDigit(currentChar) || currentChar == '_') {
-                  takeIt();
-                }
-                return Token.ID;
-              }
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
-        }
-
-      case 'i': // if, int
-        takeIt();
-        if (currentChar == 'f') {
-          takeIt();
-          return Token.IF;
-        } else if (currentChar == 'n') {
-          takeIt();
-          if (currentChar == 't') {
-            takeIt();
-            return Token.INT;
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
-        }
-
-      case 'r': // return
-        takeIt();
-        if (currentChar == 'e') {
-          takeIt();
-          if (currentChar == 't') {
-            takeIt();
-            if (currentChar == 'u') {
-              takeIt();
-              if (currentChar == 'r') {
-                takeIt();
-                if (currentChar == 'n') {
-                  takeIt();
-                  return Token.RETURN;
-                } else {
-                  while (Character.isLetter(currentChar) ||
-                      isDigit(currentChar) || currentChar == '_') {
-                    takeIt();
-                  }
-                  return Token.ID;
-                }
-              } else {
-                while (Character.isLetter(currentChar) ||
-                    isDigit(currentChar) || currentChar == '_') {
-                  takeIt();
-                }
-                return Token.ID;
-              }
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
-        }
+  // Consumes a line terminator (LF or CR+LF).
+  private void skipLineTerminator() {
+    if (sourceFile.readChar() == '\r') {
+      sourceFile.readChar();
+    }
+    currentLineNr++;
+    currentColNr = 1;
+  }
 
-      case 'v': // void
-        takeIt();
-        if (currentChar == 'o') {
-          takeIt();
-          if (currentChar == 'i') {
-            takeIt();
-            if (currentChar == 'd') {
-              takeIt();
-              return Token.VOID;
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
-        }
+  private boolean isLineTerminator(char c) {
+    return c == '\n' || (c == '\r' && sourceFile.peek(1) == '\n');
+  }
 
-      case 'w': // while
-        takeIt();
-        if (currentChar == 'h') {
-          takeIt();
-          if (currentChar == 'i') {
-            takeIt();
-            if (currentChar == 'l') {
-              takeIt();
-              if (currentChar == 'e') {
-                takeIt();
-                return Token.WHILE;
-              } else {
-                while (Character.isLetter(currentChar) ||
-                    isDigit(currentChar) || currentChar == '_') {
-                  takeIt();
-                }
-                return Token.ID;
-              }
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
-          } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-          return Token.ID;
+  // Skips whitespace, end-of-line comments and C-style comments.
+  private void skipSeparators() {
+    while (true) {
+      char c = sourceFile.peek(0);
+      if (isLineTerminator(c)) {
+        skipLineTerminator();
+      } else if (c == ' ' || c == '\t' || c == '\f' || c == '\r') {
+        skip(1);
+      } else if (c == '/' && sourceFile.peek(1) == '/') {
+        skip(2);
+        c = sourceFile.peek(0);
+        while (c != SourceFile.EOF && !isLineTerminator(c)) {
+          skip(1);
+          c = sourceFile.peek(0);
         }
-
-      case 't':
-        takeIt();
-        if (currentChar == 'r') {
-          takeIt();
-          if (currentChar == 'u') {
-            takeIt();
-            if (currentChar == 'e') {
-              takeIt();
-              return Token.BOOLLITERAL;
-            } else {
-              while (Character.isLetter(currentChar) ||
-                  isDigit(currentChar) || currentChar == '_') {
-                takeIt();
-              }
-              return Token.ID;
-            }
+      } else if (c == '/' && sourceFile.peek(1) == '*') {
+        skip(2);
+        while (true) {
+          c = sourceFile.peek(0);
+          if (c == SourceFile.EOF) {
+            System.out.println("ERROR: unterminated multi-line comment.");
+            break;
+          } else if (c == '*' && sourceFile.peek(1) == '/') {
+            skip(2);
+            break;
+          } else if (isLineTerminator(c)) {
+            skipLineTerminator();
           } else {
-            while (Character.isLetter(currentChar) ||
-                isDigit(currentChar) || currentChar == '_') {
-              takeIt();
-            }
-            return Token.ID;
-          }
-        } else {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
+            skip(1);
           }
-          return Token.ID;
-        }
-
-        // normal alphabet cases
-
-      case 'a':
-      case 'c':
-      case 'd':
-      case 'g':
-      case 'h':
-      case 'j':
-      case 'k':
-      case 'l':
-      case 'm':
-      case 'n':
-      case 'o':
-      case 'p':
-      case 'q':
-      case 's':
-      case 'u':
-      case 'x':
-      case 'y':
-      case 'z':
-      case 'A':
-      case 'B':
-      case 'C':
-      case 'D':
-      case 'E':
-      case 'F':
-      case 'G':
-      case 'H':
-      case 'I':
-      case 'J':
-      case 'K':
-      case 'L':
-      case 'M':
-      case 'N':
-      case 'O':
-      case 'P':
-      case 'Q':
-      case 'R':
-      case 'S':
-      case 'T':
-      case 'U':
-      case 'V':
-      case 'W':
-      case 'X':
-      case 'Y':
-      case 'Z':
-      case '_':
-        takeIt();
-        flag = 0;
-
-        while (Character.isLetter(currentChar) ||
-            isDigit(currentChar) || currentChar == '_') {
-          takeIt();
-        }
-        
-        return Token.ID;
-
-
-        
-
-      case '0':
-      case '1':
-      case '2':
-      case '3':
-      case '4':
-      case '5':
-      case '6':
-      case '7':
-      case '8':
-      case '9':
-        takeIt();
-
-        while (isDigit(currentChar)) {
-          takeIt();
-        }
-
-        flag = 0;
-
-        if (Character.isLetter(currentChar)) {
-          flag += 1;
-        }
-
-        return Token.INTLITERAL;
-
-      case '"':
-
-        flag = 0;
-
-        takeIt();
-
-        while (Character.isLetter(currentChar) && currentChar != '"') {
-          takeIt();
         }
+      } else {
+        return;
+      }
+    }
+  }
 
-        if (currentChar == '"') {
-          takeIt();
-          return Token.STRINGLITERAL;
-        } else {
-          flag += 1;
-          System.out.println("ERROR:");
-          return Token.ERROR;
-        }
-
-        
-
-      case '+':
-        takeIt();
-        return Token.PLUS;
-
-      case '-':
-        takeIt();
-        return Token.MINUS;
-
-      case '*':
-        takeIt();
-        return Token.TIMES;
-
-      case '/':
-      takeIt();
-
-        if (currentChar == '/') {
-          while (Character.isLetter(currentChar) ||
-              isDigit(currentChar) || currentChar == '_') {
-            takeIt();
-          }
-        }
-        
-      // } else if (currentChar == '*') {
-      // currentChar = sourceFile.readChar();
-      // char nextChar = sourceFile.readChar();
-
-      // while (currentChar != '*' || nextChar != '/') {
-      // if (currentChar == '\n') {
-
-      // }
-      // currentChar = nextChar;
-      // nextChar = sourceFile.readChar();
-      // }
-      // currentChar = sourceFile.readChar();
-      // }
-
-      
-        else {
-          return Token.DIV;
-        }
-
-      case SourceFile.EOF:
-        currentLexeme.append('$');
-        return Token.EOF;
-      // Add code here for the remaining MiniC tokens...
-
-      case '=':
-
-        takeIt();
-        if (currentChar == '=')
-
-        {
-          takeIt();
-          return Token.EQ;
-        } else {
-          return Token.ASSIGN;
-        }
-
-      case '>':
-
-        takeIt();
-        if (currentChar == '=')
-
-        {
-          takeIt();
-          return Token.GREATEREQ;
-        } else {
-          return Token.GREATER;
+  // Scans a string literal; the lexeme excludes the surrounding quotes.
+  private int scanString() {
+    skip(1);
+    lexemeStart = sourceFile.getOffset();
+    while (true) {
+      char c = sourceFile.peek(0);
+      if (c == '"') {
+        lexemeLength = sourceFile.getOffset() - lexemeStart;
+        skip(1);
+        return Token.STRINGLITERAL;
+      } else if (c == SourceFile.EOF || c == '\n' || c == '\r') {
+        System.out.println("ERROR: unterminated string literal");
+        lexemeLength = sourceFile.getOffset() - lexemeStart;
+        return Token.STRINGLITERAL;
+      } else if (c == '\\') {
+        char escaped = sourceFile.peek(1);
+        if (escaped != 'n') {
+          System.out.println("ERROR: illegal escape sequence");
         }
-
-      case '<':
-
-        takeIt();
-        if (currentChar == '=')
-
-        {
-          takeIt();
-          return Token.LESSEQ;
+        if (escaped == SourceFile.EOF || escaped == '\n' || escaped == '\r') {
+          skip(1);
         } else {
-          return Token.LESS;
-        }
-
-      case '&':
-
-        takeIt();
-        if (currentChar != '&')
-
-        {
-          System.out.println("ERROR:");
-          return Token.ERROR;
-        }
-
-        takeIt();
-        return Token.AND;
-
-      case '|':
-
-        takeIt();
-        if (currentChar != '|') {
-          System.out.println("ERROR:");
-          return Token.ERROR;
-          }
-
-        takeIt();
-        return Token.OR;
-
-      case '!':
-
-        takeIt();
-        if (currentChar == '=')
-
-        {
-          takeIt();
-          return Token.NOTEQ;
+          skip(2);
         }
-        return Token.NOT;
-
-      case ',':
-
-        takeIt();
-        return Token.COMMA;
-
-      case ';':
-
-        takeIt();
-        return Token.SEMICOLON;
-      case '(':
-
-        takeIt();
-        return Token.LEFTPAREN;
-
-      case ')':
-
-        takeIt();
-        return Token.RIGHTPAREN;
-
-      case '[':
-
-        takeIt();
-        return Token.LEFTBRACKET;
-
-      case ']':
-
-        takeIt();
-        return Token.RIGHTBRACKET;
-
-      case '{':
-
-        takeIt();
-        return Token.LEFTBRACE;
-
-      case '}':
-
-        takeIt();
-        return Token.RIGHTBRACE;
-      // end
-
-      // string
-
-      default:
-        flag = 0;
-        takeIt();
-        flag += 1;
-        return Token.ERROR;
-
+      } else {
+        skip(1);
+      }
     }
-
   }
 
-  public Token scan() {
-    Token currentToken;
-    SourcePos pos;
-    int kind;
-
-
-    if (currentColNr == -1) {
-      currentColNr = 1;
-    }
-    if (currentLineNr == -1) {
-      currentLineNr = 1;
+  // Runs the DFA from the current character on and returns the kind of
+  // the longest token found. A character that does not start any token
+  // yields an ERROR token of length 1.
+  private int scanToken() {
+    currentLexeme = null;
+    if (sourceFile.peek(0) == '"') {
+      return scanString();
     }
-
-
-    // if (isDigit(currentChar)) {
-    //   flag += 1;
-    // }
-
-    currentlyScanningToken = false;
-    while (currentChar == ' '
-        // || currentChar == '/'
-        || currentChar == '\f'
-        || currentChar == '\n' // newline
-        || currentChar == '\r' //
-        || currentChar == '\t') { // tap
-
-      
-      currentColNr += 1;
-
-      if (currentChar == ' ') {
-        currentColNr += 1;
+    int state = sStart;
+    int length = 0;
+    int kind = Token.ERROR;
+    int tokenLength = 1;
+    while (true) {
+      state = transition[state][charClass[sourceFile.peek(length)]];
+      if (state == sDead) {
+        break;
       }
-
-      if (currentChar == '\n') {
-        currentColNr = 1;
-        currentLineNr += 1;
+      length++;
+      if (acceptKind[state] != NoToken) {
+        kind = acceptKind[state];
+        tokenLength = length;
       }
-
-      takeIt();
-
     }
-
-    currentlyScanningToken = true;
-    currentLexeme = new StringBuffer("");
-
-    pos = new SourcePos();
-
-    if (flag == 1) {
-      currentColNr += 1;
+    lexemeStart = sourceFile.getOffset();
+    lexemeLength = tokenLength;
+    if (kind == Token.ID) {
+      kind = Keywords.classify(sourceFile, lexemeStart, lexemeLength);
+      if (kind == Token.ID) {
+        currentLexeme = names.lookup(sourceFile, lexemeStart, lexemeLength);
+      }
     }
-    flag = 0;
-
-    pos.StartLine = currentLineNr;
-    pos.EndLine = currentLineNr;
-    pos.StartCol = currentColNr;
-
-    kind = scanToken();
+    skip(tokenLength);
+    return kind;
+  }
 
-    currentToken = new Token(kind, currentLexeme.toString(), pos);
+  public Token scan() {
+    Token currentToken;
+    int kind, line, startCol;
 
+    skipSeparators();
 
-    // if (flag != 0){
-    //   currentColNr += currentLexeme.length() - 1;
-    // } else {
-    //   currentColNr += currentLexeme.length() - 1;
-    // }
+    line = currentLineNr;
+    startCol = currentColNr;
 
-    currentColNr += currentLexeme.length() - 1;
+    if (sourceFile.peek(0) == SourceFile.EOF) {
+      currentToken = new Token(Token.EOF, "$", sourceFile,
+          sourceFile.getOffset(), 0, line, startCol, startCol, ++nrTokens);
+    } else {
+      kind = scanToken();
+      currentToken = new Token(kind, currentLexeme, sourceFile,
+          lexemeStart, lexemeLength, line, startCol, currentColNr - 1,
+          ++nrTokens);
+    }
 
-    pos.EndCol = currentColNr;
     if (verbose)
       currentToken.print();
     return currentToken;
@@ -1,5 +1,6 @@
 package MiniC.Scanner;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import MiniC.Scanner.SourcePos;
 
 final public class Token extends Object {
@@ -7,47 +8,61 @@ final public class Token extends Object {
   public int kind;
   protected SourcePos src_pos;
   private String lexeme;
-  private static int overall_nrtokens = 0;
+  // Tokens created by the scanner refer to their lexeme in the source
+  // buffer. The lexeme string and src_pos are only created when somebody
+  // asks for them.
+  private SourceFile source;
+  private int startOffset, length;
+  private int line, startCol, endCol;
+  // Numbers the tokens that are not created by a Scanner; shared by all
+  // threads:
+  private static final AtomicInteger overall_nrtokens = new AtomicInteger();
   private int my_tokennr;
 
   public Token(int kind, String lexeme, SourcePos src_pos) {
     if (kind == Token.ID) {
-      int index = firstKeyword;
-      boolean searching = true;
-      while (searching) {
-        int compare = tokenTable[index].compareTo(lexeme);
-        if (compare == 0) {
-          this.kind = index;
-          searching = false;
-        } else if (compare > 0 || index == lastKeyword) {
-          this.kind = Token.ID;
-          searching = false;
-        } else {
-          index++;
-        }
-      }
+      this.kind = Keywords.classify(lexeme);
     } else {
       this.kind = kind;
     }
     this.src_pos = src_pos;
     this.lexeme = lexeme;
-    overall_nrtokens++;
-    my_tokennr = overall_nrtokens;
+    my_tokennr = overall_nrtokens.incrementAndGet();
+  }
+
+  // Creates a token for the "length" characters at offset "startOffset"
+  // in "source", which lie on line "line" from column "startCol" to
+  // "endCol". "kind" must already be classified (no keyword lookup takes
+  // place). "lexeme" may be null, in which case GetLexeme() produces it
+  // from the source buffer on first use. "tokennr" is the number of the
+  // token in its source file (counted by the scanner).
+  public Token(int kind, String lexeme, SourceFile source,
+      int startOffset, int length, int line, int startCol, int endCol,
+      int tokennr) {
+    this.kind = kind;
+    this.lexeme = lexeme;
+    this.source = source;
+    this.startOffset = startOffset;
+    this.length = length;
+    this.line = line;
+    this.startCol = startCol;
+    this.endCol = endCol;
+    my_tokennr = tokennr;
   }
 
   public void print() {
     System.out.println("token" + my_tokennr + ".kind = Token."
         + tokenTable[kind].toUpperCase());
     System.out.println("token" + my_tokennr + ".lexeme = \""
-        + lexeme + "\"");
+        + GetLexeme() + "\"");
     System.out.println("token" + my_tokennr + ".src_pos.StartLine = "
-        + src_pos.StartLine);
+        + GetSourcePos().StartLine);
     System.out.println("token" + my_tokennr + ".src_pos.EndLine = "
-        + src_pos.EndLine);
+        + GetSourcePos().EndLine);
     System.out.println("token" + my_tokennr + ".src_pos.StartCol = "
-        + src_pos.StartCol);
+        + GetSourcePos().StartCol);
     System.out.println("token" + my_tokennr + ".src_pos.EndCol = "
-        + src_pos.EndCol + "\n");
+        + GetSourcePos().EndCol + "\n");
   }
 
   public final static int
@@ -180,18 +195,35 @@ final public class Token extends Object {
       "EOF" // o
   };
 
-  private final static int firstKeyword = Token.BOOL,
-      lastKeyword = Token.WHILE;
+  // Operators, keywords and separators are always spelled the same way.
+  private static boolean hasFixedSpelling(int kind) {
+    return (kind >= Token.ASSIGN && kind <= Token.DIV)
+        || (kind >= Token.BOOL && kind <= Token.SEMICOLON);
+  }
 
   public static String spell(int kind) {
     return lexemeTable[kind];
   }
 
   public SourcePos GetSourcePos() {
+    if (src_pos == null) {
+      src_pos = new SourcePos();
+      src_pos.StartLine = line;
+      src_pos.EndLine = line;
+      src_pos.StartCol = startCol;
+      src_pos.EndCol = endCol;
+    }
     return src_pos;
   }
 
   public String GetLexeme() {
+    if (lexeme == null) {
+      if (hasFixedSpelling(kind)) {
+        lexeme = lexemeTable[kind];
+      } else {
+        lexeme = source.slice(startOffset, startOffset + length);
+      }
+    }
     return lexeme;
   }
 
@@ -5,29 +5,46 @@ import MiniC.AstGen.*;
 
 public final class StdEnvironment {
 
-  // The pre-defined language environment for MiniC:
+  // The pre-defined language environment for MiniC. It is built once,
+  // when the class is loaded, and never changed afterwards, so all
+  // compilations (also concurrent ones) share the same declarations.
 
 
   // ASTs representing the MiniC standard type declarations:
 
-  public static TypeDecl intTypeDecl, boolTypeDecl, floatTypeDecl,
+  public static final TypeDecl intTypeDecl, boolTypeDecl, floatTypeDecl,
          stringTypeDecl, voidTypeDecl, errorTypeDecl;
 
   // ASTs representing the MiniC standard types:
 
-  public static Type intType, boolType, floatType, stringType, voidType,errorType;
+  public static final Type intType, boolType, floatType, stringType, voidType,errorType;
 
 
   // ASTs representing the declarations of our pre-defined MiniC functions:
 
-  public static FunDecl getInt, putInt, getBool, putBool, getFloat, putFloat;
-  public static FunDecl getString, putString;
-  public static FunDecl putLn;
+  public static final FunDecl getInt, putInt, getBool, putBool, getFloat, putFloat;
+  public static final FunDecl getString, putString;
+  public static final FunDecl putLn;
 
-  public Program AST;
-  private static SourcePos dummyPos = new SourcePos();
+  // The declarations above as an AST, so that it can be traversed and
+  // printed:
 
+  public final Program AST;
+  private static final Program standardAST;
+  private static final SourcePos dummyPos = new SourcePos();
+
+  private static final StdEnvironment instance;
+
+  // All StdEnvironment objects refer to the same, shared AST:
   public StdEnvironment () {
+    AST = standardAST;
+  }
+
+  public static StdEnvironment getInstance() {
+    return instance;
+  }
+
+  static {
     DeclSequence D;
     FormalParamDecl pDecl;
     FormalParamDeclSequence pSeq;
@@ -145,8 +162,8 @@ public final class StdEnvironment {
     intTypeDecl = new TypeDecl(intType, dummyPos);
     D = new DeclSequence (intTypeDecl, D, dummyPos);
 
-    AST = new Program (D, dummyPos);
-
+    standardAST = new Program (D, dummyPos);
+    instance = new StdEnvironment();
   }
 
 }